@@ -0,0 +1,29 @@
+package com.iancaffey.tempt;
+
+/**
+ * BoundaryPolicy
+ * <p>
+ * A representation of how a scene treats entities which move past its bounds.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ * @see Scene#setBoundaryPolicy(BoundaryPolicy)
+ */
+public enum BoundaryPolicy {
+    /**
+     * Entities are moved back within the bounds and their velocity is reflected off the boundary they crossed.
+     */
+    REFLECT,
+    /**
+     * Entities are moved back within the bounds and their velocity towards the boundary they crossed is dropped.
+     */
+    CLAMP,
+    /**
+     * Entities which leave the bounds on one side re-enter on the opposite side.
+     */
+    WRAP,
+    /**
+     * Entities which leave the bounds entirely are removed from the scene.
+     */
+    DESPAWN
+}
@@ -1,5 +1,8 @@
 package com.iancaffey.tempt;
 
+import com.iancaffey.tempt.collision.Broadphase2d;
+import com.iancaffey.tempt.collision.SpatialHash2d;
+import com.iancaffey.tempt.entity.BodyType;
 import com.iancaffey.tempt.math.Dimension2d;
 import com.iancaffey.tempt.shape.Rectangle;
 
@@ -8,7 +11,10 @@ import java.util.Arrays;
 /**
  * BoundedScene
  * <p>
- * A representation of a bounded scene composed of scene entities surrounded by walls on all four sides.
+ * A representation of a bounded scene composed of scene entities surrounded by static walls on all four sides.
+ * <p>
+ * Alternatively, the scene may be bounded by a {@link BoundaryPolicy}, which keeps entities within the bounds without
+ * any wall entities.
  *
  * @author Ian Caffey
  * @since 1.0
@@ -18,6 +24,8 @@ public class BoundedScene extends Scene {
 
     /**
      * Constructs a new {@code BoundedScene} with specified bounds.
+     * <p>
+     * The walls are static entities, so they are kept in the static index of the scene rather than in its broadphase.
      *
      * @param x      the x-coordinate
      * @param y      the y-coordinate
@@ -36,17 +44,31 @@ public class BoundedScene extends Scene {
         walls[1].setPosition(x, y - halfHeight);
         walls[2].setPosition(x + width, 0);
         walls[3].setPosition(0, y + height);
+        for (SceneEntity2d wall : walls)
+            wall.setBodyType(BodyType.STATIC);
         add(walls);
 
     }
 
     /**
      * Constructs a new {@code BoundedScene} with specified bounds.
+     * <p>
+     * The walls are static entities, so they are kept in the static index of the scene rather than in its broadphase.
      *
      * @param bounds the scene bounds
      */
     public BoundedScene(Rectangle bounds) {
-        super(bounds);
+        this(bounds, new SpatialHash2d<>());
+    }
+
+    /**
+     * Constructs a new {@code BoundedScene} with specified bounds and broadphase.
+     *
+     * @param bounds     the scene bounds
+     * @param broadphase the scene broadphase
+     */
+    public BoundedScene(Rectangle bounds, Broadphase2d<SceneEntity2d> broadphase) {
+        super(bounds, broadphase);
         double x = bounds.getX();
         double y = bounds.getY();
         double width = bounds.getWidth();
@@ -61,13 +83,44 @@ public class BoundedScene extends Scene {
         walls[1].setPosition(x, y - halfHeight);
         walls[2].setPosition(x + width, 0);
         walls[3].setPosition(0, y + height);
+        for (SceneEntity2d wall : walls)
+            wall.setBodyType(BodyType.STATIC);
         add(walls);
     }
 
+    /**
+     * Constructs a new {@code BoundedScene} with specified bounds and boundary policy.
+     * <p>
+     * The scene has no walls. Entities are instead kept within the bounds analytically as they are integrated.
+     *
+     * @param bounds the scene bounds
+     * @param policy the boundary policy
+     */
+    public BoundedScene(Rectangle bounds, BoundaryPolicy policy) {
+        this(bounds, new SpatialHash2d<>(), policy);
+    }
+
+    /**
+     * Constructs a new {@code BoundedScene} with specified bounds, broadphase, and boundary policy.
+     * <p>
+     * The scene has no walls. Entities are instead kept within the bounds analytically as they are integrated.
+     *
+     * @param bounds     the scene bounds
+     * @param broadphase the scene broadphase
+     * @param policy     the boundary policy
+     */
+    public BoundedScene(Rectangle bounds, Broadphase2d<SceneEntity2d> broadphase, BoundaryPolicy policy) {
+        super(bounds, broadphase);
+        if (policy == null)
+            throw new IllegalArgumentException();
+        this.walls = new SceneEntity2d[0];
+        setBoundaryPolicy(policy);
+    }
+
     /**
      * Returns the enclosing walls for the scene.
      *
-     * @return the enclosing walls
+     * @return the enclosing walls, which are empty if the scene is bounded by a boundary policy
      */
     public SceneEntity2d[] getWalls() {
         return Arrays.copyOf(walls, walls.length);
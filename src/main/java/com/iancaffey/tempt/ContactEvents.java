@@ -0,0 +1,259 @@
+package com.iancaffey.tempt;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ContactEvents
+ * <p>
+ * A representation of a ring buffer of contact events, handed to a {@link ContactListener} as a batch of the events
+ * recorded since the previous batch.
+ * <p>
+ * Each event holds its state, both entities of the contact, and the contact normal, in preallocated parallel columns,
+ * so recording an event does not allocate. The left entity is the one with the lower id, and the normal points from
+ * the left entity towards the right entity. Ended contacts may refer to entities which have since left the scene.
+ * <p>
+ * A batch is delivered at most once at a time. When batches are delivered on an executor, the scene keeps stepping
+ * while the listener runs, and events recorded meanwhile wait for the next batch. Events which do not fit into the
+ * buffer while a batch is being delivered are dropped and counted rather than stalling the step, and the buffer grows
+ * before the next batch so it settles at the rate of contacts in the scene. Otherwise, the buffer grows to fit.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public final class ContactEvents {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final ContactState[] STATES = ContactState.values();
+    private final AtomicBoolean delivering = new AtomicBoolean();
+    private byte[] states;
+    private SceneEntity2d[] lefts;
+    private SceneEntity2d[] rights;
+    private double[] normalX;
+    private double[] normalY;
+    private int mask;
+    private long head;
+    private volatile long tail;
+    private long start;
+    private long end;
+    private volatile long dropped;
+    private boolean overflowed;
+
+    /**
+     * Constructs a new {@code ContactEvents} with the default capacity.
+     */
+    ContactEvents() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new {@code ContactEvents} with room for at least the specified number of events.
+     *
+     * @param capacity the initial capacity
+     */
+    ContactEvents(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException();
+        int length = 1;
+        while (length < capacity)
+            length <<= 1;
+        allocate(length);
+    }
+
+    /**
+     * Records an event at the head of the buffer.
+     *
+     * @param state   the contact state
+     * @param left    the entity with the lower id
+     * @param right   the entity with the higher id
+     * @param normalX the x component of the contact normal
+     * @param normalY the y component of the contact normal
+     */
+    void add(ContactState state, SceneEntity2d left, SceneEntity2d right, double normalX, double normalY) {
+        if (head - tail == states.length) {
+            if (delivering.get()) {
+                dropped++;
+                overflowed = true;
+                return;
+            }
+            grow();
+        }
+        int index = (int) head & mask;
+        states[index] = (byte) state.ordinal();
+        lefts[index] = left;
+        rights[index] = right;
+        this.normalX[index] = normalX;
+        this.normalY[index] = normalY;
+        head++;
+    }
+
+    /**
+     * Delivers the events recorded since the previous batch to the listener, on the executor if one is given.
+     * <p>
+     * Nothing is delivered while a previous batch is still being delivered; the events are left for the next batch.
+     * Pending events are discarded if there is no listener.
+     *
+     * @param listener the contact listener, or {@code null}
+     * @param executor the executor, or {@code null} to deliver on the calling thread
+     */
+    void dispatch(ContactListener listener, Executor executor) {
+        if (head == tail || !delivering.compareAndSet(false, true))
+            return;
+        if (overflowed) {
+            overflowed = false;
+            grow();
+        }
+        long to = head;
+        if (listener == null) {
+            release(to);
+            return;
+        }
+        if (executor == null) {
+            deliver(listener, to);
+            return;
+        }
+        try {
+            executor.execute(() -> deliver(listener, to));
+        } catch (RuntimeException e) {
+            delivering.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Hands the events up to the specified position to the listener as a single batch, and then releases them.
+     */
+    private void deliver(ContactListener listener, long to) {
+        start = tail;
+        end = to;
+        try {
+            listener.contacts(this);
+        } finally {
+            release(to);
+        }
+    }
+
+    /**
+     * Releases the events up to the specified position, ending the current delivery.
+     */
+    private void release(long to) {
+        for (long i = tail; i < to; i++) {
+            lefts[(int) i & mask] = null;
+            rights[(int) i & mask] = null;
+        }
+        start = end = to;
+        tail = to;
+        delivering.set(false);
+    }
+
+    private void allocate(int capacity) {
+        states = new byte[capacity];
+        lefts = new SceneEntity2d[capacity];
+        rights = new SceneEntity2d[capacity];
+        normalX = new double[capacity];
+        normalY = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Doubles the capacity of the buffer, moving the pending events to the front. Only called while no batch is being
+     * delivered.
+     */
+    private void grow() {
+        byte[] states = this.states;
+        SceneEntity2d[] lefts = this.lefts;
+        SceneEntity2d[] rights = this.rights;
+        double[] normalX = this.normalX;
+        double[] normalY = this.normalY;
+        int mask = this.mask;
+        int count = (int) (head - tail);
+        allocate(states.length * 2);
+        for (int i = 0; i < count; i++) {
+            int index = (int) (tail + i) & mask;
+            this.states[i] = states[index];
+            this.lefts[i] = lefts[index];
+            this.rights[i] = rights[index];
+            this.normalX[i] = normalX[index];
+            this.normalY[i] = normalY[index];
+        }
+        head = count;
+        tail = 0;
+        start = end = 0;
+    }
+
+    /**
+     * Returns the number of events within the batch.
+     *
+     * @return the event count
+     */
+    public int size() {
+        return (int) (end - start);
+    }
+
+    /**
+     * Returns the state of the contact of the event at the specified index.
+     *
+     * @param index the index within the batch
+     * @return the contact state
+     */
+    public ContactState getState(int index) {
+        return STATES[states[slot(index)]];
+    }
+
+    /**
+     * Returns the entity with the lower id of the event at the specified index.
+     *
+     * @param index the index within the batch
+     * @return the left scene entity
+     */
+    public SceneEntity2d getLeft(int index) {
+        return lefts[slot(index)];
+    }
+
+    /**
+     * Returns the entity with the higher id of the event at the specified index.
+     *
+     * @param index the index within the batch
+     * @return the right scene entity
+     */
+    public SceneEntity2d getRight(int index) {
+        return rights[slot(index)];
+    }
+
+    /**
+     * Returns the x component of the contact normal of the event at the specified index.
+     * <p>
+     * The normal always points from the left entity towards the right entity, whatever the colliders or body types of
+     * the entities.
+     *
+     * @param index the index within the batch
+     * @return the normal x component
+     */
+    public double getNormalX(int index) {
+        return normalX[slot(index)];
+    }
+
+    /**
+     * Returns the y component of the contact normal of the event at the specified index.
+     *
+     * @param index the index within the batch
+     * @return the normal y component
+     */
+    public double getNormalY(int index) {
+        return normalY[slot(index)];
+    }
+
+    /**
+     * Returns the number of events dropped so far because the buffer was full while a batch was being delivered.
+     *
+     * @return the dropped event count
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= end - start)
+            throw new IllegalArgumentException();
+        return (int) (start + index) & mask;
+    }
+}
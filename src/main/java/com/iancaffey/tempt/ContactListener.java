@@ -0,0 +1,21 @@
+package com.iancaffey.tempt;
+
+/**
+ * ContactListener
+ * <p>
+ * A listener which is handed the contact events of a scene in batches, once per update or step.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ * @see Scene#setContactListener(ContactListener)
+ */
+public interface ContactListener {
+    /**
+     * Invoked with the batch of contact events recorded since the previous batch.
+     * <p>
+     * The events are only valid until the listener returns.
+     *
+     * @param events the contact events
+     */
+    public void contacts(ContactEvents events);
+}
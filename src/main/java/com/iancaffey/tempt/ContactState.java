@@ -0,0 +1,25 @@
+package com.iancaffey.tempt;
+
+/**
+ * ContactState
+ * <p>
+ * A representation of the stage of a contact between two scene entities within a step.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ * @see ContactEvents
+ */
+public enum ContactState {
+    /**
+     * The entities came into contact during the step.
+     */
+    BEGIN,
+    /**
+     * The entities were already in contact before the step and remain in contact.
+     */
+    PERSIST,
+    /**
+     * The entities stopped being in contact during the step, or one of them left the scene.
+     */
+    END
+}
@@ -0,0 +1,143 @@
+package com.iancaffey.tempt;
+
+import java.util.function.LongSupplier;
+
+/**
+ * FixedTimestep
+ * <p>
+ * A utility class which advances a scene in fixed steps, independent of how often it is driven.
+ * <p>
+ * Each call to {@link #advance()} adds the time elapsed since the previous call to an accumulator and runs as many
+ * fixed steps as fit within it. At most {@link #getMaxSteps()} steps are run per call, and any time beyond that is
+ * dropped so a slow frame cannot snowball into ever longer frames. The time left in the accumulator is exposed as an
+ * interpolation factor for rendering between steps.
+ * <p>
+ * A timestep is advanced by a single thread, but {@link #getAlpha()} may be read from any thread, such as the thread
+ * rendering a {@link SceneView}.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class FixedTimestep {
+    public static final double DEFAULT_STEP = 1.0d / 120.0d;
+    public static final int DEFAULT_MAX_STEPS = 8;
+    private final Scene scene;
+    private final double step;
+    private final int maxSteps;
+    private final LongSupplier clock;
+    private long lastTime;
+    private boolean started;
+    private volatile double accumulator;
+
+    /**
+     * Constructs a new {@code FixedTimestep} which advances the specified scene at 120 steps per second.
+     *
+     * @param scene the scene
+     */
+    public FixedTimestep(Scene scene) {
+        this(scene, DEFAULT_STEP);
+    }
+
+    /**
+     * Constructs a new {@code FixedTimestep} which advances the specified scene in steps of specified duration.
+     *
+     * @param scene the scene
+     * @param step  the duration of each step in seconds
+     */
+    public FixedTimestep(Scene scene, double step) {
+        this(scene, step, DEFAULT_MAX_STEPS, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new {@code FixedTimestep} with specified scene, step duration, step limit, and clock.
+     *
+     * @param scene    the scene
+     * @param step     the duration of each step in seconds
+     * @param maxSteps the maximum number of steps run per call to {@link #advance()}
+     * @param clock    the clock, in nanoseconds
+     */
+    public FixedTimestep(Scene scene, double step, int maxSteps, LongSupplier clock) {
+        if (scene == null || clock == null || !(step > 0) || Double.isInfinite(step) || maxSteps <= 0)
+            throw new IllegalArgumentException();
+        this.scene = scene;
+        this.step = step;
+        this.maxSteps = maxSteps;
+        this.clock = clock;
+    }
+
+    /**
+     * Advances the scene by every whole step which has elapsed since the last call.
+     * <p>
+     * The first call only starts the clock.
+     *
+     * @return the number of steps run
+     */
+    public int advance() {
+        long time = clock.getAsLong();
+        if (!started) {
+            started = true;
+            lastTime = time;
+            return 0;
+        }
+        double accumulator = this.accumulator + Math.max(0, time - lastTime) / 1e9d;
+        lastTime = time;
+        int steps = 0;
+        while (accumulator >= step && steps < maxSteps) {
+            scene.step(step);
+            accumulator -= step;
+            steps++;
+        }
+        if (accumulator >= step)
+            accumulator %= step;
+        this.accumulator = accumulator;
+        return steps;
+    }
+
+    /**
+     * Resets the clock and drops any accumulated time.
+     */
+    public void reset() {
+        started = false;
+        accumulator = 0;
+    }
+
+    /**
+     * Returns the fraction of a step accumulated since the last step, used to interpolate between the previous and
+     * current entity positions.
+     * <p>
+     * The factor is only updated once {@link #advance()} has finished its steps, so it never exceeds {@code 1} while a
+     * step is in progress.
+     *
+     * @return the interpolation factor between {@code 0} and {@code 1}
+     */
+    public double getAlpha() {
+        return accumulator / step;
+    }
+
+    /**
+     * Returns the scene advanced by the timestep.
+     *
+     * @return the scene
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * Returns the duration of each step.
+     *
+     * @return the step duration in seconds
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the maximum number of steps run per call to {@link #advance()}.
+     *
+     * @return the step limit
+     */
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+}
@@ -0,0 +1,95 @@
+package com.iancaffey.tempt;
+
+/**
+ * RaycastHit
+ * <p>
+ * A representation of a scene entity struck by a raycast, along with where and at which distance along the ray it was
+ * struck.
+ * <p>
+ * Hits are mutable so a single hit can be reused across raycasts without allocating.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class RaycastHit {
+    private SceneEntity2d entity;
+    private double distance;
+    private double x;
+    private double y;
+    private double normalX;
+    private double normalY;
+
+    /**
+     * Updates the hit.
+     *
+     * @param entity   the entity struck
+     * @param distance the distance along the ray
+     * @param x        the x-coordinate of the hit point
+     * @param y        the y-coordinate of the hit point
+     * @param normalX  the x component of the surface normal
+     * @param normalY  the y component of the surface normal
+     */
+    void set(SceneEntity2d entity, double distance, double x, double y, double normalX, double normalY) {
+        this.entity = entity;
+        this.distance = distance;
+        this.x = x;
+        this.y = y;
+        this.normalX = normalX;
+        this.normalY = normalY;
+    }
+
+    /**
+     * Returns the entity struck by the ray.
+     *
+     * @return the scene entity
+     */
+    public SceneEntity2d getEntity() {
+        return entity;
+    }
+
+    /**
+     * Returns the distance along the ray at which the entity was struck, which is {@code 0} if the ray starts within
+     * the entity.
+     *
+     * @return the hit distance
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the x-coordinate of the point at which the entity was struck.
+     *
+     * @return the hit x-coordinate
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of the point at which the entity was struck.
+     *
+     * @return the hit y-coordinate
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Returns the x component of the unit normal of the surface struck, pointing back against the ray.
+     *
+     * @return the normal x component
+     */
+    public double getNormalX() {
+        return normalX;
+    }
+
+    /**
+     * Returns the y component of the unit normal of the surface struck, pointing back against the ray.
+     *
+     * @return the normal y component
+     */
+    public double getNormalY() {
+        return normalY;
+    }
+}
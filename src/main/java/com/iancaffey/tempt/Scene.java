@@ -1,13 +1,32 @@
 package com.iancaffey.tempt;
 
+import com.iancaffey.tempt.collision.Broadphase2d;
+import com.iancaffey.tempt.collision.DynamicTree2d;
+import com.iancaffey.tempt.collision.PairCache;
+import com.iancaffey.tempt.collision.PairFilter;
+import com.iancaffey.tempt.collision.ProximityCallback;
+import com.iancaffey.tempt.collision.RaycastCallback;
+import com.iancaffey.tempt.collision.SpatialHash2d;
+import com.iancaffey.tempt.collision.SweepAndPrune2d;
 import com.iancaffey.tempt.coordinate.Cartesian2d;
+import com.iancaffey.tempt.coordinate.Polar2d;
 import com.iancaffey.tempt.coordinate.Vector2d;
-import com.iancaffey.tempt.coordinate.VectorPair2d;
-import com.iancaffey.tempt.math.Dimension2d;
+import com.iancaffey.tempt.entity.BodyType;
+import com.iancaffey.tempt.entity.Collider;
+import com.iancaffey.tempt.entity.EntityStore2d;
 import com.iancaffey.tempt.shape.Rectangle;
+import com.iancaffey.tempt.shape.Shape2d;
 import com.iancaffey.tempt.util.Motion;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Scene
@@ -18,10 +37,144 @@ import java.util.*;
  * @since 1.0
  */
 public class Scene {
-    private final Set<SceneEntity2d> entities = new HashSet<>();
-    private final Map<SceneEntity2d, List<SceneEntity2d>> visited = new HashMap<>();
-    private final Map<SceneEntity2d, Long> updateTimes = new HashMap<>();
+    public static final int PARALLEL_CHUNK_SIZE = 1024;
+    public static final double DEFAULT_SLEEP_THRESHOLD = 0.01;
+    public static final int DEFAULT_SLEEP_STEPS = 60;
+    private static final int MAX_COLORS = 64;
+    private static final int MAX_IMPACT_ROUNDS = 8;
+    private static final int RECTANGLE_RECTANGLE = 0;
+    private static final int RECTANGLE_CIRCLE = 1;
+    private static final int CIRCLE_RECTANGLE = 2;
+    private static final int CIRCLE_CIRCLE = 3;
+    private static final long NEVER = Long.MIN_VALUE;
+    private final EntityStore2d<SceneEntity2d> entities = new EntityStore2d<>();
+    private final PairCache contacts = new PairCache();
+    private long[] updateTimes = new long[16];
+    private int[] proxies = new int[16];
+    private double[] previousX = new double[16];
+    private double[] previousY = new double[16];
+    private int[] pairs = new int[128];
+    private boolean[] hits = new boolean[64];
+    private int pairCount;
+    private int[] begins = new int[64];
+    private int[] slots = new int[64];
+    private int[] colors = new int[64];
+    private int[] order = new int[64];
+    private long[] colorMasks = new long[16];
+    private final int[] batches = new int[MAX_COLORS + 2];
+    private final int[] cursors = new int[MAX_COLORS + 1];
+    private double[][] results = new double[0][];
+    private int batchStart;
+    private final Chunk resolveBatch = (from, to) -> {
+        double[] result = results[from / PARALLEL_CHUNK_SIZE];
+        for (int i = batchStart + from; i < batchStart + to; i++) {
+            int contact = order[i];
+            int pair = begins[contact];
+            resolve(pairs[pair * 2], pairs[pair * 2 + 1], slots[contact], result);
+        }
+    };
+    private double[] impactTimes = new double[64];
+    private long[] events = new long[64];
+    private boolean[] impacted = new boolean[16];
+    private int[] impacts = new int[16];
+    private double[] impactClocks = new double[16];
+    private int[] impactRounds = new int[16];
+    private final double[] impactResult = new double[Motion.COLLISION_RESULT_LENGTH];
+    private int impactCount;
+    private BodyType[] bodyTypes = new BodyType[16];
+    private Collider[] colliders = new Collider[16];
+    private ChunkTask[] chunkTasks = new ChunkTask[0];
+    private RegionSearch[] searches = new RegionSearch[0];
+    private int searchDepth;
+    private SceneEntity2d[] collected;
+    private int collectedCount;
+    private final Consumer<SceneEntity2d> collect = entity -> {
+        if (collectedCount < collected.length)
+            collected[collectedCount++] = entity;
+    };
+    private final List<ChunkTask> chunkBatch = new ArrayList<>();
+    private int staticCount;
+    private double maxWidth;
+    private double maxHeight;
+    private double reachX;
+    private double reachY;
+    private boolean wrapping;
+    private final double[] seamShifts = new double[6];
+    private final Broadphase2d<SceneEntity2d> broadphase;
+    private final Broadphase2d<SceneEntity2d> statics = new DynamicTree2d<>();
     private final Rectangle bounds;
+    private int querying;
+    private final Consumer<SceneEntity2d> gather = entity -> {
+        int id = entity.getId();
+        if (id != querying && (entities.isSleeping(id) || id > querying))
+            addPair(querying, id);
+    };
+    private final Consumer<SceneEntity2d> regather = entity -> {
+        int id = entity.getId();
+        if (id != querying)
+            addPair(querying, id);
+    };
+    private double rayX;
+    private double rayY;
+    private double rayDirectionX;
+    private double rayDirectionY;
+    private double rayDistance;
+    private boolean rayFound;
+    private RaycastHit rayHit;
+    private Consumer<RaycastHit> rayConsumer;
+    private final RaycastHit reported = new RaycastHit();
+    private final RaycastCallback<SceneEntity2d> cast = (entity, distance) -> {
+        if (cast(entity.getId(), rayDistance, rayHit) == Double.POSITIVE_INFINITY)
+            return rayDistance;
+        rayFound = true;
+        if (rayConsumer != null)
+            rayConsumer.accept(rayHit);
+        else
+            rayDistance = rayHit.getDistance();
+        return rayDistance;
+    };
+    private double nearX;
+    private double nearY;
+    private double nearRadius;
+    private int nearLimit;
+    private int nearCount;
+    private int[] nearIds = new int[16];
+    private double[] nearDistances = new double[16];
+    private Consumer<SceneEntity2d> nearConsumer;
+    private final ProximityCallback<SceneEntity2d> closest = (entity, distanceSquared) -> {
+        int id = entity.getId();
+        double distance = getDistanceSquared(id, nearX, nearY);
+        double radius = nearRadius * nearRadius;
+        if (nearCount < nearLimit && distance <= radius)
+            offerNearest(id, distance);
+        else if (nearCount == nearLimit && distance < nearDistances[0])
+            replaceNearest(id, distance);
+        return nearCount < nearLimit ? radius : nearDistances[0];
+    };
+    private final ProximityCallback<SceneEntity2d> within = (entity, distanceSquared) -> {
+        if (isWithin(entity.getId(), nearX, nearY, nearRadius))
+            nearConsumer.accept(entity);
+        return nearRadius * nearRadius;
+    };
+    private final ContactEvents contactEvents = new ContactEvents();
+    private final PairCache.Visitor touched = slot -> {
+        int state = contacts.getState(slot);
+        if (state != PairCache.END)
+            record(state == PairCache.BEGIN ? ContactState.BEGIN : ContactState.PERSIST, slot);
+    };
+    private final PairCache.Visitor ended = slot -> record(ContactState.END, slot);
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private volatile boolean stepping;
+    private volatile SceneSnapshot snapshot;
+    private long sequence;
+    private volatile ExecutorService executor;
+    private volatile ContactListener contactListener;
+    private volatile Executor contactExecutor;
+    private volatile PairFilter<SceneEntity2d> pairFilter;
+    private volatile BoundaryPolicy boundaryPolicy;
+    private volatile double sleepThreshold = DEFAULT_SLEEP_THRESHOLD;
+    private volatile int sleepSteps = DEFAULT_SLEEP_STEPS;
+    private volatile boolean continuous;
 
     /**
      * Constructs a new {@code Scene} with specified bounds.
@@ -41,9 +194,23 @@ public class Scene {
      * @param bounds the scene bounds
      */
     public Scene(Rectangle bounds) {
-        if (bounds == null)
+        this(bounds, new SpatialHash2d<>());
+    }
+
+    /**
+     * Constructs a new {@code Scene} with specified bounds and broadphase.
+     * <p>
+     * The broadphase is used to find the candidate pairs of entities which are tested for collisions on each update.
+     * Static entities are kept out of the broadphase, in a {@link DynamicTree2d} of their own.
+     *
+     * @param bounds     the scene bounds
+     * @param broadphase the scene broadphase
+     */
+    public Scene(Rectangle bounds, Broadphase2d<SceneEntity2d> broadphase) {
+        if (bounds == null || broadphase == null)
             throw new IllegalArgumentException();
         this.bounds = bounds;
+        this.broadphase = broadphase;
     }
 
     /**
@@ -54,26 +221,214 @@ public class Scene {
     public void add(SceneEntity2d... entities) {
         if (entities == null)
             return;
-        Collections.addAll(this.entities, entities);
+        for (SceneEntity2d entity : entities)
+            add(entity);
     }
 
     /**
      * Adds the specified entity to the scene.
+     * <p>
+     * The entity is assigned an id which is used to index its scene state until it is removed. While the entity is
+     * within the scene, its motion and mass are kept in the columns of the scene entity store.
+     * <p>
+     * Static entities are kept in a separate index which is only updated when they are moved, and are never updated
+     * by the scene.
+     * <p>
+     * Entities added while the scene is being updated, such as from a pair filter or another thread, are deferred
+     * until the start of the next update or step.
      *
      * @param entity the scene entity
+     * @throws IllegalArgumentException if the entity belongs to another scene
+     * @see #spawn(SceneEntity2d)
      */
     public void add(SceneEntity2d entity) {
-        entities.add(entity);
+        if (entity == null)
+            return;
+        if (stepping) {
+            spawn(entity);
+            return;
+        }
+        synchronized (entities) {
+            if (stepping)
+                spawn(entity);
+            else
+                attach(entity);
+        }
+    }
+
+    /**
+     * Adds the specified entity to the scene immediately.
+     *
+     * @param entity the scene entity
+     */
+    private void attach(SceneEntity2d entity) {
+        if (entities.contains(entity))
+            return;
+        int id = entities.register(entity);
+        if (id >= proxies.length) {
+            int length = Math.max(proxies.length * 2, id + 1);
+            updateTimes = Arrays.copyOf(updateTimes, length);
+            proxies = Arrays.copyOf(proxies, length);
+            previousX = Arrays.copyOf(previousX, length);
+            previousY = Arrays.copyOf(previousY, length);
+            impacted = Arrays.copyOf(impacted, length);
+            impacts = Arrays.copyOf(impacts, length);
+            impactClocks = Arrays.copyOf(impactClocks, length);
+            impactRounds = Arrays.copyOf(impactRounds, length);
+            bodyTypes = Arrays.copyOf(bodyTypes, length);
+            colliders = Arrays.copyOf(colliders, length);
+        }
+        updateTimes[id] = NEVER;
+        previousX[id] = entities.getPositionX()[id];
+        previousY[id] = entities.getPositionY()[id];
+        bodyTypes[id] = entity.getBodyType();
+        colliders[id] = entity.getCollider();
+        maxWidth = Math.max(maxWidth, entities.getWidth()[id]);
+        maxHeight = Math.max(maxHeight, entities.getHeight()[id]);
+        if (bodyTypes[id] == BodyType.STATIC) {
+            proxies[id] = statics.add(entity, entities.getPositionX()[id], entities.getPositionY()[id], entities.getWidth()[id], entities.getHeight()[id]);
+            entities.sleep(id);
+            staticCount++;
+        } else {
+            proxies[id] = broadphase.add(entity, entities.getPositionX()[id], entities.getPositionY()[id], entities.getWidth()[id], entities.getHeight()[id]);
+        }
     }
 
     /**
      * Removes the specified entity from the scene.
+     * <p>
+     * Entities removed while the scene is being updated are deferred until the start of the next update or step.
      *
      * @param entity the scene entity
+     * @see #despawn(SceneEntity2d)
      */
     public void remove(SceneEntity2d entity) {
-        entities.remove(entity);
-        updateTimes.remove(entity);
+        if (entity == null)
+            return;
+        if (stepping) {
+            despawn(entity);
+            return;
+        }
+        synchronized (entities) {
+            if (stepping)
+                despawn(entity);
+            else
+                detach(entity);
+        }
+    }
+
+    /**
+     * Queues the specified entity to be added to the scene at the start of the next update or step.
+     * <p>
+     * Commands are queued without locking, so any number of threads may feed a running scene without waiting on the
+     * simulation. Queued commands are applied in the order they were queued. An entity which has joined another scene
+     * by the time its command is applied is skipped.
+     *
+     * @param entity the scene entity
+     * @throws IllegalArgumentException if the entity belongs to another scene
+     */
+    public void spawn(SceneEntity2d entity) {
+        if (entity == null)
+            return;
+        if (isForeign(entity))
+            throw new IllegalArgumentException();
+        commands.add(() -> {
+            if (!isForeign(entity))
+                attach(entity);
+        });
+    }
+
+    /**
+     * Returns whether the specified entity belongs to another scene.
+     *
+     * @param entity the scene entity
+     * @return {@code true} if the entity is registered with another scene
+     */
+    private boolean isForeign(SceneEntity2d entity) {
+        return entity.getId() >= 0 && !entities.contains(entity);
+    }
+
+    /**
+     * Queues the specified entity to be removed from the scene at the start of the next update or step.
+     *
+     * @param entity the scene entity
+     * @see #spawn(SceneEntity2d)
+     */
+    public void despawn(SceneEntity2d entity) {
+        if (entity != null)
+            commands.add(() -> detach(entity));
+    }
+
+    /**
+     * Queues a modification of the specified entity, applied at the start of the next update or step while no other
+     * thread is reading or writing the scene state.
+     * <p>
+     * The modification is skipped if the entity is no longer within the scene by then.
+     *
+     * @param entity       the scene entity
+     * @param modification the modification
+     * @see #spawn(SceneEntity2d)
+     */
+    public void modify(SceneEntity2d entity, Consumer<? super SceneEntity2d> modification) {
+        if (entity == null || modification == null)
+            return;
+        commands.add(() -> {
+            if (entities.contains(entity))
+                modification.accept(entity);
+        });
+    }
+
+    /**
+     * Applies every queued command.
+     */
+    private void drain() {
+        Runnable command;
+        while ((command = commands.poll()) != null)
+            command.run();
+    }
+
+    /**
+     * Ends the step of the contact cache, recording the contact events of the step if there is a contact listener.
+     */
+    private void record() {
+        if (contactListener == null) {
+            contacts.sweep(null);
+            return;
+        }
+        contacts.forEach(touched);
+        contacts.sweep(ended);
+    }
+
+    /**
+     * Records a contact event for the pair in the specified slot of the contact cache.
+     *
+     * @param state the contact state
+     * @param slot  the slot
+     */
+    private void record(ContactState state, int slot) {
+        contactEvents.add(state, entities.get(contacts.getLeft(slot)), entities.get(contacts.getRight(slot)),
+                contacts.getNormalX(slot), contacts.getNormalY(slot));
+    }
+
+    /**
+     * Removes the specified entity from the scene immediately.
+     *
+     * @param entity the scene entity
+     */
+    private void detach(SceneEntity2d entity) {
+        if (!entities.contains(entity))
+            return;
+        int id = entity.getId();
+        contacts.removeAll(id, contactListener == null ? null : ended);
+        if (bodyTypes[id] == BodyType.STATIC) {
+            statics.remove(proxies[id]);
+            staticCount--;
+        } else {
+            broadphase.remove(proxies[id]);
+        }
+        bodyTypes[id] = null;
+        colliders[id] = null;
+        entities.unregister(entity);
     }
 
     /**
@@ -87,82 +442,1951 @@ public class Scene {
 
     /**
      * Clears the scene of all entities.
+     * <p>
+     * Clearing the scene while it is being updated is deferred until the start of the next update or step.
      */
     public void clear() {
+        if (stepping) {
+            commands.add(this::clear);
+            return;
+        }
+        synchronized (entities) {
+            if (stepping)
+                commands.add(this::clear);
+            else
+                purge();
+        }
+    }
+
+    /**
+     * Clears the scene of all entities immediately.
+     */
+    private void purge() {
+        if (contactListener != null)
+            contacts.forEach(ended);
         entities.clear();
-        updateTimes.clear();
+        contacts.clear();
+        broadphase.clear();
+        statics.clear();
+        staticCount = 0;
     }
 
     /**
      * Updates the scene by checking for all collisions between entities and updating their new positions accordingly.
+     * <p>
+     * Only the pairs of entities reported by the scene broadphase are tested for collisions. A collision is only resolved
+     * when a pair first comes into contact, and the pair is tracked until the entities no longer intersect.
+     * <p>
+     * Commands queued through {@link #spawn(SceneEntity2d)}, {@link #despawn(SceneEntity2d)}, and
+     * {@link #modify(SceneEntity2d, Consumer)} are applied before the update begins.
      */
     public void update() {
         synchronized (entities) {
-            for (SceneEntity2d entity : entities) {
-                List<SceneEntity2d> entityVisits = visited.get(entity);
-                Rectangle rectangle = new Rectangle(entity.getPosition(), entity.getSize());
-                for (SceneEntity2d opposition : entities) {
-                    Cartesian2d oppositionPosition = opposition.getPosition();
-                    Dimension2d oppositionSize = opposition.getSize();
-                    if ((entityVisits != null && entityVisits.contains(opposition)) || opposition.equals(entity)) {
-                        if (entityVisits != null && !rectangle.intersects(oppositionPosition, oppositionSize))
-                            entityVisits.remove(opposition);
-                        continue;
-                    }
-                    List<SceneEntity2d> oppositeVisits = visited.get(opposition);
-                    if (oppositeVisits != null && oppositeVisits.contains(entity))
-                        continue;
-                    if (rectangle.intersects(oppositionPosition, oppositionSize)) {
-                        VectorPair2d pair = Motion.getCollision(entity, opposition);
-                        entity.setVelocity(pair.getLeft());
-                        opposition.setVelocity(pair.getRight());
-                        if (entityVisits == null) {
-                            entityVisits = new ArrayList<>();
-                            visited.put(entity, entityVisits);
-                        }
-                        entityVisits.add(opposition);
-                    } else if (entityVisits != null) {
-                        entityVisits.remove(opposition);
+            drain();
+            stepping = true;
+            try {
+                wrapping = isWrapping();
+                refresh(0);
+                collide(0);
+                record();
+                long time = System.currentTimeMillis();
+                forEachChunk(entities.getActiveCount(), (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        int id = entities.getActiveId(i);
+                        long update = updateTimes[id];
+                        if (update != NEVER)
+                            integrate(id, (time - update) / 1000.0d);
+                        updateTimes[id] = time;
                     }
-                }
+                });
+                despawn();
+                refresh(0);
+                rest();
+            } finally {
+                stepping = false;
             }
-            long time = System.currentTimeMillis();
-            for (SceneEntity2d entity : entities) {
-                Long update = updateTimes.get(entity);
-                if (update != null) {
-                    double t = (time - update) / 1000.0d;
-                    entity.setPosition(Motion.getPosition(t, entity));
-                    Vector2d velocity = entity.getVelocity();
-                    if (velocity != null) {
-                        Vector2d acceleration = entity.getAcceleration();
-                        if (acceleration != null)
-                            entity.setVelocity(velocity.getX() + t * acceleration.getX(), velocity.getY() + t * acceleration.getY());
+            if (snapshot != null)
+                publish();
+            contactEvents.dispatch(contactListener, contactExecutor);
+        }
+    }
+
+    /**
+     * Advances the scene by a single step of fixed duration.
+     * <p>
+     * Every entity is advanced by the same amount of time, independent of the wall clock, which keeps the simulation
+     * deterministic. The positions before the step are kept so that rendering can interpolate between steps.
+     * <p>
+     * In continuous mode, pairs of entities which would pass through each other during the step are advanced to their
+     * time of impact and resolved there before moving for the rest of the step.
+     * <p>
+     * Queued commands are applied before the step begins, as in {@link #update()}.
+     *
+     * @param time the duration of the step in seconds
+     * @see FixedTimestep
+     * @see #interpolate(SceneEntity2d, double)
+     */
+    public void step(double time) {
+        if (!(time > 0) || Double.isInfinite(time))
+            throw new IllegalArgumentException();
+        synchronized (entities) {
+            drain();
+            stepping = true;
+            try {
+                boolean continuous = isContinuous();
+                wrapping = isWrapping();
+                refresh(continuous ? time : 0);
+                collide(continuous ? time : 0);
+                if (continuous)
+                    impact(time);
+                record();
+                forEachChunk(entities.getActiveCount(), (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        int id = entities.getActiveId(i);
+                        if (!impacted[id])
+                            integrate(id, time);
                     }
+                });
+                for (int i = 0; i < impactCount; i++) {
+                    int id = impacts[i];
+                    impacted[id] = false;
+                    impactClocks[id] = 0;
+                    impactRounds[id] = 0;
                 }
-                updateTimes.put(entity, time);
+                impactCount = 0;
+                despawn();
+                refresh(0);
+                rest();
+            } finally {
+                stepping = false;
             }
+            if (snapshot != null)
+                publish();
+            contactEvents.dispatch(contactListener, contactExecutor);
         }
     }
 
     /**
-     * Returns whether the scene contains the specified entity.
+     * Returns the latest snapshot of the scene.
+     * <p>
+     * Snapshots are immutable, so a reader such as a renderer can take a consistent frame of the scene from another
+     * thread without locking and without blocking updates. The first call builds a snapshot while holding the scene lock.
+     * From then on, the scene publishes a new snapshot at the end of every update and step, and this method only reads
+     * the latest one. Entities added or removed between steps are not reflected until the next step.
+     *
+     * @return the latest scene snapshot
+     */
+    public SceneSnapshot getSnapshot() {
+        SceneSnapshot snapshot = this.snapshot;
+        if (snapshot != null)
+            return snapshot;
+        synchronized (entities) {
+            if (this.snapshot == null)
+                publish();
+            return this.snapshot;
+        }
+    }
+
+    /**
+     * Copies the position and size of every entity into a new snapshot and publishes it.
+     */
+    private void publish() {
+        int size = entities.size();
+        SceneEntity2d[] frame = new SceneEntity2d[size];
+        double[] x = new double[size];
+        double[] y = new double[size];
+        double[] earlierX = new double[size];
+        double[] earlierY = new double[size];
+        double[] width = new double[size];
+        double[] height = new double[size];
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] widths = entities.getWidth();
+        double[] heights = entities.getHeight();
+        for (int i = 0; i < size; i++) {
+            int id = entities.getId(i);
+            frame[i] = entities.get(id);
+            x[i] = positionX[id];
+            y[i] = positionY[id];
+            earlierX[i] = previousX[id];
+            earlierY[i] = previousY[id];
+            width[i] = widths[id];
+            height[i] = heights[id];
+        }
+        snapshot = new SceneSnapshot(sequence++, frame, x, y, earlierX, earlierY, width, height);
+    }
+
+    /**
+     * Returns the position of the specified entity interpolated between its position before the last step and its
+     * current position.
      *
      * @param entity the scene entity
-     * @return {@code true} if the scene contains the entity
+     * @param alpha  the interpolation factor, from {@code 0} for the previous position to {@code 1} for the current
+     *               position
+     * @return the interpolated position, or {@code null} if the entity is not within the scene
      */
-    public boolean contains(SceneEntity2d entity) {
-        if (entity == null)
+    public Cartesian2d interpolate(SceneEntity2d entity, double alpha) {
+        synchronized (entities) {
+            if (!entities.contains(entity))
+                return null;
+            int id = entity.getId();
+            double x = entities.getPositionX()[id];
+            double y = entities.getPositionY()[id];
+            return new Cartesian2d(previousX[id] + (x - previousX[id]) * alpha, previousY[id] + (y - previousY[id]) * alpha);
+        }
+    }
+
+    /**
+     * Resolves the collisions between every pair of entities which has come into contact.
+     * <p>
+     * Candidate pairs are buffered from the broadphase and tested for intersection, in parallel when the scene has an
+     * executor. The pairs which have just come into contact are then resolved by {@link #solve(int)}.
+     *
+     * @param time the duration over which the bounds of the entities have been swept in seconds
+     */
+    private void collide(double time) {
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] velocityX = entities.getVelocityX();
+        double[] velocityY = entities.getVelocityY();
+        double[] width = entities.getWidth();
+        double[] height = entities.getHeight();
+        pairCount = 0;
+        boolean direct = entities.getActiveCount() * 2 < entities.size() - staticCount;
+        if (!direct) {
+            broadphase.findPairs((entity, opposition) -> {
+                int a = entity.getId();
+                int b = opposition.getId();
+                if (!entities.isSleeping(a) || !entities.isSleeping(b))
+                    addPair(a, b);
+            });
+        }
+        if (direct || wrapping || staticCount > 0) {
+            for (int i = 0; i < entities.getActiveCount(); i++) {
+                int a = entities.getActiveId(i);
+                double dx = time == 0 ? 0 : velocityX[a] * time;
+                double dy = time == 0 ? 0 : velocityY[a] * time;
+                double x = Math.min(positionX[a], positionX[a] + dx);
+                double y = Math.min(positionY[a], positionY[a] + dy);
+                double w = width[a] + Math.abs(dx);
+                double h = height[a] + Math.abs(dy);
+                querying = a;
+                search(broadphase, x, y, w, h, direct, gather);
+                if (staticCount > 0 && bodyTypes[a] == BodyType.DYNAMIC)
+                    search(statics, x, y, w, h, true, regather);
+            }
+        }
+        if (hits.length < pairCount)
+            hits = new boolean[Math.max(hits.length * 2, pairCount)];
+        Rectangle bounds = getBounds();
+        forEachChunk(pairCount, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int a = pairs[i * 2];
+                int b = pairs[i * 2 + 1];
+                double offsetX = wrapping ? getSeamOffset(positionX[a], width[a], positionX[b], width[b], bounds.getWidth()) : 0;
+                double offsetY = wrapping ? getSeamOffset(positionY[a], height[a], positionY[b], height[b], bounds.getHeight()) : 0;
+                hits[i] = overlaps(a, b, offsetX, offsetY);
+            }
+        });
+        int count = 0;
+        for (int i = 0; i < pairCount; i++) {
+            if (!hits[i])
+                continue;
+            int slot = contacts.touch(pairs[i * 2], pairs[i * 2 + 1]);
+            if (contacts.getState(slot) != PairCache.BEGIN)
+                continue;
+            wake(pairs[i * 2]);
+            wake(pairs[i * 2 + 1]);
+            if (count == begins.length) {
+                begins = Arrays.copyOf(begins, count * 2);
+                slots = Arrays.copyOf(slots, count * 2);
+            }
+            begins[count] = i;
+            slots[count] = slot;
+            count++;
+        }
+        solve(count);
+    }
+
+    /**
+     * Resolves the collisions of the contacts which have just begun.
+     * <p>
+     * The contacts are greedily colored in the order they were found, so that no two contacts of the same color share
+     * an entity whose velocity they change. Each color is then solved as a batch, in parallel when the scene has an
+     * executor, and batches are solved in color order. Immovable entities do not take part in the coloring since their
+     * velocity is never changed. Contacts beyond the last color are solved in order on the updating thread. The outcome
+     * only depends on the order of the contacts, not on the number of workers. Each chunk resolves into its own scratch
+     * array, and the batch offsets and scratch arrays are kept across steps.
+     *
+     * @param count the number of contacts which have begun
+     */
+    private void solve(int count) {
+        double[] mass = entities.getMass();
+        if (colorMasks.length < entities.getCapacity())
+            colorMasks = new long[Math.max(colorMasks.length * 2, entities.getCapacity())];
+        if (colors.length < count) {
+            colors = new int[Math.max(colors.length * 2, count)];
+            order = new int[colors.length];
+        }
+        int chunks = Math.max(1, (count + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE);
+        if (results.length < chunks) {
+            int length = results.length;
+            results = Arrays.copyOf(results, Math.max(length * 2, chunks));
+            for (int i = length; i < results.length; i++)
+                results[i] = new double[Motion.COLLISION_RESULT_LENGTH];
+        }
+        Arrays.fill(batches, 0);
+        for (int i = 0; i < count; i++) {
+            int pair = begins[i];
+            int a = pairs[pair * 2];
+            int b = pairs[pair * 2 + 1];
+            boolean claimsA = claims(mass, a, b);
+            boolean claimsB = claims(mass, b, a);
+            long used = (claimsA ? colorMasks[a] : 0) | (claimsB ? colorMasks[b] : 0);
+            int color = Long.numberOfTrailingZeros(~used);
+            if (color < MAX_COLORS) {
+                if (claimsA)
+                    colorMasks[a] |= 1L << color;
+                if (claimsB)
+                    colorMasks[b] |= 1L << color;
+            }
+            colors[i] = color;
+            batches[color + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            int pair = begins[i];
+            colorMasks[pairs[pair * 2]] = 0;
+            colorMasks[pairs[pair * 2 + 1]] = 0;
+        }
+        for (int color = 0; color <= MAX_COLORS; color++)
+            batches[color + 1] += batches[color];
+        System.arraycopy(batches, 0, cursors, 0, cursors.length);
+        for (int i = 0; i < count; i++)
+            order[cursors[colors[i]]++] = i;
+        for (int color = 0; color <= MAX_COLORS; color++) {
+            int start = batches[color];
+            int end = batches[color + 1];
+            if (start == end)
+                continue;
+            batchStart = start;
+            if (color == MAX_COLORS)
+                resolveBatch.run(0, end - start);
+            else
+                forEachChunk(end - start, resolveBatch);
+        }
+    }
+
+    /**
+     * Resolves the collision of a single contact which has just begun.
+     * <p>
+     * A contact between an immovable and a movable entity is resolved relative to the motion of the immovable entity,
+     * so moving kinematic entities push the entities they run into.
+     *
+     * @param a      the first entity id
+     * @param b      the second entity id
+     * @param slot   the slot of the contact within the contact cache
+     * @param result the scratch array receiving the collision results
+     */
+    private void resolve(int a, int b, int slot, double[] result) {
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] velocityX = entities.getVelocityX();
+        double[] velocityY = entities.getVelocityY();
+        double[] width = entities.getWidth();
+        double[] height = entities.getHeight();
+        double[] mass = entities.getMass();
+        boolean immovableA = isImmovable(mass, a);
+        boolean immovableB = isImmovable(mass, b);
+        double frameX = 0;
+        double frameY = 0;
+        if (immovableA != immovableB) {
+            frameX = immovableA ? velocityX[a] : velocityX[b];
+            frameY = immovableA ? velocityY[a] : velocityY[b];
+        }
+        double offsetX = 0;
+        double offsetY = 0;
+        if (wrapping) {
+            Rectangle bounds = getBounds();
+            offsetX = getSeamOffset(positionX[a], width[a], positionX[b], width[b], bounds.getWidth());
+            offsetY = getSeamOffset(positionY[a], height[a], positionY[b], height[b], bounds.getHeight());
+        }
+        double massA = immovableA ? Double.MAX_VALUE : mass[a];
+        double massB = immovableB ? Double.MAX_VALUE : mass[b];
+        double centerAX = positionX[a] + width[a] / 2.0d;
+        double centerAY = positionY[a] + height[a] / 2.0d;
+        double centerBX = positionX[b] + offsetX + width[b] / 2.0d;
+        double centerBY = positionY[b] + offsetY + height[b] / 2.0d;
+        int type = getPairType(a, b);
+        switch (type) {
+            case CIRCLE_CIRCLE:
+                getNormal(centerBX - centerAX, centerBY - centerAY, result);
+                break;
+            case CIRCLE_RECTANGLE:
+                getNormal(centerAX, centerAY, positionX[b] + offsetX, positionY[b] + offsetY, width[b], height[b], result);
+                break;
+            case RECTANGLE_CIRCLE:
+                getNormal(centerBX, centerBY, positionX[a], positionY[a], width[a], height[a], result);
+                result[4] = -result[4];
+                result[5] = -result[5];
+                break;
+            default:
+                Motion.getCollision(positionX[a], positionY[a], width[a], height[a], velocityX[a] - frameX, velocityY[a] - frameY, massA,
+                        positionX[b] + offsetX, positionY[b] + offsetY, width[b], height[b], velocityX[b] - frameX, velocityY[b] - frameY, massB, result);
+        }
+        if (type != RECTANGLE_RECTANGLE)
+            Motion.getCollision(velocityX[a] - frameX, velocityY[a] - frameY, massA, velocityX[b] - frameX, velocityY[b] - frameY, massB,
+                    result[4], result[5], result);
+        result[0] += frameX;
+        result[1] += frameY;
+        result[2] += frameX;
+        result[3] += frameY;
+        if (claims(mass, a, b)) {
+            velocityX[a] = result[0];
+            velocityY[a] = result[1];
+        }
+        if (claims(mass, b, a)) {
+            velocityX[b] = result[2];
+            velocityY[b] = result[3];
+        }
+        if (a < b)
+            contacts.setNormal(slot, result[4], result[5]);
+        else
+            contacts.setNormal(slot, -result[4], -result[5]);
+    }
+
+    /**
+     * Returns whether resolving a contact changes the velocity of the specified entity, which is the case unless the
+     * entity is immovable and the other entity is not.
+     */
+    private boolean claims(double[] mass, int entity, int other) {
+        return !isImmovable(mass, entity) || isImmovable(mass, other);
+    }
+
+    /**
+     * Returns whether the specified entity is unaffected by collisions, which is the case for static and kinematic
+     * entities and for dynamic entities of infinite mass.
+     */
+    private boolean isImmovable(double[] mass, int id) {
+        return bodyTypes[id] != BodyType.DYNAMIC || mass[id] == Double.MAX_VALUE;
+    }
+
+    /**
+     * Returns the type of the pair of the specified entities, which selects the narrowphase test and collision normal of
+     * the pair by the colliders of its entities.
+     *
+     * @param a the first entity id
+     * @param b the second entity id
+     * @return one of {@code RECTANGLE_RECTANGLE}, {@code RECTANGLE_CIRCLE}, {@code CIRCLE_RECTANGLE}, or
+     * {@code CIRCLE_CIRCLE}
+     */
+    private int getPairType(int a, int b) {
+        return colliders[a].ordinal() * 2 + colliders[b].ordinal();
+    }
+
+    /**
+     * Returns whether the colliders of the specified entities overlap, with the second entity displaced by the specified
+     * offset.
+     * <p>
+     * Circles are tested by comparing squared distances, so no pair type takes a square root.
+     *
+     * @param a       the first entity id
+     * @param b       the second entity id
+     * @param offsetX the x offset of the second entity
+     * @param offsetY the y offset of the second entity
+     * @return {@code true} if the colliders overlap
+     */
+    private boolean overlaps(int a, int b, double offsetX, double offsetY) {
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] width = entities.getWidth();
+        double[] height = entities.getHeight();
+        double x1 = positionX[a];
+        double y1 = positionY[a];
+        double width1 = width[a];
+        double height1 = height[a];
+        double x2 = positionX[b] + offsetX;
+        double y2 = positionY[b] + offsetY;
+        double width2 = width[b];
+        double height2 = height[b];
+        if (width1 <= 0 || height1 <= 0 || width2 <= 0 || height2 <= 0)
             return false;
+        switch (getPairType(a, b)) {
+            case CIRCLE_CIRCLE:
+                return Motion.intersectsCircle(x1 + width1 / 2.0d, y1 + height1 / 2.0d, Math.min(width1, height1) / 2.0d,
+                        x2 + width2 / 2.0d, y2 + height2 / 2.0d, Math.min(width2, height2) / 2.0d);
+            case CIRCLE_RECTANGLE:
+                return Motion.intersectsCircle(x1 + width1 / 2.0d, y1 + height1 / 2.0d, Math.min(width1, height1) / 2.0d,
+                        x2, y2, width2, height2);
+            case RECTANGLE_CIRCLE:
+                return Motion.intersectsCircle(x2 + width2 / 2.0d, y2 + height2 / 2.0d, Math.min(width2, height2) / 2.0d,
+                        x1, y1, width1, height1);
+            default:
+                return intersects(x1, y1, width1, height1, x2, y2, width2, height2);
+        }
+    }
+
+    /**
+     * Writes the unit normal along the specified center delta of two circles into the normal slots of the result array,
+     * falling back to the x axis when the centers coincide.
+     *
+     * @param dx     the x component of the delta from the first center to the second
+     * @param dy     the y component of the delta from the first center to the second
+     * @param result the collision result array
+     */
+    private static void getNormal(double dx, double dy, double[] result) {
+        double length = Math.sqrt(dx * dx + dy * dy);
+        result[4] = length == 0 ? 1 : dx / length;
+        result[5] = length == 0 ? 0 : dy / length;
+    }
+
+    /**
+     * Writes the unit normal pointing from the center of a circle towards a rectangle into the normal slots of the result
+     * array.
+     * <p>
+     * The normal points towards the closest point of the rectangle, or along the axis of least penetration when the
+     * center lies within the rectangle.
+     *
+     * @param x      the circle center x-coordinate
+     * @param y      the circle center y-coordinate
+     * @param left   the rectangle x-coordinate
+     * @param top    the rectangle y-coordinate
+     * @param width  the rectangle width
+     * @param height the rectangle height
+     * @param result the collision result array
+     */
+    private static void getNormal(double x, double y, double left, double top, double width, double height, double[] result) {
+        double dx = Math.max(left, Math.min(x, left + width)) - x;
+        double dy = Math.max(top, Math.min(y, top + height)) - y;
+        if (dx != 0 || dy != 0) {
+            getNormal(dx, dy, result);
+            return;
+        }
+        double toLeft = x - left;
+        double toRight = left + width - x;
+        double toTop = y - top;
+        double toBottom = top + height - y;
+        double nearest = Math.min(Math.min(toLeft, toRight), Math.min(toTop, toBottom));
+        result[4] = nearest == toLeft ? 1 : nearest == toRight ? -1 : 0;
+        result[5] = result[4] != 0 ? 0 : nearest == toTop ? 1 : -1;
+    }
+
+    /**
+     * Wakes the entity with the specified id, unless it is static.
+     *
+     * @param id the entity id
+     */
+    private void wake(int id) {
+        if (bodyTypes[id] != BodyType.STATIC)
+            entities.wake(id);
+    }
+
+    /**
+     * Resolves the pairs of entities which come into contact during the step, in order of their time of impact.
+     * <p>
+     * Impacts are found among the candidate pairs whose swept bounds overlap. In each round, an entity takes part in at
+     * most its earliest impact: both entities are advanced to the time of impact and their collision is resolved. The
+     * remaining motion of each impacted entity is then queried for new candidates, and later rounds only revisit pairs
+     * with an entity whose motion changed. Immovable entities never change motion, so they may take part in any number
+     * of impacts per round and are only advanced once the step ends. Pairs already in contact during the step are left
+     * to the discrete resolution, and impacted entities are advanced for the remainder of the step once no impacts
+     * remain.
+     *
+     * @param time the duration of the step in seconds
+     */
+    private void impact(double time) {
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] velocityX = entities.getVelocityX();
+        double[] velocityY = entities.getVelocityY();
+        double[] width = entities.getWidth();
+        double[] height = entities.getHeight();
+        double[] mass = entities.getMass();
         Rectangle bounds = getBounds();
-        return bounds != null && bounds.contains(entity.getMotion().getPosition());
+        for (int round = 0; round < MAX_IMPACT_ROUNDS; round++) {
+            if (impactTimes.length < pairCount) {
+                impactTimes = new double[Math.max(impactTimes.length * 2, pairCount)];
+                events = new long[impactTimes.length];
+            }
+            int count = 0;
+            for (int i = 0; i < pairCount; i++) {
+                int a = pairs[i * 2];
+                int b = pairs[i * 2 + 1];
+                if (round > 0 && impactRounds[a] != round && impactRounds[b] != round)
+                    continue;
+                double start = Math.max(impactClocks[a], impactClocks[b]);
+                double ta = start - impactClocks[a];
+                double tb = start - impactClocks[b];
+                double offsetX = wrapping ? getSeamOffset(positionX[a], width[a], positionX[b], width[b], bounds.getWidth()) : 0;
+                double offsetY = wrapping ? getSeamOffset(positionY[a], height[a], positionY[b], height[b], bounds.getHeight()) : 0;
+                double impact = Motion.getTimeOfImpact(positionX[a] + velocityX[a] * ta, positionY[a] + velocityY[a] * ta, width[a], height[a], velocityX[a], velocityY[a],
+                        positionX[b] + offsetX + velocityX[b] * tb, positionY[b] + offsetY + velocityY[b] * tb, width[b], height[b], velocityX[b], velocityY[b], time - start);
+                if (impact > time - start)
+                    continue;
+                int slot = contacts.find(a, b);
+                if (impact == 0 && slot != PairCache.ABSENT && contacts.getState(slot) != PairCache.END)
+                    continue;
+                impactTimes[i] = start + impact;
+                events[count++] = ((long) Float.floatToIntBits((float) (start + impact)) << 32) | i;
+            }
+            if (count == 0)
+                break;
+            Arrays.sort(events, 0, count);
+            for (int i = 0; i < count; i++) {
+                int pair = (int) events[i];
+                int a = pairs[pair * 2];
+                int b = pairs[pair * 2 + 1];
+                boolean claimsA = claims(mass, a, b);
+                boolean claimsB = claims(mass, b, a);
+                if (claimsA && impactRounds[a] == round + 1 || claimsB && impactRounds[b] == round + 1)
+                    continue;
+                double impact = impactTimes[pair];
+                enter(a, claimsA ? impact : impactClocks[a], claimsA ? round + 1 : impactRounds[a]);
+                enter(b, claimsB ? impact : impactClocks[b], claimsB ? round + 1 : impactRounds[b]);
+                resolve(a, b, contacts.touch(a, b), impactResult);
+            }
+            for (int i = 0; i < impactCount; i++) {
+                int id = impacts[i];
+                if (impactRounds[id] != round + 1)
+                    continue;
+                double dx = velocityX[id] * (time - impactClocks[id]);
+                double dy = velocityY[id] * (time - impactClocks[id]);
+                double x = Math.min(positionX[id], positionX[id] + dx);
+                double y = Math.min(positionY[id], positionY[id] + dy);
+                double w = width[id] + Math.abs(dx);
+                double h = height[id] + Math.abs(dy);
+                querying = id;
+                search(broadphase, x, y, w, h, true, regather);
+                if (staticCount > 0 && bodyTypes[id] == BodyType.DYNAMIC)
+                    search(statics, x, y, w, h, true, regather);
+            }
+        }
+        for (int i = 0; i < impactCount; i++) {
+            int id = impacts[i];
+            advance(id, time - impactClocks[id]);
+            confine(id);
+        }
     }
 
     /**
-     * Returns the scene bounds.
+     * Advances a single entity to the specified time of impact, marking it as impacted for the rest of the step.
      *
-     * @return the scene bounds
+     * @param id     the entity id
+     * @param impact the time of impact in seconds
+     * @param round  the last round in which the motion of the entity changed
      */
-    public Rectangle getBounds() {
-        return bounds;
+    private void enter(int id, double impact, int round) {
+        if (bodyTypes[id] == BodyType.STATIC)
+            return;
+        if (!impacted[id]) {
+            entities.wake(id);
+            impacted[id] = true;
+            impacts[impactCount++] = id;
+            previousX[id] = entities.getPositionX()[id];
+            previousY[id] = entities.getPositionY()[id];
+        }
+        advance(id, impact - impactClocks[id]);
+        impactClocks[id] = impact;
+        impactRounds[id] = round;
+    }
+
+    /**
+     * Runs the specified work over the range {@code [0, count)}, split into chunks which are run on the scene executor
+     * when one is set.
+     * <p>
+     * The tasks handed to the executor are pooled across calls, so only the executor allocates per chunk.
+     *
+     * @param count the number of items
+     * @param chunk the work for a single chunk
+     */
+    private void forEachChunk(int count, Chunk chunk) {
+        ExecutorService executor = getExecutor();
+        if (executor == null || count <= PARALLEL_CHUNK_SIZE) {
+            chunk.run(0, count);
+            return;
+        }
+        int chunks = (count + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        if (chunkTasks.length < chunks) {
+            int length = chunkTasks.length;
+            chunkTasks = Arrays.copyOf(chunkTasks, Math.max(length * 2, chunks));
+            for (int i = length; i < chunkTasks.length; i++)
+                chunkTasks[i] = new ChunkTask();
+        }
+        chunkBatch.clear();
+        for (int i = 0; i < chunks; i++) {
+            ChunkTask task = chunkTasks[i];
+            task.chunk = chunk;
+            task.from = i * PARALLEL_CHUNK_SIZE;
+            task.to = Math.min(count, task.from + PARALLEL_CHUNK_SIZE);
+            chunkBatch.add(task);
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(chunkBatch))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (int i = 0; i < chunks; i++)
+                chunkTasks[i].chunk = null;
+        }
+    }
+
+    /**
+     * Advances the motion of a single entity, keeping its previous position.
+     *
+     * @param id   the entity id
+     * @param time the elapsed time in seconds
+     */
+    private void integrate(int id, double time) {
+        previousX[id] = entities.getPositionX()[id];
+        previousY[id] = entities.getPositionY()[id];
+        advance(id, time);
+        confine(id);
+    }
+
+    /**
+     * Advances the motion of a single entity.
+     *
+     * @param id   the entity id
+     * @param time the elapsed time in seconds
+     */
+    private void advance(int id, double time) {
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] velocityX = entities.getVelocityX();
+        double[] velocityY = entities.getVelocityY();
+        double[] accelerationX = entities.getAccelerationX();
+        double[] accelerationY = entities.getAccelerationY();
+        double halfTimeSquared = 0.5d * time * time;
+        positionX[id] += velocityX[id] * time + accelerationX[id] * halfTimeSquared;
+        positionY[id] += velocityY[id] * time + accelerationY[id] * halfTimeSquared;
+        velocityX[id] += accelerationX[id] * time;
+        velocityY[id] += accelerationY[id] * time;
+    }
+
+    /**
+     * Moves a single entity back within the scene bounds according to the boundary policy.
+     * <p>
+     * Entities are despawned separately by {@link #despawn()}, since removing an entity is not safe during a parallel
+     * update.
+     *
+     * @param id the entity id
+     */
+    private void confine(int id) {
+        BoundaryPolicy policy = getBoundaryPolicy();
+        if (policy == null || policy == BoundaryPolicy.DESPAWN)
+            return;
+        Rectangle bounds = getBounds();
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] velocityX = entities.getVelocityX();
+        double[] velocityY = entities.getVelocityY();
+        double[] width = entities.getWidth();
+        double[] height = entities.getHeight();
+        if (policy == BoundaryPolicy.WRAP) {
+            double shiftX = wrap(positionX[id], bounds.getX(), bounds.getWidth()) - positionX[id];
+            double shiftY = wrap(positionY[id], bounds.getY(), bounds.getHeight()) - positionY[id];
+            positionX[id] += shiftX;
+            positionY[id] += shiftY;
+            previousX[id] += shiftX;
+            previousY[id] += shiftY;
+            return;
+        }
+        boolean reflect = policy == BoundaryPolicy.REFLECT;
+        double right = bounds.getX() + bounds.getWidth() - width[id];
+        double bottom = bounds.getY() + bounds.getHeight() - height[id];
+        if (positionX[id] > right) {
+            positionX[id] = right;
+            velocityX[id] = reflect ? -Math.abs(velocityX[id]) : Math.min(0, velocityX[id]);
+        }
+        if (positionX[id] < bounds.getX()) {
+            positionX[id] = bounds.getX();
+            velocityX[id] = reflect ? Math.abs(velocityX[id]) : Math.max(0, velocityX[id]);
+        }
+        if (positionY[id] > bottom) {
+            positionY[id] = bottom;
+            velocityY[id] = reflect ? -Math.abs(velocityY[id]) : Math.min(0, velocityY[id]);
+        }
+        if (positionY[id] < bounds.getY()) {
+            positionY[id] = bounds.getY();
+            velocityY[id] = reflect ? Math.abs(velocityY[id]) : Math.max(0, velocityY[id]);
+        }
+    }
+
+    /**
+     * Wraps a coordinate into the range {@code [origin, origin + length)}.
+     *
+     * @param value  the coordinate
+     * @param origin the start of the range
+     * @param length the length of the range
+     * @return the wrapped coordinate
+     */
+    private static double wrap(double value, double origin, double length) {
+        if (!(length > 0))
+            return value;
+        double offset = value - origin;
+        if (offset >= 0 && offset < length)
+            return value;
+        offset -= Math.floor(offset / length) * length;
+        return origin + (offset < length ? offset : 0);
+    }
+
+    /**
+     * Removes every active entity which has left the scene bounds when the boundary policy despawns entities.
+     */
+    private void despawn() {
+        if (getBoundaryPolicy() != BoundaryPolicy.DESPAWN)
+            return;
+        Rectangle bounds = getBounds();
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] width = entities.getWidth();
+        double[] height = entities.getHeight();
+        for (int i = entities.getActiveCount() - 1; i >= 0; i--) {
+            int id = entities.getActiveId(i);
+            if (bodyTypes[id] == BodyType.STATIC)
+                continue;
+            if (!intersects(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight(), positionX[id], positionY[id], width[id], height[id]))
+                detach(entities.get(id));
+        }
+    }
+
+    /**
+     * Updates the bounds of every active entity within the scene broadphase.
+     * <p>
+     * Static entities are only active once they have been woken by an update to their motion, in which case they are
+     * moved within the static index and put back to sleep. The broadphase is then brought up to date, so that queries
+     * against an incremental broadphase such as {@link SweepAndPrune2d} can rely on its order.
+     *
+     * @param time the duration to sweep the bounds over using the entity velocity, or {@code 0} for the current bounds
+     */
+    private void refresh(double time) {
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] velocityX = entities.getVelocityX();
+        double[] velocityY = entities.getVelocityY();
+        double[] width = entities.getWidth();
+        double[] height = entities.getHeight();
+        reachX = maxWidth;
+        reachY = maxHeight;
+        for (int i = entities.getActiveCount() - 1; i >= 0; i--) {
+            int id = entities.getActiveId(i);
+            if (bodyTypes[id] == BodyType.STATIC) {
+                statics.move(proxies[id], positionX[id], positionY[id], width[id], height[id]);
+                previousX[id] = positionX[id];
+                previousY[id] = positionY[id];
+                entities.sleep(id);
+                continue;
+            }
+            double dx = time == 0 ? 0 : velocityX[id] * time;
+            double dy = time == 0 ? 0 : velocityY[id] * time;
+            broadphase.move(proxies[id], Math.min(positionX[id], positionX[id] + dx), Math.min(positionY[id], positionY[id] + dy),
+                    width[id] + Math.abs(dx), height[id] + Math.abs(dy));
+            reachX = Math.max(reachX, width[id] + Math.abs(dx));
+            reachY = Math.max(reachY, height[id] + Math.abs(dy));
+        }
+        broadphase.findPairs(null);
+    }
+
+    /**
+     * Puts every active entity to sleep which has been at rest for at least the sleep step count.
+     */
+    private void rest() {
+        int sleepSteps = getSleepSteps();
+        if (sleepSteps <= 0)
+            return;
+        double threshold = getSleepThreshold() * getSleepThreshold();
+        double[] positionX = entities.getPositionX();
+        double[] positionY = entities.getPositionY();
+        double[] velocityX = entities.getVelocityX();
+        double[] velocityY = entities.getVelocityY();
+        double[] accelerationX = entities.getAccelerationX();
+        double[] accelerationY = entities.getAccelerationY();
+        int[] restSteps = entities.getRestSteps();
+        for (int i = entities.getActiveCount() - 1; i >= 0; i--) {
+            int id = entities.getActiveId(i);
+            if (velocityX[id] * velocityX[id] + velocityY[id] * velocityY[id] > threshold ||
+                    accelerationX[id] * accelerationX[id] + accelerationY[id] * accelerationY[id] > threshold) {
+                restSteps[id] = 0;
+                continue;
+            }
+            if (++restSteps[id] < sleepSteps)
+                continue;
+            velocityX[id] = 0;
+            velocityY[id] = 0;
+            previousX[id] = positionX[id];
+            previousY[id] = positionY[id];
+            updateTimes[id] = NEVER;
+            entities.sleep(id);
+        }
+    }
+
+    /**
+     * Queries the specified index with the bounds of the querying entity, along with the bounds shifted across the
+     * seams of the scene when the scene wraps around.
+     *
+     * @param index    the index to query
+     * @param x        the x-coordinate of the bounds
+     * @param y        the y-coordinate of the bounds
+     * @param width    the width of the bounds
+     * @param height   the height of the bounds
+     * @param direct   {@code true} to query the unshifted bounds
+     * @param consumer the consumer of the entities found
+     */
+    private void search(Broadphase2d<SceneEntity2d> index, double x, double y, double width, double height, boolean direct, Consumer<SceneEntity2d> consumer) {
+        if (direct)
+            index.query(x, y, width, height, consumer);
+        if (!wrapping)
+            return;
+        int count = getSeamShifts(x, y, width, height, seamShifts);
+        for (int i = 0; i < count; i++)
+            index.query(x + seamShifts[i * 2], y + seamShifts[i * 2 + 1], width, height, consumer);
+    }
+
+    /**
+     * Collects the offsets which shift the specified bounds across the seams of the scene bounds, onto the entities
+     * they may touch on the opposite side.
+     * <p>
+     * Bounds which cross the far side of the scene are shifted back by the size of the scene, and bounds within reach
+     * of the near side are shifted forward, so a pair touching across a seam is found from both of its entities.
+     *
+     * @param x      the x-coordinate of the bounds
+     * @param y      the y-coordinate of the bounds
+     * @param width  the width of the bounds
+     * @param height the height of the bounds
+     * @param shifts the array receiving the x and y offset of each shift
+     * @return the number of shifts, at most {@code 3}
+     */
+    private int getSeamShifts(double x, double y, double width, double height, double[] shifts) {
+        Rectangle bounds = getBounds();
+        double shiftX = 0;
+        double shiftY = 0;
+        if (x + width > bounds.getX() + bounds.getWidth())
+            shiftX = -bounds.getWidth();
+        else if (x < bounds.getX() + Math.max(reachX, maxWidth))
+            shiftX = bounds.getWidth();
+        if (y + height > bounds.getY() + bounds.getHeight())
+            shiftY = -bounds.getHeight();
+        else if (y < bounds.getY() + Math.max(reachY, maxHeight))
+            shiftY = bounds.getHeight();
+        int count = 0;
+        if (shiftX != 0) {
+            shifts[count * 2] = shiftX;
+            shifts[count * 2 + 1] = 0;
+            count++;
+        }
+        if (shiftY != 0) {
+            shifts[count * 2] = 0;
+            shifts[count * 2 + 1] = shiftY;
+            count++;
+        }
+        if (shiftX != 0 && shiftY != 0) {
+            shifts[count * 2] = shiftX;
+            shifts[count * 2 + 1] = shiftY;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the offset which moves the second interval to its nearest periodic image relative to the first.
+     *
+     * @param from       the start of the first interval
+     * @param fromLength the length of the first interval
+     * @param to         the start of the second interval
+     * @param toLength   the length of the second interval
+     * @param length     the period
+     * @return the offset to add to the second interval
+     */
+    private static double getSeamOffset(double from, double fromLength, double to, double toLength, double length) {
+        double delta = (to + toLength / 2.0d) - (from + fromLength / 2.0d);
+        return -Math.rint(delta / length) * length;
+    }
+
+    /**
+     * Returns whether the scene wraps around its bounds.
+     *
+     * @return {@code true} if the boundary policy wraps entities and the scene bounds have an area
+     */
+    private boolean isWrapping() {
+        Rectangle bounds = getBounds();
+        return getBoundaryPolicy() == BoundaryPolicy.WRAP && bounds.getWidth() > 0 && bounds.getHeight() > 0;
+    }
+
+    /**
+     * Buffers a candidate pair of entities, unless neither entity is dynamic or the pair is filtered out by the collision
+     * filters of the entities or by the scene pair filter.
+     *
+     * @param a the first entity id
+     * @param b the second entity id
+     */
+    private void addPair(int a, int b) {
+        if (bodyTypes[a] != BodyType.DYNAMIC && bodyTypes[b] != BodyType.DYNAMIC)
+            return;
+        int[] category = entities.getCategory();
+        int[] mask = entities.getMask();
+        if ((category[a] & mask[b]) == 0 || (category[b] & mask[a]) == 0)
+            return;
+        PairFilter<SceneEntity2d> filter = getPairFilter();
+        if (filter != null && !filter.test(entities.get(a), entities.get(b)))
+            return;
+        if (pairCount * 2 == pairs.length)
+            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+        pairs[pairCount * 2] = a;
+        pairs[pairCount * 2 + 1] = b;
+        pairCount++;
+    }
+
+    private static boolean intersects(double x1, double y1, double width1, double height1, double x2, double y2, double width2, double height2) {
+        if (width1 <= 0 || height1 <= 0 || width2 <= 0 || height2 <= 0)
+            return false;
+        return x1 < x2 + width2 && x2 < x1 + width1 && y1 < y2 + height2 && y2 < y1 + height1;
+    }
+
+    /**
+     * Returns the entities which intersect the specified shape.
+     *
+     * @param shape the shape to check
+     * @return the scene entities intersecting the shape
+     */
+    public SceneEntity2d[] query(Shape2d shape) {
+        List<SceneEntity2d> entities = new ArrayList<>();
+        query(shape, entities::add);
+        return entities.toArray(new SceneEntity2d[entities.size()]);
+    }
+
+    /**
+     * Finds the entities which intersect the specified shape, filling the specified array without allocating.
+     * <p>
+     * Entities beyond the length of the array are not reported.
+     *
+     * @param shape   the shape to check
+     * @param results the array receiving the scene entities intersecting the shape
+     * @return the number of entities found
+     * @see #query(Shape2d, Consumer)
+     */
+    public int query(Shape2d shape, SceneEntity2d[] results) {
+        if (shape == null || results == null || results.length == 0)
+            return 0;
+        synchronized (entities) {
+            collected = results;
+            collectedCount = 0;
+            try {
+                query(shape, collect);
+                return collectedCount;
+            } finally {
+                collected = null;
+            }
+        }
+    }
+
+    /**
+     * Reports each entity which intersects the specified shape.
+     * <p>
+     * Candidates are found through the scene broadphase using the bounds as of the last update, and then tested
+     * against the shape using their current position.
+     *
+     * @param shape    the shape to check
+     * @param consumer the entity consumer
+     */
+    public void query(Shape2d shape, Consumer<SceneEntity2d> consumer) {
+        if (shape == null || consumer == null)
+            return;
+        Rectangle bounds = shape.getBounds();
+        synchronized (entities) {
+            RegionSearch search = begin(RegionSearch.SHAPE, consumer);
+            search.shape = shape;
+            try {
+                search(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight(), search);
+            } finally {
+                end(search);
+            }
+        }
+    }
+
+    /**
+     * Reports each entity which intersects the specified rectangle.
+     *
+     * @param x        the rectangle x-coordinate
+     * @param y        the rectangle y-coordinate
+     * @param width    the rectangle width
+     * @param height   the rectangle height
+     * @param consumer the entity consumer
+     * @see #query(Shape2d, Consumer)
+     */
+    public void query(double x, double y, double width, double height, Consumer<SceneEntity2d> consumer) {
+        if (consumer == null || width <= 0 || height <= 0)
+            return;
+        synchronized (entities) {
+            RegionSearch search = begin(RegionSearch.RECTANGLE, consumer);
+            search.x = x;
+            search.y = y;
+            search.width = width;
+            search.height = height;
+            try {
+                search(x, y, width, height, search);
+            } finally {
+                end(search);
+            }
+        }
+    }
+
+    /**
+     * Reports each entity within the specified sector.
+     *
+     * @param origin    the apex of the sector
+     * @param sector    the range and heading of the sector, as a radius and angle
+     * @param halfAngle the angle between the heading and either edge of the sector
+     * @param consumer  the entity consumer
+     * @see #querySector(double, double, double, double, double, Consumer)
+     */
+    public void querySector(Cartesian2d origin, Polar2d sector, double halfAngle, Consumer<SceneEntity2d> consumer) {
+        if (origin == null || sector == null)
+            return;
+        querySector(origin.getX(), origin.getY(), sector.getTheta(), halfAngle, sector.getRadius(), consumer);
+    }
+
+    /**
+     * Reports each entity within the specified sector, such as the field of view of an agent.
+     * <p>
+     * An entity is within the sector when its center lies within the range of the apex and within the half angle of
+     * the heading. Entities centered exactly on the apex are not reported. Candidates are found through the scene
+     * broadphase and static index using the bounds of the sector, and are then tested using their current position by
+     * comparing dot products against the cosine of the half angle, so no angle is computed per entity. A half angle of
+     * {@code Math.PI} or more covers the whole disc.
+     *
+     * @param x         the x-coordinate of the apex
+     * @param y         the y-coordinate of the apex
+     * @param heading   the angle of the heading
+     * @param halfAngle the angle between the heading and either edge of the sector
+     * @param range     the radius of the sector
+     * @param consumer  the entity consumer
+     */
+    public void querySector(double x, double y, double heading, double halfAngle, double range, Consumer<SceneEntity2d> consumer) {
+        if (consumer == null || !(halfAngle >= 0) || !(range > 0))
+            return;
+        synchronized (entities) {
+            RegionSearch search = begin(RegionSearch.SECTOR, consumer);
+            try {
+                querySector(x, y, Math.cos(heading), Math.sin(heading), Math.cos(Math.min(halfAngle, Math.PI)), range, search);
+            } finally {
+                end(search);
+            }
+        }
+    }
+
+    /**
+     * Reports each entity within the sectors of many viewers sharing a half angle, such as the fields of view of a group
+     * of agents.
+     * <p>
+     * Every viewer is searched under a single lock of the scene, and the cosine of the half angle is only computed once.
+     * The index of the viewer is reported along with each entity within its sector.
+     *
+     * @param x         the x-coordinates of the apexes
+     * @param y         the y-coordinates of the apexes
+     * @param headings  the angles of the headings
+     * @param ranges    the radii of the sectors
+     * @param halfAngle the angle between the heading and either edge of every sector
+     * @param consumer  the consumer of each entity and the index of the viewer whose sector it lies within
+     * @throws IllegalArgumentException if the viewer arrays differ in length
+     * @see #querySector(double, double, double, double, double, Consumer)
+     */
+    public void querySectors(double[] x, double[] y, double[] headings, double[] ranges, double halfAngle, ObjIntConsumer<SceneEntity2d> consumer) {
+        if (x == null || y == null || headings == null || ranges == null)
+            throw new IllegalArgumentException();
+        if (y.length != x.length || headings.length != x.length || ranges.length != x.length)
+            throw new IllegalArgumentException();
+        if (consumer == null || !(halfAngle >= 0))
+            return;
+        double cosine = Math.cos(Math.min(halfAngle, Math.PI));
+        synchronized (entities) {
+            RegionSearch search = begin(RegionSearch.SECTOR, null);
+            search.viewers = consumer;
+            try {
+                for (int i = 0; i < x.length; i++) {
+                    if (!(ranges[i] > 0))
+                        continue;
+                    search.viewer = i;
+                    querySector(x[i], y[i], Math.cos(headings[i]), Math.sin(headings[i]), cosine, ranges[i], search);
+                }
+            } finally {
+                end(search);
+            }
+        }
+    }
+
+    /**
+     * Reports each entity whose center lies within the specified sector, searching the bounding box of the sector.
+     *
+     * @param x        the x-coordinate of the apex
+     * @param y        the y-coordinate of the apex
+     * @param headingX the x component of the unit heading
+     * @param headingY the y component of the unit heading
+     * @param cosine   the cosine of the half angle
+     * @param range    the radius of the sector
+     * @param search   the sector search reporting the entities
+     */
+    private void querySector(double x, double y, double headingX, double headingY, double cosine, double range, RegionSearch search) {
+        double sine = Math.sqrt(Math.max(0, 1 - cosine * cosine));
+        double leftX = (headingX * cosine - headingY * sine) * range;
+        double leftY = (headingY * cosine + headingX * sine) * range;
+        double rightX = (headingX * cosine + headingY * sine) * range;
+        double rightY = (headingY * cosine - headingX * sine) * range;
+        double minX = headingX <= -cosine ? -range : Math.min(0, Math.min(leftX, rightX));
+        double maxX = headingX >= cosine ? range : Math.max(0, Math.max(leftX, rightX));
+        double minY = headingY <= -cosine ? -range : Math.min(0, Math.min(leftY, rightY));
+        double maxY = headingY >= cosine ? range : Math.max(0, Math.max(leftY, rightY));
+        search.x = x;
+        search.y = y;
+        search.headingX = headingX;
+        search.headingY = headingY;
+        search.cosine = cosine;
+        search.range = range;
+        search(x + minX, y + minY, maxX - minX, maxY - minY, search);
+    }
+
+    /**
+     * Reports each entity which intersects the region of the specified search, searching both the broadphase and the
+     * static index.
+     * <p>
+     * When the scene wraps around, the region is also searched across the seams of the scene bounds. Each entity is
+     * reported at most once.
+     *
+     * @param x      the x-coordinate of the region bounds
+     * @param y      the y-coordinate of the region bounds
+     * @param width  the width of the region bounds
+     * @param height the height of the region bounds
+     * @param search the search
+     */
+    private void search(double x, double y, double width, double height, RegionSearch search) {
+        double[] shifts = search.shifts;
+        int count = isWrapping() ? getSeamShifts(x, y, width, height, shifts) : 0;
+        for (int i = -1; i < count; i++) {
+            double shiftX = i < 0 ? 0 : shifts[i * 2];
+            double shiftY = i < 0 ? 0 : shifts[i * 2 + 1];
+            search.shift = i;
+            broadphase.query(x + shiftX, y + shiftY, width, height, search);
+            statics.query(x + shiftX, y + shiftY, width, height, search);
+        }
+    }
+
+    /**
+     * Begins a search of the scene, reusing the search of the current depth so searches made from within the consumer
+     * of another search do not disturb it. Must be called while holding the scene lock.
+     *
+     * @param kind     the kind of region searched
+     * @param consumer the entity consumer
+     * @return the search
+     */
+    private RegionSearch begin(int kind, Consumer<SceneEntity2d> consumer) {
+        if (searchDepth == searches.length) {
+            searches = Arrays.copyOf(searches, searchDepth + 1);
+            searches[searchDepth] = new RegionSearch();
+        }
+        RegionSearch search = searches[searchDepth++];
+        search.kind = kind;
+        search.consumer = consumer;
+        return search;
+    }
+
+    /**
+     * Ends the specified search, which must be the latest search begun.
+     *
+     * @param search the search
+     */
+    private void end(RegionSearch search) {
+        search.consumer = null;
+        search.viewers = null;
+        search.shape = null;
+        searchDepth--;
+    }
+
+    /**
+     * Finds the nearest entity struck by the specified ray.
+     *
+     * @param origin      the ray origin
+     * @param direction   the ray direction
+     * @param maxDistance the maximum distance of the ray
+     * @param hit         the hit receiving the nearest entity struck
+     * @return {@code true} if an entity was struck
+     * @see #raycast(double, double, double, double, double, RaycastHit)
+     */
+    public boolean raycast(Cartesian2d origin, Vector2d direction, double maxDistance, RaycastHit hit) {
+        if (origin == null || direction == null)
+            return false;
+        return raycast(origin.getX(), origin.getY(), direction.getX(), direction.getY(), maxDistance, hit);
+    }
+
+    /**
+     * Finds the nearest entity struck by the specified ray.
+     * <p>
+     * Candidates are found through the scene broadphase and static index using the bounds as of the last update, and
+     * are then tested against the collider of each entity using its current position. The direction need not be of unit
+     * length, as distances are measured in the units of the scene. Rays do not wrap around the seams of wrapping scenes.
+     *
+     * @param x           the x-coordinate of the ray origin
+     * @param y           the y-coordinate of the ray origin
+     * @param directionX  the x component of the ray direction
+     * @param directionY  the y component of the ray direction
+     * @param maxDistance the maximum distance of the ray
+     * @param hit         the hit receiving the nearest entity struck
+     * @return {@code true} if an entity was struck, in which case the hit is updated
+     */
+    public boolean raycast(double x, double y, double directionX, double directionY, double maxDistance, RaycastHit hit) {
+        if (hit == null)
+            return false;
+        return cast(x, y, directionX, directionY, maxDistance, hit, null);
+    }
+
+    /**
+     * Reports every entity struck by the specified ray, in no particular order.
+     * <p>
+     * The reported hit is reused between reports and is only valid until the consumer returns.
+     *
+     * @param x           the x-coordinate of the ray origin
+     * @param y           the y-coordinate of the ray origin
+     * @param directionX  the x component of the ray direction
+     * @param directionY  the y component of the ray direction
+     * @param maxDistance the maximum distance of the ray
+     * @param consumer    the hit consumer
+     * @see #raycast(double, double, double, double, double, RaycastHit)
+     */
+    public void raycast(double x, double y, double directionX, double directionY, double maxDistance, Consumer<RaycastHit> consumer) {
+        if (consumer == null)
+            return;
+        cast(x, y, directionX, directionY, maxDistance, reported, consumer);
+    }
+
+    /**
+     * Finds the entity struck nearest to the start of the specified segment.
+     *
+     * @param x1  the x-coordinate of the segment start
+     * @param y1  the y-coordinate of the segment start
+     * @param x2  the x-coordinate of the segment end
+     * @param y2  the y-coordinate of the segment end
+     * @param hit the hit receiving the nearest entity struck
+     * @return {@code true} if an entity was struck, in which case the hit is updated
+     * @see #raycast(double, double, double, double, double, RaycastHit)
+     */
+    public boolean segmentQuery(double x1, double y1, double x2, double y2, RaycastHit hit) {
+        double length = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+        if (length == 0)
+            return raycast(x1, y1, 1, 0, 0, hit);
+        return raycast(x1, y1, x2 - x1, y2 - y1, length, hit);
+    }
+
+    /**
+     * Reports every entity struck by the specified segment, in no particular order.
+     * <p>
+     * The reported hit is reused between reports and is only valid until the consumer returns.
+     *
+     * @param x1       the x-coordinate of the segment start
+     * @param y1       the y-coordinate of the segment start
+     * @param x2       the x-coordinate of the segment end
+     * @param y2       the y-coordinate of the segment end
+     * @param consumer the hit consumer
+     * @see #raycast(double, double, double, double, double, RaycastHit)
+     */
+    public void segmentQuery(double x1, double y1, double x2, double y2, Consumer<RaycastHit> consumer) {
+        double length = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+        if (length == 0)
+            raycast(x1, y1, 1, 0, 0, consumer);
+        else
+            raycast(x1, y1, x2 - x1, y2 - y1, length, consumer);
+    }
+
+    /**
+     * Casts a ray through the broadphase and the static index, keeping only the nearest hit unless a consumer is given.
+     *
+     * @param x           the x-coordinate of the ray origin
+     * @param y           the y-coordinate of the ray origin
+     * @param directionX  the x component of the ray direction
+     * @param directionY  the y component of the ray direction
+     * @param maxDistance the maximum distance of the ray
+     * @param hit         the hit receiving each entity struck
+     * @param consumer    the hit consumer, or {@code null} to keep the nearest hit
+     * @return {@code true} if an entity was struck
+     */
+    private boolean cast(double x, double y, double directionX, double directionY, double maxDistance, RaycastHit hit, Consumer<RaycastHit> consumer) {
+        double length = Math.sqrt(directionX * directionX + directionY * directionY);
+        if (!(length > 0) || Double.isInfinite(length) || !(maxDistance >= 0))
+            return false;
+        synchronized (entities) {
+            rayX = x;
+            rayY = y;
+            rayDirectionX = directionX / length;
+            rayDirectionY = directionY / length;
+            rayDistance = maxDistance;
+            rayFound = false;
+            rayHit = hit;
+            rayConsumer = consumer;
+            try {
+                broadphase.raycast(x, y, rayDirectionX, rayDirectionY, rayDistance, cast);
+                statics.raycast(x, y, rayDirectionX, rayDirectionY, rayDistance, cast);
+                return rayFound;
+            } finally {
+                rayHit = null;
+                rayConsumer = null;
+            }
+        }
+    }
+
+    /**
+     * Tests the current ray against the collider of the specified entity.
+     *
+     * @param id          the entity id
+     * @param maxDistance the maximum distance of the ray
+     * @param hit         the hit updated if the entity is struck
+     * @return the distance at which the entity is struck, or {@code Double.POSITIVE_INFINITY} if the ray misses
+     */
+    private double cast(int id, double maxDistance, RaycastHit hit) {
+        double left = entities.getPositionX()[id];
+        double top = entities.getPositionY()[id];
+        double width = entities.getWidth()[id];
+        double height = entities.getHeight()[id];
+        if (width <= 0 || height <= 0)
+            return Double.POSITIVE_INFINITY;
+        double distance;
+        double normalX = -rayDirectionX;
+        double normalY = -rayDirectionY;
+        if (colliders[id] == Collider.CIRCLE) {
+            double radius = Math.min(width, height) / 2.0d;
+            double dx = rayX - (left + width / 2.0d);
+            double dy = rayY - (top + height / 2.0d);
+            double along = dx * rayDirectionX + dy * rayDirectionY;
+            double outside = dx * dx + dy * dy - radius * radius;
+            if (outside > 0 && along > 0)
+                return Double.POSITIVE_INFINITY;
+            double discriminant = along * along - outside;
+            if (discriminant < 0)
+                return Double.POSITIVE_INFINITY;
+            distance = outside > 0 ? -along - Math.sqrt(discriminant) : 0;
+            if (distance > maxDistance)
+                return Double.POSITIVE_INFINITY;
+            if (distance > 0) {
+                normalX = (dx + rayDirectionX * distance) / radius;
+                normalY = (dy + rayDirectionY * distance) / radius;
+            }
+        } else {
+            distance = Motion.getRayDistance(rayX, rayY, rayDirectionX, rayDirectionY, left, top, left + width, top + height, maxDistance);
+            if (distance == Double.POSITIVE_INFINITY)
+                return distance;
+            if (distance > 0) {
+                double entryX = rayDirectionX == 0 ? Double.NEGATIVE_INFINITY : ((rayDirectionX > 0 ? left : left + width) - rayX) / rayDirectionX;
+                double entryY = rayDirectionY == 0 ? Double.NEGATIVE_INFINITY : ((rayDirectionY > 0 ? top : top + height) - rayY) / rayDirectionY;
+                normalX = entryX >= entryY ? -Math.signum(rayDirectionX) : 0;
+                normalY = entryX >= entryY ? 0 : -Math.signum(rayDirectionY);
+            }
+        }
+        hit.set(entities.get(id), distance, rayX + rayDirectionX * distance, rayY + rayDirectionY * distance, normalX, normalY);
+        return distance;
+    }
+
+    /**
+     * Returns the entities nearest to the specified point, nearest first.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @param k the maximum number of entities to return
+     * @return the at most {@code k} scene entities nearest to the point
+     * @see #nearest(double, double, double, SceneEntity2d[])
+     */
+    public SceneEntity2d[] nearest(double x, double y, int k) {
+        synchronized (entities) {
+            SceneEntity2d[] nearest = new SceneEntity2d[Math.max(0, Math.min(k, entities.size()))];
+            int count = nearest(x, y, Double.POSITIVE_INFINITY, nearest);
+            return count == nearest.length ? nearest : Arrays.copyOf(nearest, count);
+        }
+    }
+
+    /**
+     * Finds the entities nearest to the specified point within a maximum distance, filling the specified array nearest
+     * first.
+     * <p>
+     * The distance to an entity is the distance to the nearest point of its collider, which is {@code 0} for entities
+     * containing the point. Candidates are found best-first through the scene broadphase and static index using the
+     * bounds as of the last update, comparing squared distances, and are then measured using their current position.
+     * Distances do not wrap around the seams of wrapping scenes.
+     *
+     * @param x           the x-coordinate of the point
+     * @param y           the y-coordinate of the point
+     * @param maxDistance the maximum distance
+     * @param nearest     the array receiving the nearest entities, whose length is the number of entities to find
+     * @return the number of entities found
+     */
+    public int nearest(double x, double y, double maxDistance, SceneEntity2d[] nearest) {
+        if (nearest == null || nearest.length == 0 || !(maxDistance >= 0))
+            return 0;
+        synchronized (entities) {
+            if (nearIds.length < nearest.length) {
+                nearIds = new int[nearest.length];
+                nearDistances = new double[nearest.length];
+            }
+            nearX = x;
+            nearY = y;
+            nearRadius = maxDistance;
+            nearLimit = nearest.length;
+            nearCount = 0;
+            broadphase.nearest(x, y, maxDistance * maxDistance, closest);
+            statics.nearest(x, y, nearCount < nearLimit ? maxDistance * maxDistance : nearDistances[0], closest);
+            int count = nearCount;
+            for (int i = count - 1; i >= 0; i--)
+                nearest[i] = entities.get(pollNearest());
+            return count;
+        }
+    }
+
+    /**
+     * Reports each entity whose collider lies within the specified distance of a point.
+     * <p>
+     * Candidates are found through the scene broadphase and static index using the bounds as of the last update, and are
+     * then tested using their current position by comparing squared distances. Distances do not wrap around the seams of
+     * wrapping scenes.
+     *
+     * @param x        the x-coordinate of the point
+     * @param y        the y-coordinate of the point
+     * @param radius   the distance
+     * @param consumer the entity consumer
+     */
+    public void withinRadius(double x, double y, double radius, Consumer<SceneEntity2d> consumer) {
+        if (consumer == null || !(radius >= 0))
+            return;
+        synchronized (entities) {
+            nearX = x;
+            nearY = y;
+            nearRadius = radius;
+            nearConsumer = consumer;
+            try {
+                broadphase.nearest(x, y, radius * radius, within);
+                statics.nearest(x, y, radius * radius, within);
+            } finally {
+                nearConsumer = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the squared distance from a point to the nearest point of the collider of the specified entity.
+     * <p>
+     * Only circles the point lies outside of take a square root.
+     *
+     * @param id the entity id
+     * @param x  the x-coordinate of the point
+     * @param y  the y-coordinate of the point
+     * @return the squared distance, or {@code 0} if the collider contains the point
+     */
+    private double getDistanceSquared(int id, double x, double y) {
+        double left = entities.getPositionX()[id];
+        double top = entities.getPositionY()[id];
+        double width = entities.getWidth()[id];
+        double height = entities.getHeight()[id];
+        if (colliders[id] != Collider.CIRCLE)
+            return Motion.getDistanceSquared(x, y, left, top, left + width, top + height);
+        double radius = Math.min(width, height) / 2.0d;
+        double dx = x - (left + width / 2.0d);
+        double dy = y - (top + height / 2.0d);
+        double center = dx * dx + dy * dy;
+        if (center <= radius * radius)
+            return 0;
+        double distance = Math.sqrt(center) - radius;
+        return distance * distance;
+    }
+
+    /**
+     * Returns whether the collider of the specified entity lies within the specified distance of a point.
+     *
+     * @param id     the entity id
+     * @param x      the x-coordinate of the point
+     * @param y      the y-coordinate of the point
+     * @param radius the distance
+     * @return {@code true} if the collider lies within the distance
+     */
+    private boolean isWithin(int id, double x, double y, double radius) {
+        double left = entities.getPositionX()[id];
+        double top = entities.getPositionY()[id];
+        double width = entities.getWidth()[id];
+        double height = entities.getHeight()[id];
+        if (colliders[id] != Collider.CIRCLE)
+            return Motion.getDistanceSquared(x, y, left, top, left + width, top + height) <= radius * radius;
+        double reach = radius + Math.min(width, height) / 2.0d;
+        double dx = x - (left + width / 2.0d);
+        double dy = y - (top + height / 2.0d);
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+    /**
+     * Adds an entity to the max-heap of the nearest entities found so far.
+     */
+    private void offerNearest(int id, double distance) {
+        int index = nearCount++;
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (nearDistances[parent] >= distance)
+                break;
+            nearIds[index] = nearIds[parent];
+            nearDistances[index] = nearDistances[parent];
+            index = parent;
+        }
+        nearIds[index] = id;
+        nearDistances[index] = distance;
+    }
+
+    /**
+     * Replaces the farthest of the nearest entities found so far with the specified entity.
+     */
+    private void replaceNearest(int id, double distance) {
+        int index = 0;
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= nearCount)
+                break;
+            if (child + 1 < nearCount && nearDistances[child + 1] > nearDistances[child])
+                child++;
+            if (distance >= nearDistances[child])
+                break;
+            nearIds[index] = nearIds[child];
+            nearDistances[index] = nearDistances[child];
+            index = child;
+        }
+        nearIds[index] = id;
+        nearDistances[index] = distance;
+    }
+
+    /**
+     * Removes the farthest of the nearest entities found so far.
+     *
+     * @return the entity id
+     */
+    private int pollNearest() {
+        int id = nearIds[0];
+        int last = --nearCount;
+        if (last > 0) {
+            int lastId = nearIds[last];
+            double lastDistance = nearDistances[last];
+            replaceNearest(lastId, lastDistance);
+        }
+        return id;
+    }
+
+    /**
+     * Returns whether the scene contains the specified entity.
+     *
+     * @param entity the scene entity
+     * @return {@code true} if the scene contains the entity
+     */
+    public boolean contains(SceneEntity2d entity) {
+        if (entity == null)
+            return false;
+        Rectangle bounds = getBounds();
+        return bounds != null && bounds.contains(entity.getMotion().getPosition());
+    }
+
+    /**
+     * Returns the executor used to run the scene updates in parallel.
+     *
+     * @return the executor, or {@code null} if the scene is updated on the calling thread
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Updates the executor used to run the scene updates in parallel.
+     * <p>
+     * When set, the narrowphase tests, the batches of collision responses, and the integration of large scenes are split
+     * into chunks of {@link #PARALLEL_CHUNK_SIZE} which are run on the executor. Candidate pairs are still generated by
+     * the broadphase on the updating thread, since broadphase queries keep scratch state and are not safe to run
+     * concurrently. The results are identical to a serial update.
+     *
+     * @param executor the executor, or {@code null} to update the scene on the calling thread
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the listener which is handed the contact events of the scene.
+     *
+     * @return the contact listener, or {@code null} if contact events are not recorded
+     */
+    public ContactListener getContactListener() {
+        return contactListener;
+    }
+
+    /**
+     * Updates the listener which is handed the contact events of the scene.
+     * <p>
+     * While a listener is set, every pair of entities in contact records an event when it begins, on every step it
+     * persists, and when it ends or one of its entities is removed from the scene. The events are handed to the listener
+     * as a single batch at the end of each update and step. Without a contact executor, the listener runs on the
+     * updating thread and holds up the update until it returns.
+     *
+     * @param contactListener the contact listener, or {@code null} to stop recording contact events
+     * @see #setContactExecutor(Executor)
+     */
+    public void setContactListener(ContactListener contactListener) {
+        this.contactListener = contactListener;
+    }
+
+    /**
+     * Returns the executor used to hand the contact events to the contact listener.
+     *
+     * @return the executor, or {@code null} if the listener is run on the updating thread
+     */
+    public Executor getContactExecutor() {
+        return contactExecutor;
+    }
+
+    /**
+     * Updates the executor used to hand the contact events to the contact listener.
+     * <p>
+     * When set, the listener is run on the executor and the scene keeps stepping while it runs. Events recorded in the
+     * meantime are handed over in the next batch once the listener returns, and events which do not fit into the
+     * preallocated buffer in the meantime are dropped and counted by {@link ContactEvents#getDroppedCount()}. Reading
+     * or updating the entities from the listener waits for the current step to finish, so the contact executor should
+     * not be the executor the scene is updated with.
+     *
+     * @param contactExecutor the executor, or {@code null} to run the listener on the updating thread
+     */
+    public void setContactExecutor(Executor contactExecutor) {
+        this.contactExecutor = contactExecutor;
+    }
+
+    /**
+     * Returns the filter which decides whether a candidate pair of entities is tested for collision.
+     *
+     * @return the pair filter, or {@code null} if every pair which passes the entity collision filters is tested
+     */
+    public PairFilter<SceneEntity2d> getPairFilter() {
+        return pairFilter;
+    }
+
+    /**
+     * Updates the filter which decides whether a candidate pair of entities is tested for collision.
+     * <p>
+     * The filter is only consulted for pairs which pass the category and mask checks of the entities, and is invoked on
+     * the thread updating the scene.
+     *
+     * @param pairFilter the pair filter, or {@code null} to test every pair which passes the entity collision filters
+     */
+    public void setPairFilter(PairFilter<SceneEntity2d> pairFilter) {
+        this.pairFilter = pairFilter;
+    }
+
+    /**
+     * Returns the policy applied to entities which move past the scene bounds.
+     *
+     * @return the boundary policy, or {@code null} if entities may leave the scene bounds
+     */
+    public BoundaryPolicy getBoundaryPolicy() {
+        return boundaryPolicy;
+    }
+
+    /**
+     * Updates the policy applied to entities which move past the scene bounds.
+     * <p>
+     * The policy is applied to each entity as it is integrated, so the boundary costs a constant amount of work per
+     * moving entity and never takes part in the collision detection.
+     *
+     * @param boundaryPolicy the boundary policy, or {@code null} to let entities leave the scene bounds
+     */
+    public void setBoundaryPolicy(BoundaryPolicy boundaryPolicy) {
+        this.boundaryPolicy = boundaryPolicy;
+    }
+
+    /**
+     * Returns whether the scene steps use continuous collision detection.
+     *
+     * @return {@code true} if continuous collision detection is enabled
+     * @see #step(double)
+     */
+    public boolean isContinuous() {
+        return continuous;
+    }
+
+    /**
+     * Updates whether the scene steps use continuous collision detection.
+     * <p>
+     * Continuous collision detection stops fast entities from passing through each other within a single step, which
+     * allows for larger steps at the cost of sweeping the broadphase bounds over the step. It only applies to
+     * {@link #step(double)}.
+     *
+     * @param continuous {@code true} to enable continuous collision detection
+     */
+    public void setContinuous(boolean continuous) {
+        this.continuous = continuous;
+    }
+
+    /**
+     * Returns the speed under which an entity is considered at rest.
+     * <p>
+     * The threshold applies to both the velocity and the acceleration of an entity.
+     *
+     * @return the sleep threshold
+     */
+    public double getSleepThreshold() {
+        return sleepThreshold;
+    }
+
+    /**
+     * Updates the speed under which an entity is considered at rest.
+     *
+     * @param sleepThreshold the sleep threshold
+     */
+    public void setSleepThreshold(double sleepThreshold) {
+        if (!(sleepThreshold >= 0) || Double.isInfinite(sleepThreshold))
+            throw new IllegalArgumentException();
+        this.sleepThreshold = sleepThreshold;
+    }
+
+    /**
+     * Returns the number of consecutive updates an entity must be at rest for before it is put to sleep.
+     * <p>
+     * Sleeping entities are not integrated and are not tested against each other. They are woken when another entity
+     * comes into contact with them, or when their motion or mass is updated.
+     *
+     * @return the sleep step count, or {@code 0} if entities never sleep
+     */
+    public int getSleepSteps() {
+        return sleepSteps;
+    }
+
+    /**
+     * Updates the number of consecutive updates an entity must be at rest for before it is put to sleep.
+     *
+     * @param sleepSteps the sleep step count, or {@code 0} to never put entities to sleep
+     */
+    public void setSleepSteps(int sleepSteps) {
+        if (sleepSteps < 0)
+            throw new IllegalArgumentException();
+        this.sleepSteps = sleepSteps;
+        if (sleepSteps == 0) {
+            synchronized (entities) {
+                for (int i = 0; i < entities.size(); i++)
+                    wake(entities.getId(i));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the specified entity is sleeping.
+     *
+     * @param entity the scene entity
+     * @return {@code true} if the entity is within the scene and sleeping
+     */
+    public boolean isSleeping(SceneEntity2d entity) {
+        return entities.contains(entity) && entities.isSleeping(entity.getId());
+    }
+
+    /**
+     * Returns the scene bounds.
+     *
+     * @return the scene bounds
+     */
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Chunk
+     * <p>
+     * A unit of work over a contiguous range of items.
+     */
+    private interface Chunk {
+        public void run(int from, int to);
+    }
+
+    /**
+     * ChunkTask
+     * <p>
+     * A reusable task which runs a chunk over a single range on the scene executor.
+     */
+    private static final class ChunkTask implements Callable<Void> {
+        private Chunk chunk;
+        private int from;
+        private int to;
+
+        @Override
+        public Void call() {
+            chunk.run(from, to);
+            return null;
+        }
+    }
+
+    /**
+     * RegionSearch
+     * <p>
+     * The reusable state of a single search for the entities within a region of the scene, which is either a shape, a
+     * rectangle, or a sector whose apex is at {@code (x, y)}.
+     * <p>
+     * Each entity reported by the indexes is tested against the region at the shift of the current seam, and is skipped
+     * if it was already reported at an earlier shift.
+     */
+    private final class RegionSearch implements Consumer<SceneEntity2d> {
+        private static final int SHAPE = 0;
+        private static final int RECTANGLE = 1;
+        private static final int SECTOR = 2;
+        private final double[] shifts = new double[6];
+        private int shift;
+        private int kind;
+        private Shape2d shape;
+        private double x;
+        private double y;
+        private double width;
+        private double height;
+        private double headingX;
+        private double headingY;
+        private double cosine;
+        private double range;
+        private Consumer<SceneEntity2d> consumer;
+        private ObjIntConsumer<SceneEntity2d> viewers;
+        private int viewer;
+
+        @Override
+        public void accept(SceneEntity2d entity) {
+            int id = entity.getId();
+            double entityX = entities.getPositionX()[id];
+            double entityY = entities.getPositionY()[id];
+            double entityWidth = entities.getWidth()[id];
+            double entityHeight = entities.getHeight()[id];
+            if (!intersects(entityX - getShiftX(shift), entityY - getShiftY(shift), entityWidth, entityHeight))
+                return;
+            for (int earlier = -1; earlier < shift; earlier++)
+                if (intersects(entityX - getShiftX(earlier), entityY - getShiftY(earlier), entityWidth, entityHeight))
+                    return;
+            if (viewers != null)
+                viewers.accept(entity, viewer);
+            else
+                consumer.accept(entity);
+        }
+
+        private double getShiftX(int shift) {
+            return shift < 0 ? 0 : shifts[shift * 2];
+        }
+
+        private double getShiftY(int shift) {
+            return shift < 0 ? 0 : shifts[shift * 2 + 1];
+        }
+
+        private boolean intersects(double entityX, double entityY, double entityWidth, double entityHeight) {
+            switch (kind) {
+                case SHAPE:
+                    return shape.intersects(entityX, entityY, entityWidth, entityHeight);
+                case RECTANGLE:
+                    return Scene.intersects(x, y, width, height, entityX, entityY, entityWidth, entityHeight);
+                default:
+                    double dx = entityX + entityWidth / 2.0d - x;
+                    double dy = entityY + entityHeight / 2.0d - y;
+                    double distanceSquared = dx * dx + dy * dy;
+                    if (distanceSquared == 0 || distanceSquared > range * range)
+                        return false;
+                    double dot = dx * headingX + dy * headingY;
+                    if (cosine >= 0)
+                        return dot >= 0 && dot * dot >= cosine * cosine * distanceSquared;
+                    return dot >= 0 || dot * dot <= cosine * cosine * distanceSquared;
+            }
+        }
     }
 }
@@ -0,0 +1,307 @@
+package com.iancaffey.tempt;
+
+import com.iancaffey.tempt.collision.Broadphase3d;
+import com.iancaffey.tempt.collision.PairCache;
+import com.iancaffey.tempt.collision.SpatialHash3d;
+import com.iancaffey.tempt.coordinate.Cartesian3d;
+import com.iancaffey.tempt.coordinate.Vector3d;
+import com.iancaffey.tempt.coordinate.VectorPair3d;
+import com.iancaffey.tempt.entity.Entity3d;
+import com.iancaffey.tempt.entity.EntityRegistry;
+import com.iancaffey.tempt.math.Dimension3d;
+import com.iancaffey.tempt.shape.RectangularPrism;
+import com.iancaffey.tempt.util.Motion;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Scene3d
+ * <p>
+ * A representation of a bounded scene composed of entities in 3-dimensions.
+ * <p>
+ * Entities may be added and removed from any thread. Adding, removing, and querying entities waits for an update in
+ * progress on another thread to finish, so an update always sees a consistent set of entities.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class Scene3d {
+    private static final long NEVER = Long.MIN_VALUE;
+    private final EntityRegistry<Entity3d> entities = new EntityRegistry<>();
+    private final PairCache contacts = new PairCache();
+    private long[] updateTimes = new long[16];
+    private int[] proxies = new int[16];
+    private final Broadphase3d<Entity3d> broadphase;
+    private final RectangularPrism bounds;
+
+    /**
+     * Constructs a new {@code Scene3d} with specified bounds.
+     *
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param z      the z-coordinate
+     * @param width  the width
+     * @param height the height
+     * @param depth  the depth
+     */
+    public Scene3d(double x, double y, double z, double width, double height, double depth) {
+        this(new RectangularPrism(x, y, z, width, height, depth));
+    }
+
+    /**
+     * Constructs a new {@code Scene3d} with specified bounds.
+     *
+     * @param bounds the scene bounds
+     */
+    public Scene3d(RectangularPrism bounds) {
+        this(bounds, new SpatialHash3d<>());
+    }
+
+    /**
+     * Constructs a new {@code Scene3d} with specified bounds and broadphase.
+     * <p>
+     * The broadphase is used to find the candidate pairs of entities which are tested for collisions on each update.
+     *
+     * @param bounds     the scene bounds
+     * @param broadphase the scene broadphase
+     */
+    public Scene3d(RectangularPrism bounds, Broadphase3d<Entity3d> broadphase) {
+        if (bounds == null || broadphase == null)
+            throw new IllegalArgumentException();
+        this.bounds = bounds;
+        this.broadphase = broadphase;
+    }
+
+    /**
+     * Adds the specified entities to the scene.
+     *
+     * @param entities the entities
+     */
+    public void add(Entity3d... entities) {
+        if (entities == null)
+            return;
+        for (Entity3d entity : entities)
+            add(entity);
+    }
+
+    /**
+     * Adds the specified entity to the scene.
+     *
+     * <p>
+     * The entity is assigned an id which is used to index its scene state until it is removed.
+     *
+     * @param entity the entity
+     * @throws IllegalArgumentException if the entity belongs to another scene
+     */
+    public void add(Entity3d entity) {
+        if (entity == null)
+            return;
+        synchronized (entities) {
+            if (entities.contains(entity))
+                return;
+            int id = entities.register(entity);
+            if (id >= proxies.length) {
+                int length = Math.max(proxies.length * 2, id + 1);
+                updateTimes = Arrays.copyOf(updateTimes, length);
+                proxies = Arrays.copyOf(proxies, length);
+            }
+            Cartesian3d position = entity.getPosition();
+            Dimension3d size = entity.getSize();
+            updateTimes[id] = NEVER;
+            proxies[id] = broadphase.add(entity, position.getX(), position.getY(), position.getZ(), size.getWidth(), size.getHeight(), size.getDepth());
+        }
+    }
+
+    /**
+     * Removes the specified entity from the scene.
+     *
+     * @param entity the entity
+     */
+    public void remove(Entity3d entity) {
+        if (entity == null)
+            return;
+        synchronized (entities) {
+            if (!entities.contains(entity))
+                return;
+            int id = entity.getId();
+            contacts.removeAll(id);
+            broadphase.remove(proxies[id]);
+            entities.unregister(entity);
+        }
+    }
+
+    /**
+     * Returns a copy of the loaded entities.
+     *
+     * @return the entities
+     */
+    public Entity3d[] getEntities() {
+        synchronized (entities) {
+            return entities.toArray(new Entity3d[entities.size()]);
+        }
+    }
+
+    /**
+     * Clears the scene of all entities.
+     */
+    public void clear() {
+        synchronized (entities) {
+            entities.clear();
+            contacts.clear();
+            broadphase.clear();
+        }
+    }
+
+    /**
+     * Updates the scene by checking for all collisions between entities and updating their new positions accordingly.
+     * <p>
+     * Only the pairs of entities reported by the scene broadphase are tested for collisions. A collision is only resolved
+     * when a pair first comes into contact, and the pair is tracked until the entities no longer intersect.
+     */
+    public void update() {
+        synchronized (entities) {
+            refresh();
+            broadphase.findPairs((entity, opposition) -> {
+                if (!intersects(entity, opposition))
+                    return;
+                int slot = contacts.touch(entity.getId(), opposition.getId());
+                if (contacts.getState(slot) != PairCache.BEGIN)
+                    return;
+                VectorPair3d pair = Motion.getCollision(entity, opposition);
+                if (pair == null)
+                    return;
+                entity.setVelocity(pair.getLeft());
+                opposition.setVelocity(pair.getRight());
+            });
+            contacts.sweep(null);
+            long time = System.currentTimeMillis();
+            for (int i = 0; i < entities.size(); i++) {
+                int id = entities.getId(i);
+                Entity3d entity = entities.get(id);
+                long update = updateTimes[id];
+                if (update != NEVER) {
+                    double t = (time - update) / 1000.0d;
+                    entity.setPosition(Motion.getPosition(t, entity));
+                    Vector3d velocity = entity.getVelocity();
+                    if (velocity != null) {
+                        Vector3d acceleration = entity.getAcceleration();
+                        if (acceleration != null)
+                            entity.setVelocity(velocity.getX() + t * acceleration.getX(), velocity.getY() + t * acceleration.getY(), velocity.getZ() + t * acceleration.getZ());
+                    }
+                }
+                updateTimes[id] = time;
+            }
+            refresh();
+        }
+    }
+
+    /**
+     * Updates the bounds of every entity within the scene broadphase.
+     */
+    private void refresh() {
+        for (int i = 0; i < entities.size(); i++) {
+            int id = entities.getId(i);
+            Entity3d entity = entities.get(id);
+            Cartesian3d position = entity.getPosition();
+            Dimension3d size = entity.getSize();
+            broadphase.move(proxies[id], position.getX(), position.getY(), position.getZ(), size.getWidth(), size.getHeight(), size.getDepth());
+        }
+    }
+
+    /**
+     * Returns whether the two entities intersect.
+     *
+     * @param one the first entity
+     * @param two the second entity
+     * @return {@code true} if the entities intersect
+     */
+    private static boolean intersects(Entity3d one, Entity3d two) {
+        Cartesian3d positionOne = one.getPosition();
+        Cartesian3d positionTwo = two.getPosition();
+        Dimension3d sizeOne = one.getSize();
+        Dimension3d sizeTwo = two.getSize();
+        return intersects(positionOne.getX(), positionOne.getY(), positionOne.getZ(), sizeOne.getWidth(), sizeOne.getHeight(), sizeOne.getDepth(),
+                positionTwo.getX(), positionTwo.getY(), positionTwo.getZ(), sizeTwo.getWidth(), sizeTwo.getHeight(), sizeTwo.getDepth());
+    }
+
+    private static boolean intersects(double x1, double y1, double z1, double width1, double height1, double depth1,
+                                      double x2, double y2, double z2, double width2, double height2, double depth2) {
+        if (width1 <= 0 || height1 <= 0 || depth1 <= 0 || width2 <= 0 || height2 <= 0 || depth2 <= 0)
+            return false;
+        return x1 < x2 + width2 && x2 < x1 + width1 && y1 < y2 + height2 && y2 < y1 + height1 && z1 < z2 + depth2 && z2 < z1 + depth1;
+    }
+
+    /**
+     * Returns the entities which intersect the specified rectangular prism.
+     *
+     * @param prism the rectangular prism to check
+     * @return the entities intersecting the rectangular prism
+     */
+    public Entity3d[] query(RectangularPrism prism) {
+        List<Entity3d> entities = new ArrayList<>();
+        query(prism, entities::add);
+        return entities.toArray(new Entity3d[entities.size()]);
+    }
+
+    /**
+     * Reports each entity which intersects the specified rectangular prism.
+     *
+     * @param prism    the rectangular prism to check
+     * @param consumer the entity consumer
+     */
+    public void query(RectangularPrism prism, Consumer<Entity3d> consumer) {
+        if (prism == null)
+            return;
+        query(prism.getX(), prism.getY(), prism.getZ(), prism.getWidth(), prism.getHeight(), prism.getDepth(), consumer);
+    }
+
+    /**
+     * Reports each entity which intersects the specified rectangular prism.
+     * <p>
+     * Candidates are found through the scene broadphase using the bounds as of the last update, and then tested
+     * against the rectangular prism using their current position.
+     *
+     * @param x        the rectangular prism x-coordinate
+     * @param y        the rectangular prism y-coordinate
+     * @param z        the rectangular prism z-coordinate
+     * @param width    the rectangular prism width
+     * @param height   the rectangular prism height
+     * @param depth    the rectangular prism depth
+     * @param consumer the entity consumer
+     */
+    public void query(double x, double y, double z, double width, double height, double depth, Consumer<Entity3d> consumer) {
+        if (consumer == null)
+            return;
+        synchronized (entities) {
+            broadphase.query(x, y, z, width, height, depth, entity -> {
+                Cartesian3d position = entity.getPosition();
+                Dimension3d size = entity.getSize();
+                if (intersects(x, y, z, width, height, depth, position.getX(), position.getY(), position.getZ(), size.getWidth(), size.getHeight(), size.getDepth()))
+                    consumer.accept(entity);
+            });
+        }
+    }
+
+    /**
+     * Returns whether the scene contains the specified entity.
+     *
+     * @param entity the entity
+     * @return {@code true} if the scene contains the entity
+     */
+    public boolean contains(Entity3d entity) {
+        if (entity == null)
+            return false;
+        RectangularPrism bounds = getBounds();
+        return bounds != null && bounds.contains(entity.getPosition());
+    }
+
+    /**
+     * Returns the scene bounds.
+     *
+     * @return the scene bounds
+     */
+    public RectangularPrism getBounds() {
+        return bounds;
+    }
+}
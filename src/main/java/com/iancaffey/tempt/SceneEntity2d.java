@@ -91,14 +91,38 @@ public class SceneEntity2d extends Entity2d {
      * @param dy       the y-offset
      */
     public void render(Graphics graphics, int dx, int dy) {
-        Cartesian2d position = getMotion().getPosition();
+        render(graphics, getMotion().getPosition(), dx, dy);
+    }
+
+    /**
+     * Renders the scene entity as if it were at the specified position, offset by the specified amount.
+     *
+     * @param graphics the graphics context
+     * @param position the position to render at
+     * @param dx       the x-offset
+     * @param dy       the y-offset
+     */
+    public void render(Graphics graphics, Cartesian2d position, int dx, int dy) {
         if (position == null)
             return;
+        render(graphics, position.getX(), position.getY(), dx, dy);
+    }
+
+    /**
+     * Renders the scene entity as if it were at the specified coordinates, offset by the specified amount.
+     *
+     * @param graphics  the graphics context
+     * @param positionX the x-coordinate to render at
+     * @param positionY the y-coordinate to render at
+     * @param dx        the x-offset
+     * @param dy        the y-offset
+     */
+    public void render(Graphics graphics, double positionX, double positionY, int dx, int dy) {
         Dimension2d size = getSize();
         if (size == null)
             return;
-        int x = (int) Math.round(position.getX()) - dx;
-        int y = (int) Math.round(position.getY()) - dy;
+        int x = (int) Math.round(positionX) - dx;
+        int y = (int) Math.round(positionY) - dy;
         int width = (int) Math.round(size.getWidth());
         int height = (int) Math.round(size.getHeight());
         graphics.setClip(x, y, width, height);
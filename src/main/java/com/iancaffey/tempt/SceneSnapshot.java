@@ -0,0 +1,155 @@
+package com.iancaffey.tempt;
+
+/**
+ * SceneSnapshot
+ * <p>
+ * A representation of an immutable frame of a scene, holding the position and size of every scene entity as of the end
+ * of a single update or step.
+ * <p>
+ * Snapshots are published by the scene once they are complete and are never modified afterwards, so they may be read
+ * from any thread without locking while the scene continues to advance. Entities are addressed by their index within
+ * the snapshot, which is unrelated to their id.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ * @see Scene#getSnapshot()
+ */
+public final class SceneSnapshot {
+    private final long sequence;
+    private final SceneEntity2d[] entities;
+    private final double[] x;
+    private final double[] y;
+    private final double[] previousX;
+    private final double[] previousY;
+    private final double[] width;
+    private final double[] height;
+
+    /**
+     * Constructs a new {@code SceneSnapshot} taking ownership of the specified columns.
+     *
+     * @param sequence  the number of snapshots published before this one
+     * @param entities  the scene entities
+     * @param x         the x-coordinates
+     * @param y         the y-coordinates
+     * @param previousX the x-coordinates before the last step
+     * @param previousY the y-coordinates before the last step
+     * @param width     the widths
+     * @param height    the heights
+     */
+    SceneSnapshot(long sequence, SceneEntity2d[] entities, double[] x, double[] y, double[] previousX, double[] previousY, double[] width, double[] height) {
+        this.sequence = sequence;
+        this.entities = entities;
+        this.x = x;
+        this.y = y;
+        this.previousX = previousX;
+        this.previousY = previousY;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the number of snapshots the scene published before this one, which orders snapshots of the same scene.
+     *
+     * @return the snapshot sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of entities within the snapshot.
+     *
+     * @return the entity count
+     */
+    public int size() {
+        return entities.length;
+    }
+
+    /**
+     * Returns the entity at the specified index.
+     *
+     * @param index the index
+     * @return the scene entity
+     */
+    public SceneEntity2d getEntity(int index) {
+        check(index);
+        return entities[index];
+    }
+
+    /**
+     * Returns the x-coordinate of the entity at the specified index.
+     *
+     * @param index the index
+     * @return the entity x-coordinate
+     */
+    public double getX(int index) {
+        check(index);
+        return x[index];
+    }
+
+    /**
+     * Returns the y-coordinate of the entity at the specified index.
+     *
+     * @param index the index
+     * @return the entity y-coordinate
+     */
+    public double getY(int index) {
+        check(index);
+        return y[index];
+    }
+
+    /**
+     * Returns the x-coordinate of the entity at the specified index interpolated between its position before the step
+     * and its position within the snapshot.
+     *
+     * @param index the index
+     * @param alpha the interpolation factor, from {@code 0} for the previous position to {@code 1} for the snapshot
+     *              position
+     * @return the interpolated x-coordinate
+     */
+    public double getX(int index, double alpha) {
+        check(index);
+        return previousX[index] + (x[index] - previousX[index]) * alpha;
+    }
+
+    /**
+     * Returns the y-coordinate of the entity at the specified index interpolated between its position before the step
+     * and its position within the snapshot.
+     *
+     * @param index the index
+     * @param alpha the interpolation factor, from {@code 0} for the previous position to {@code 1} for the snapshot
+     *              position
+     * @return the interpolated y-coordinate
+     */
+    public double getY(int index, double alpha) {
+        check(index);
+        return previousY[index] + (y[index] - previousY[index]) * alpha;
+    }
+
+    /**
+     * Returns the width of the entity at the specified index.
+     *
+     * @param index the index
+     * @return the entity width
+     */
+    public double getWidth(int index) {
+        check(index);
+        return width[index];
+    }
+
+    /**
+     * Returns the height of the entity at the specified index.
+     *
+     * @param index the index
+     * @return the entity height
+     */
+    public double getHeight(int index) {
+        check(index);
+        return height[index];
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= entities.length)
+            throw new IllegalArgumentException();
+    }
+}
@@ -15,6 +15,7 @@ import java.awt.image.BufferedImage;
  */
 public class SceneView {
     private final Scene scene;
+    private FixedTimestep timestep;
     private BufferedImage image;
     private Color background;
 
@@ -51,9 +52,15 @@ public class SceneView {
 
     /**
      * Updates the scene and re-renders the scene.
+     * <p>
+     * If the view has a timestep, the scene is advanced by the fixed steps which have elapsed instead.
      */
     public void update() {
-        scene.update();
+        FixedTimestep timestep = getTimestep();
+        if (timestep == null)
+            scene.update();
+        else
+            timestep.advance();
         invalidate();
     }
 
@@ -66,6 +73,10 @@ public class SceneView {
 
     /**
      * Renders the scene to an image.
+     * <p>
+     * Entities are drawn from the latest scene snapshot, so rendering never waits on an update running on another
+     * thread. Their interpolated coordinates are read straight from the snapshot, and a single graphics context is
+     * shared by every entity, so no objects are created per entity.
      *
      * @return the newly rendered scene image
      */
@@ -77,14 +88,20 @@ public class SceneView {
         if (bounds == null)
             return null;
         image = new BufferedImage((int) Math.round(bounds.getWidth()), (int) Math.round(bounds.getHeight()), BufferedImage.TYPE_INT_ARGB);
+        Graphics graphics = image.getGraphics();
         Color background = getBackground();
         if (background != null) {
-            Graphics graphics = image.getGraphics();
             graphics.setColor(Color.BLACK);
             graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
         }
-        for (SceneEntity2d entity : scene.getEntities())
-            entity.render(image.getGraphics(), (int) Math.round(bounds.getX()), (int) Math.round(bounds.getY()));
+        FixedTimestep timestep = getTimestep();
+        double alpha = timestep == null ? 1 : timestep.getAlpha();
+        int dx = (int) Math.round(bounds.getX());
+        int dy = (int) Math.round(bounds.getY());
+        SceneSnapshot snapshot = scene.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++)
+            snapshot.getEntity(i).render(graphics, snapshot.getX(i, alpha), snapshot.getY(i, alpha), dx, dy);
+        graphics.dispose();
         this.image = image;
         return image;
     }
@@ -101,6 +118,26 @@ public class SceneView {
         graphics.drawImage(image, 0, 0, null);
     }
 
+    /**
+     * Returns the timestep used to advance the scene, whose interpolation factor is used when rendering.
+     *
+     * @return the timestep, or {@code null} if the scene is updated directly
+     */
+    public FixedTimestep getTimestep() {
+        return timestep;
+    }
+
+    /**
+     * Updates the timestep used to advance the scene.
+     *
+     * @param timestep the timestep, or {@code null} to update the scene directly
+     */
+    public void setTimestep(FixedTimestep timestep) {
+        if (timestep != null && timestep.getScene() != scene)
+            throw new IllegalArgumentException();
+        this.timestep = timestep;
+    }
+
     /**
      * Returns the scene view background color.
      *
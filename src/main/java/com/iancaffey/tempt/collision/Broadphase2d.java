@@ -0,0 +1,111 @@
+package com.iancaffey.tempt.collision;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Broadphase2d
+ * <p>
+ * A representation of a spatial index over 2-dimensional bounding boxes, used to find candidate collision pairs
+ * without testing every value against every other value.
+ * <p>
+ * Each value added to the index is assigned a proxy which must be used for subsequent moves and removal.
+ *
+ * @param <E> the type of value stored in the index
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public interface Broadphase2d<E> {
+    /**
+     * Adds the value to the index with the specified bounds.
+     *
+     * @param value  the value
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param width  the width
+     * @param height the height
+     * @return the proxy representing the value within the index
+     */
+    public int add(E value, double x, double y, double width, double height);
+
+    /**
+     * Updates the bounds of the specified proxy.
+     *
+     * @param proxy  the proxy
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param width  the width
+     * @param height the height
+     */
+    public void move(int proxy, double x, double y, double width, double height);
+
+    /**
+     * Removes the specified proxy from the index.
+     *
+     * @param proxy the proxy
+     */
+    public void remove(int proxy);
+
+    /**
+     * Returns the value represented by the specified proxy.
+     *
+     * @param proxy the proxy
+     * @return the proxy value
+     */
+    public E get(int proxy);
+
+    /**
+     * Removes all proxies from the index.
+     */
+    public void clear();
+
+    /**
+     * Reports every pair of values whose bounds overlap, each pair exactly once.
+     * <p>
+     * A {@code null} consumer only brings any incremental state of the index up to date with the current bounds.
+     *
+     * @param consumer the pair consumer, or {@code null}
+     */
+    public void findPairs(BiConsumer<E, E> consumer);
+
+    /**
+     * Reports every value whose bounds overlap the specified bounding box, each value exactly once.
+     *
+     * @param x        the x-coordinate
+     * @param y        the y-coordinate
+     * @param width    the width
+     * @param height   the height
+     * @param consumer the value consumer
+     */
+    public void query(double x, double y, double width, double height, Consumer<E> consumer);
+
+    /**
+     * Reports every value whose bounds are crossed by the specified ray, each value at most once.
+     * <p>
+     * Distances are measured in multiples of the direction. The maximum distance of the ray is replaced by the distance
+     * returned from each report, so values whose bounds are entered beyond it are no longer reported. Values are not
+     * necessarily reported in order of distance.
+     *
+     * @param x           the x-coordinate of the ray origin
+     * @param y           the y-coordinate of the ray origin
+     * @param directionX  the x component of the ray direction
+     * @param directionY  the y component of the ray direction
+     * @param maxDistance the maximum distance of the ray
+     * @param callback    the raycast callback
+     */
+    public void raycast(double x, double y, double directionX, double directionY, double maxDistance, RaycastCallback<E> callback);
+
+    /**
+     * Reports every value whose bounds lie within the specified distance of a point, each value at most once.
+     * <p>
+     * Distances are compared squared. The maximum squared distance is replaced by the squared distance returned from
+     * each report, so values whose bounds lie beyond it are no longer reported. Values are reported roughly nearest
+     * first so that the distance shrinks quickly, but not necessarily in order of distance.
+     *
+     * @param x                  the x-coordinate of the point
+     * @param y                  the y-coordinate of the point
+     * @param maxDistanceSquared the maximum squared distance
+     * @param callback           the proximity callback
+     */
+    public void nearest(double x, double y, double maxDistanceSquared, ProximityCallback<E> callback);
+}
@@ -0,0 +1,85 @@
+package com.iancaffey.tempt.collision;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Broadphase3d
+ * <p>
+ * A representation of a spatial index over 3-dimensional bounding boxes, used to find candidate collision pairs
+ * without testing every value against every other value.
+ * <p>
+ * Each value added to the index is assigned a proxy which must be used for subsequent moves and removal.
+ *
+ * @param <E> the type of value stored in the index
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public interface Broadphase3d<E> {
+    /**
+     * Adds the value to the index with the specified bounds.
+     *
+     * @param value  the value
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param z      the z-coordinate
+     * @param width  the width
+     * @param height the height
+     * @param depth  the depth
+     * @return the proxy representing the value within the index
+     */
+    public int add(E value, double x, double y, double z, double width, double height, double depth);
+
+    /**
+     * Updates the bounds of the specified proxy.
+     *
+     * @param proxy  the proxy
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param z      the z-coordinate
+     * @param width  the width
+     * @param height the height
+     * @param depth  the depth
+     */
+    public void move(int proxy, double x, double y, double z, double width, double height, double depth);
+
+    /**
+     * Removes the specified proxy from the index.
+     *
+     * @param proxy the proxy
+     */
+    public void remove(int proxy);
+
+    /**
+     * Returns the value represented by the specified proxy.
+     *
+     * @param proxy the proxy
+     * @return the proxy value
+     */
+    public E get(int proxy);
+
+    /**
+     * Removes all proxies from the index.
+     */
+    public void clear();
+
+    /**
+     * Reports every pair of values whose bounds overlap, each pair exactly once.
+     *
+     * @param consumer the pair consumer
+     */
+    public void findPairs(BiConsumer<E, E> consumer);
+
+    /**
+     * Reports every value whose bounds overlap the specified bounding box, each value exactly once.
+     *
+     * @param x        the x-coordinate
+     * @param y        the y-coordinate
+     * @param z        the z-coordinate
+     * @param width    the width
+     * @param height   the height
+     * @param depth    the depth
+     * @param consumer the value consumer
+     */
+    public void query(double x, double y, double z, double width, double height, double depth, Consumer<E> consumer);
+}
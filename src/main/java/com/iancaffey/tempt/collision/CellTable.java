@@ -0,0 +1,149 @@
+package com.iancaffey.tempt.collision;
+
+import java.util.Arrays;
+
+/**
+ * CellTable
+ * <p>
+ * A representation of the occupied cells of a grid, keyed by their packed cell coordinates.
+ * <p>
+ * Cells are stored in a primitive open-addressing table, so looking up a cell does not box its key. Every packed key
+ * is valid, so an empty slot is marked by the absence of a cell rather than by a reserved key. Removing a cell shifts
+ * back any later cells of the same probe sequence, as in {@link PairCache}, so no tombstones are left behind.
+ * <p>
+ * The slots may be scanned directly through {@link #length()} and {@link #get(int)}, as long as no cell is added or
+ * removed during the scan.
+ *
+ * @param <C> the type of cell stored in the table
+ * @author Ian Caffey
+ * @since 1.0
+ */
+final class CellTable<C> {
+    private long[] keys = new long[16];
+    private Object[] cells = new Object[16];
+    private int size;
+
+    /**
+     * Returns the number of cells in the table.
+     *
+     * @return the number of cells
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots in the table.
+     *
+     * @return the number of slots
+     */
+    int length() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the cell in the specified slot.
+     *
+     * @param slot the slot
+     * @return the cell, or {@code null} if the slot is empty
+     */
+    @SuppressWarnings("unchecked")
+    C get(int slot) {
+        return (C) cells[slot];
+    }
+
+    /**
+     * Returns the cell with the specified key.
+     *
+     * @param key the packed cell coordinates
+     * @return the cell, or {@code null} if the cell is not occupied
+     */
+    @SuppressWarnings("unchecked")
+    C find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            Object cell = cells[slot];
+            if (cell == null)
+                return null;
+            if (keys[slot] == key)
+                return (C) cell;
+        }
+    }
+
+    /**
+     * Adds a cell which is not yet in the table.
+     *
+     * @param key  the packed cell coordinates
+     * @param cell the cell
+     */
+    void add(long key, C cell) {
+        if ((size + 1) * 2 > keys.length)
+            resize(keys.length * 2);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (cells[slot] != null)
+            slot = (slot + 1) & mask;
+        keys[slot] = key;
+        cells[slot] = cell;
+        size++;
+    }
+
+    /**
+     * Removes the cell with the specified key.
+     *
+     * @param key the packed cell coordinates
+     */
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int hole = hash(key) & mask;
+        while (true) {
+            if (cells[hole] == null)
+                return;
+            if (keys[hole] == key)
+                break;
+            hole = (hole + 1) & mask;
+        }
+        int next = (hole + 1) & mask;
+        while (cells[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                cells[hole] = cells[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        cells[hole] = null;
+        size--;
+    }
+
+    /**
+     * Removes every cell from the table.
+     */
+    void clear() {
+        Arrays.fill(cells, null);
+        size = 0;
+    }
+
+    private void resize(int length) {
+        long[] oldKeys = keys;
+        Object[] oldCells = cells;
+        keys = new long[length];
+        cells = new Object[length];
+        int mask = length - 1;
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] == null)
+                continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (cells[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            cells[slot] = oldCells[i];
+        }
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
@@ -0,0 +1,526 @@
+package com.iancaffey.tempt.collision;
+
+import com.iancaffey.tempt.util.Motion;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * DynamicTree2d
+ * <p>
+ * A representation of a dynamic bounding volume tree broadphase over 2-dimensional bounding boxes.
+ * <p>
+ * Each leaf stores a fattened copy of its bounding box, so small moves that stay within the fattened box do not
+ * require the leaf to be re-inserted. Internal nodes are kept balanced with tree rotations as leaves are inserted
+ * and removed. Unlike a uniform grid, the tree does not degrade when the sizes of the indexed values vary widely.
+ *
+ * @param <E> the type of value stored in the index
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class DynamicTree2d<E> implements Broadphase2d<E> {
+    public static final double DEFAULT_MARGIN = 4;
+    private static final int NULL = -1;
+    private final double margin;
+    private Object[] values = new Object[16];
+    private int[] parent = new int[16];
+    private int[] child1 = new int[16];
+    private int[] child2 = new int[16];
+    private int[] height = new int[16];
+    private double[] minX = new double[16];
+    private double[] minY = new double[16];
+    private double[] maxX = new double[16];
+    private double[] maxY = new double[16];
+    private double[] tightMinX = new double[16];
+    private double[] tightMinY = new double[16];
+    private double[] tightMaxX = new double[16];
+    private double[] tightMaxY = new double[16];
+    private int[] stack = new int[64];
+    private int stackSize;
+    private int[] queue = new int[64];
+    private double[] queueDistances = new double[64];
+    private int queueSize;
+    private int root = NULL;
+    private int freeList = NULL;
+    private int capacity;
+
+    /**
+     * Constructs a new {@code DynamicTree2d} with the default margin.
+     */
+    public DynamicTree2d() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * Constructs a new {@code DynamicTree2d} with specified margin.
+     * <p>
+     * The margin is the distance each leaf bounding box is fattened by on every side.
+     *
+     * @param margin the leaf margin
+     */
+    public DynamicTree2d(double margin) {
+        if (!(margin >= 0) || Double.isInfinite(margin))
+            throw new IllegalArgumentException();
+        this.margin = margin;
+    }
+
+    /**
+     * Returns the distance each leaf bounding box is fattened by on every side.
+     *
+     * @return the leaf margin
+     */
+    public double getMargin() {
+        return margin;
+    }
+
+    /**
+     * Returns the height of the tree.
+     *
+     * @return the tree height
+     */
+    public int getHeight() {
+        return root == NULL ? 0 : height[root];
+    }
+
+    @Override
+    public int add(E value, double x, double y, double width, double height) {
+        if (value == null)
+            throw new IllegalArgumentException();
+        int leaf = allocate();
+        values[leaf] = value;
+        bound(leaf, x, y, width, height);
+        insert(leaf);
+        return leaf;
+    }
+
+    @Override
+    public void move(int proxy, double x, double y, double width, double height) {
+        check(proxy);
+        bound(proxy, x, y, width, height);
+        if (minX[proxy] <= tightMinX[proxy] && minY[proxy] <= tightMinY[proxy] && maxX[proxy] >= tightMaxX[proxy] && maxY[proxy] >= tightMaxY[proxy])
+            return;
+        detach(proxy);
+        insert(proxy);
+    }
+
+    @Override
+    public void remove(int proxy) {
+        check(proxy);
+        detach(proxy);
+        release(proxy);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int proxy) {
+        check(proxy);
+        return (E) values[proxy];
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, capacity, null);
+        root = NULL;
+        freeList = NULL;
+        capacity = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void findPairs(BiConsumer<E, E> consumer) {
+        if (consumer == null)
+            return;
+        for (int leaf = 0; leaf < capacity; leaf++) {
+            if (height[leaf] != 0 || values[leaf] == null)
+                continue;
+            double x1 = tightMinX[leaf];
+            double y1 = tightMinY[leaf];
+            double x2 = tightMaxX[leaf];
+            double y2 = tightMaxY[leaf];
+            int base = stackSize;
+            push(root);
+            while (stackSize > base) {
+                int node = stack[--stackSize];
+                if (x1 > maxX[node] || minX[node] > x2 || y1 > maxY[node] || minY[node] > y2)
+                    continue;
+                if (child1[node] != NULL) {
+                    push(child1[node]);
+                    push(child2[node]);
+                } else if (node > leaf && x1 <= tightMaxX[node] && tightMinX[node] <= x2 && y1 <= tightMaxY[node] && tightMinY[node] <= y2) {
+                    consumer.accept((E) values[leaf], (E) values[node]);
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(double x, double y, double width, double height, Consumer<E> consumer) {
+        if (consumer == null || root == NULL)
+            return;
+        double x2 = x + width;
+        double y2 = y + height;
+        int base = stackSize;
+        push(root);
+        while (stackSize > base) {
+            int node = stack[--stackSize];
+            if (x > maxX[node] || minX[node] > x2 || y > maxY[node] || minY[node] > y2)
+                continue;
+            if (child1[node] != NULL) {
+                push(child1[node]);
+                push(child2[node]);
+            } else if (x <= tightMaxX[node] && tightMinX[node] <= x2 && y <= tightMaxY[node] && tightMinY[node] <= y2) {
+                consumer.accept((E) values[node]);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Subtrees whose fattened bounds the ray misses, or enters beyond its current maximum distance, are skipped. The
+     * child nearer along the ray is visited first so that nearest hit queries clip the ray early.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void raycast(double x, double y, double directionX, double directionY, double maxDistance, RaycastCallback<E> callback) {
+        if (callback == null || root == NULL || !(maxDistance >= 0))
+            return;
+        int base = stackSize;
+        push(root);
+        while (stackSize > base) {
+            int node = stack[--stackSize];
+            if (Motion.getRayDistance(x, y, directionX, directionY, minX[node], minY[node], maxX[node], maxY[node], maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            int first = child1[node];
+            int second = child2[node];
+            if (first != NULL) {
+                double ahead = (minX[first] + maxX[first] - minX[second] - maxX[second]) * directionX
+                        + (minY[first] + maxY[first] - minY[second] - maxY[second]) * directionY;
+                push(ahead > 0 ? first : second);
+                push(ahead > 0 ? second : first);
+                continue;
+            }
+            double distance = Motion.getRayDistance(x, y, directionX, directionY, tightMinX[node], tightMinY[node], tightMaxX[node], tightMaxY[node], maxDistance);
+            if (distance == Double.POSITIVE_INFINITY)
+                continue;
+            maxDistance = callback.report((E) values[node], distance);
+            if (!(maxDistance >= 0)) {
+                stackSize = base;
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nodes are visited best-first from a priority queue ordered by the squared distance to their fattened bounds, so
+     * values are reported nearest first up to the fattening margin, and the search ends as soon as the nearest unvisited
+     * node lies beyond the maximum distance.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void nearest(double x, double y, double maxDistanceSquared, ProximityCallback<E> callback) {
+        if (callback == null || root == NULL || !(maxDistanceSquared >= 0))
+            return;
+        int base = queueSize;
+        offer(base, root, Motion.getDistanceSquared(x, y, minX[root], minY[root], maxX[root], maxY[root]));
+        while (queueSize > base && queueDistances[base] <= maxDistanceSquared) {
+            int node = poll(base);
+            int first = child1[node];
+            int second = child2[node];
+            if (first != NULL) {
+                double firstDistance = Motion.getDistanceSquared(x, y, minX[first], minY[first], maxX[first], maxY[first]);
+                double secondDistance = Motion.getDistanceSquared(x, y, minX[second], minY[second], maxX[second], maxY[second]);
+                if (firstDistance <= maxDistanceSquared)
+                    offer(base, first, firstDistance);
+                if (secondDistance <= maxDistanceSquared)
+                    offer(base, second, secondDistance);
+                continue;
+            }
+            double distance = Motion.getDistanceSquared(x, y, tightMinX[node], tightMinY[node], tightMaxX[node], tightMaxY[node]);
+            if (distance > maxDistanceSquared)
+                continue;
+            maxDistanceSquared = callback.report((E) values[node], distance);
+            if (!(maxDistanceSquared >= 0))
+                break;
+        }
+        queueSize = base;
+    }
+
+    /**
+     * Adds a node to the priority queue starting at the specified base.
+     */
+    private void offer(int base, int node, double distance) {
+        if (queueSize == queue.length) {
+            queue = Arrays.copyOf(queue, queueSize * 2);
+            queueDistances = Arrays.copyOf(queueDistances, queueSize * 2);
+        }
+        int index = queueSize++;
+        while (index > base) {
+            int parent = base + (index - base - 1) / 2;
+            if (queueDistances[parent] <= distance)
+                break;
+            queue[index] = queue[parent];
+            queueDistances[index] = queueDistances[parent];
+            index = parent;
+        }
+        queue[index] = node;
+        queueDistances[index] = distance;
+    }
+
+    /**
+     * Removes the nearest node from the priority queue starting at the specified base.
+     */
+    private int poll(int base) {
+        int node = queue[base];
+        int last = --queueSize;
+        int lastNode = queue[last];
+        double distance = queueDistances[last];
+        int index = base;
+        while (true) {
+            int child = base + (index - base) * 2 + 1;
+            if (child >= last)
+                break;
+            if (child + 1 < last && queueDistances[child + 1] < queueDistances[child])
+                child++;
+            if (distance <= queueDistances[child])
+                break;
+            queue[index] = queue[child];
+            queueDistances[index] = queueDistances[child];
+            index = child;
+        }
+        queue[index] = lastNode;
+        queueDistances[index] = distance;
+        return node;
+    }
+
+    private void push(int node) {
+        if (node == NULL)
+            return;
+        if (stackSize == stack.length)
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        stack[stackSize++] = node;
+    }
+
+    private int allocate() {
+        int node;
+        if (freeList != NULL) {
+            node = freeList;
+            freeList = parent[node];
+        } else {
+            if (capacity == values.length) {
+                int length = capacity * 2;
+                values = Arrays.copyOf(values, length);
+                parent = Arrays.copyOf(parent, length);
+                child1 = Arrays.copyOf(child1, length);
+                child2 = Arrays.copyOf(child2, length);
+                height = Arrays.copyOf(height, length);
+                minX = Arrays.copyOf(minX, length);
+                minY = Arrays.copyOf(minY, length);
+                maxX = Arrays.copyOf(maxX, length);
+                maxY = Arrays.copyOf(maxY, length);
+                tightMinX = Arrays.copyOf(tightMinX, length);
+                tightMinY = Arrays.copyOf(tightMinY, length);
+                tightMaxX = Arrays.copyOf(tightMaxX, length);
+                tightMaxY = Arrays.copyOf(tightMaxY, length);
+            }
+            node = capacity++;
+        }
+        parent[node] = NULL;
+        child1[node] = NULL;
+        child2[node] = NULL;
+        height[node] = 0;
+        values[node] = null;
+        return node;
+    }
+
+    private void release(int node) {
+        values[node] = null;
+        height[node] = -1;
+        parent[node] = freeList;
+        freeList = node;
+    }
+
+    private void check(int proxy) {
+        if (proxy < 0 || proxy >= capacity || height[proxy] != 0 || values[proxy] == null)
+            throw new IllegalArgumentException();
+    }
+
+    private void bound(int leaf, double x, double y, double width, double height) {
+        tightMinX[leaf] = x;
+        tightMinY[leaf] = y;
+        tightMaxX[leaf] = x + width;
+        tightMaxY[leaf] = y + height;
+    }
+
+    private void insert(int leaf) {
+        minX[leaf] = tightMinX[leaf] - margin;
+        minY[leaf] = tightMinY[leaf] - margin;
+        maxX[leaf] = tightMaxX[leaf] + margin;
+        maxY[leaf] = tightMaxY[leaf] + margin;
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+        int index = root;
+        while (child1[index] != NULL) {
+            int left = child1[index];
+            int right = child2[index];
+            double area = perimeter(index);
+            double combined = perimeter(index, leaf);
+            double cost = 2.0d * combined;
+            double inheritance = 2.0d * (combined - area);
+            double costLeft = perimeter(left, leaf) + inheritance - (child1[left] == NULL ? 0 : perimeter(left));
+            double costRight = perimeter(right, leaf) + inheritance - (child1[right] == NULL ? 0 : perimeter(right));
+            if (cost < costLeft && cost < costRight)
+                break;
+            index = costLeft < costRight ? left : right;
+        }
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocate();
+        parent[newParent] = oldParent;
+        height[newParent] = height[sibling] + 1;
+        union(newParent, sibling, leaf);
+        if (oldParent == NULL)
+            root = newParent;
+        else if (child1[oldParent] == sibling)
+            child1[oldParent] = newParent;
+        else
+            child2[oldParent] = newParent;
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+        refit(parent[leaf]);
+    }
+
+    private void detach(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+        int oldParent = parent[leaf];
+        int grandParent = parent[oldParent];
+        int sibling = child1[oldParent] == leaf ? child2[oldParent] : child1[oldParent];
+        if (grandParent == NULL) {
+            root = sibling;
+            parent[sibling] = NULL;
+            release(oldParent);
+            return;
+        }
+        if (child1[grandParent] == oldParent)
+            child1[grandParent] = sibling;
+        else
+            child2[grandParent] = sibling;
+        parent[sibling] = grandParent;
+        release(oldParent);
+        refit(grandParent);
+    }
+
+    private void refit(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int left = child1[index];
+            int right = child2[index];
+            height[index] = 1 + Math.max(height[left], height[right]);
+            union(index, left, right);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if the node is imbalanced.
+     *
+     * @param a the node to balance
+     * @return the new root of the balanced sub-tree
+     */
+    private int balance(int a) {
+        if (child1[a] == NULL || height[a] < 2)
+            return a;
+        int b = child1[a];
+        int c = child2[a];
+        int balance = height[c] - height[b];
+        if (balance > 1) {
+            int f = child1[c];
+            int g = child2[c];
+            child1[c] = a;
+            parent[c] = parent[a];
+            parent[a] = c;
+            replace(parent[c], a, c);
+            if (height[f] > height[g]) {
+                child2[c] = f;
+                child2[a] = g;
+                parent[g] = a;
+                union(a, b, g);
+                union(c, a, f);
+                height[a] = 1 + Math.max(height[b], height[g]);
+                height[c] = 1 + Math.max(height[a], height[f]);
+            } else {
+                child2[c] = g;
+                child2[a] = f;
+                parent[f] = a;
+                union(a, b, f);
+                union(c, a, g);
+                height[a] = 1 + Math.max(height[b], height[f]);
+                height[c] = 1 + Math.max(height[a], height[g]);
+            }
+            return c;
+        }
+        if (balance < -1) {
+            int d = child1[b];
+            int e = child2[b];
+            child1[b] = a;
+            parent[b] = parent[a];
+            parent[a] = b;
+            replace(parent[b], a, b);
+            if (height[d] > height[e]) {
+                child2[b] = d;
+                child1[a] = e;
+                parent[e] = a;
+                union(a, c, e);
+                union(b, a, d);
+                height[a] = 1 + Math.max(height[c], height[e]);
+                height[b] = 1 + Math.max(height[a], height[d]);
+            } else {
+                child2[b] = e;
+                child1[a] = d;
+                parent[d] = a;
+                union(a, c, d);
+                union(b, a, e);
+                height[a] = 1 + Math.max(height[c], height[d]);
+                height[b] = 1 + Math.max(height[a], height[e]);
+            }
+            return b;
+        }
+        return a;
+    }
+
+    private void replace(int node, int child, int replacement) {
+        if (node == NULL)
+            root = replacement;
+        else if (child1[node] == child)
+            child1[node] = replacement;
+        else
+            child2[node] = replacement;
+    }
+
+    private void union(int node, int a, int b) {
+        minX[node] = Math.min(minX[a], minX[b]);
+        minY[node] = Math.min(minY[a], minY[b]);
+        maxX[node] = Math.max(maxX[a], maxX[b]);
+        maxY[node] = Math.max(maxY[a], maxY[b]);
+    }
+
+    private double perimeter(int node) {
+        return 2.0d * ((maxX[node] - minX[node]) + (maxY[node] - minY[node]));
+    }
+
+    private double perimeter(int a, int b) {
+        return 2.0d * ((Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b])) + (Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b])));
+    }
+}
@@ -0,0 +1,28 @@
+package com.iancaffey.tempt.collision;
+
+/**
+ * OverlapListener
+ * <p>
+ * A listener which is notified when the bounds of two values in a broadphase begin or stop overlapping.
+ *
+ * @param <E> the type of value stored in the broadphase
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public interface OverlapListener<E> {
+    /**
+     * Invoked when the bounds of the two values begin overlapping.
+     *
+     * @param left  the left value
+     * @param right the right value
+     */
+    public void begin(E left, E right);
+
+    /**
+     * Invoked when the bounds of the two values stop overlapping, or one of them is removed.
+     *
+     * @param left  the left value
+     * @param right the right value
+     */
+    public void end(E left, E right);
+}
@@ -0,0 +1,440 @@
+package com.iancaffey.tempt.collision;
+
+import java.util.Arrays;
+
+/**
+ * PairCache
+ * <p>
+ * A representation of a cache of contact pairs, keyed by the packed indices of both sides of the pair.
+ * <p>
+ * Pairs are stored in a primitive open-addressing table. Each pair is touched while it is in contact, and pairs which
+ * are not touched during a step are ended by {@link #sweep(Visitor)}. This makes beginning, persisting, and ending a
+ * contact O(1) per pair without boxing. Each pair also stores a contact normal and its age in steps for later stages.
+ * <p>
+ * Each index also keeps a list of the indices it is paired with, so removing every pair of an index only visits the
+ * pairs of that index rather than the whole table.
+ * <p>
+ * Pairs are unordered, so {@code (a, b)} and {@code (b, a)} refer to the same pair, which always reports the lower
+ * index as its left side. Stored normals are expected to point from the left side towards the right side.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class PairCache {
+    public static final int ABSENT = -1;
+    public static final int BEGIN = 0;
+    public static final int PERSIST = 1;
+    public static final int END = 2;
+    private static final long EMPTY = -1L;
+    private long[] keys;
+    private int[] stamps;
+    private int[] ages;
+    private double[] normalX;
+    private double[] normalY;
+    private int[][] partners = new int[16][];
+    private int[] degrees = new int[16];
+    private int size;
+    private int step;
+
+    /**
+     * Constructs a new {@code PairCache} with a default initial capacity.
+     */
+    public PairCache() {
+        this(64);
+    }
+
+    /**
+     * Constructs a new {@code PairCache} with specified initial capacity.
+     *
+     * @param capacity the number of pairs to reserve space for
+     */
+    public PairCache(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException();
+        int length = Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1;
+        keys = new long[length];
+        Arrays.fill(keys, EMPTY);
+        stamps = new int[length];
+        ages = new int[length];
+        normalX = new double[length];
+        normalY = new double[length];
+    }
+
+    /**
+     * Returns the number of pairs in the cache.
+     *
+     * @return the number of pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of the specified pair.
+     *
+     * @param a the first index
+     * @param b the second index
+     * @return the slot of the pair, or {@link #ABSENT} if the pair is not cached
+     */
+    public int find(int a, int b) {
+        long key = key(a, b);
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key)
+                return slot;
+            if (current == EMPTY)
+                return ABSENT;
+        }
+    }
+
+    /**
+     * Marks the specified pair as in contact for the current step, adding it to the cache if it is not present.
+     *
+     * @param a the first index
+     * @param b the second index
+     * @return the slot of the pair
+     */
+    public int touch(int a, int b) {
+        if (a < 0 || b < 0 || a == b)
+            throw new IllegalArgumentException();
+        if ((size + 1) * 2 > keys.length)
+            resize(keys.length * 2);
+        long key = key(a, b);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            long current = keys[slot];
+            if (current == key)
+                break;
+            if (current == EMPTY) {
+                keys[slot] = key;
+                ages[slot] = 0;
+                normalX[slot] = 0;
+                normalY[slot] = 0;
+                size++;
+                link(a, b);
+                link(b, a);
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        stamps[slot] = step;
+        return slot;
+    }
+
+    /**
+     * Removes the specified pair from the cache.
+     *
+     * @param a the first index
+     * @param b the second index
+     * @return {@code true} if the pair was cached
+     */
+    public boolean remove(int a, int b) {
+        int slot = find(a, b);
+        if (slot == ABSENT)
+            return false;
+        delete(slot);
+        return true;
+    }
+
+    /**
+     * Returns the state of the pair in the specified slot.
+     * <p>
+     * A pair touched for the first time in the current step has begun, a pair touched in the current step and at least
+     * one previous step persists, and a pair which has not been touched in the current step is ending.
+     *
+     * @param slot the slot
+     * @return {@link #BEGIN}, {@link #PERSIST}, or {@link #END}
+     */
+    public int getState(int slot) {
+        if (stamps[slot] != step)
+            return END;
+        return ages[slot] == 0 ? BEGIN : PERSIST;
+    }
+
+    /**
+     * Returns the lower index of the pair in the specified slot.
+     *
+     * @param slot the slot
+     * @return the left index
+     */
+    public int getLeft(int slot) {
+        return (int) (keys[slot] >>> 32);
+    }
+
+    /**
+     * Returns the higher index of the pair in the specified slot.
+     *
+     * @param slot the slot
+     * @return the right index
+     */
+    public int getRight(int slot) {
+        return (int) keys[slot];
+    }
+
+    /**
+     * Returns the number of pairs which contain the specified index.
+     *
+     * @param index the index
+     * @return the number of pairs
+     */
+    public int getPartnerCount(int index) {
+        return index >= 0 && index < degrees.length ? degrees[index] : 0;
+    }
+
+    /**
+     * Returns the other index of a pair which contains the specified index.
+     * <p>
+     * The partners of an index are kept in no particular order, and removing a pair may reorder them.
+     *
+     * @param index the index
+     * @param i     the position of the partner, less than {@link #getPartnerCount(int)}
+     * @return the partner index
+     */
+    public int getPartner(int index, int i) {
+        if (i < 0 || i >= getPartnerCount(index))
+            throw new IndexOutOfBoundsException();
+        return partners[index][i];
+    }
+
+    /**
+     * Returns the number of completed steps the pair in the specified slot has been in contact for.
+     *
+     * @param slot the slot
+     * @return the pair age
+     */
+    public int getAge(int slot) {
+        return ages[slot];
+    }
+
+    /**
+     * Returns the x component of the contact normal stored for the pair in the specified slot.
+     *
+     * @param slot the slot
+     * @return the x component of the contact normal
+     */
+    public double getNormalX(int slot) {
+        return normalX[slot];
+    }
+
+    /**
+     * Returns the y component of the contact normal stored for the pair in the specified slot.
+     *
+     * @param slot the slot
+     * @return the y component of the contact normal
+     */
+    public double getNormalY(int slot) {
+        return normalY[slot];
+    }
+
+    /**
+     * Updates the contact normal stored for the pair in the specified slot.
+     * <p>
+     * The normal is expected to point from the left side of the pair, the lower index, towards the right side.
+     *
+     * @param slot the slot
+     * @param x    the x component of the contact normal
+     * @param y    the y component of the contact normal
+     */
+    public void setNormal(int slot, double x, double y) {
+        normalX[slot] = x;
+        normalY[slot] = y;
+    }
+
+    /**
+     * Ends the current step, removing every pair which was not touched during the step and ageing the rest.
+     *
+     * @param visitor the visitor notified of each ending pair before it is removed, or {@code null}
+     */
+    public void sweep(Visitor visitor) {
+        int mask = keys.length - 1;
+        int start = start();
+        int visited = 0;
+        while (visited < keys.length) {
+            int slot = (start + visited) & mask;
+            if (keys[slot] == EMPTY) {
+                visited++;
+                continue;
+            }
+            if (stamps[slot] == step) {
+                ages[slot]++;
+                visited++;
+                continue;
+            }
+            if (visitor != null)
+                visitor.visit(slot);
+            delete(slot);
+        }
+        step++;
+    }
+
+    /**
+     * Visits every pair in the cache.
+     *
+     * @param visitor the visitor
+     */
+    public void forEach(Visitor visitor) {
+        if (visitor == null)
+            throw new IllegalArgumentException();
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != EMPTY)
+                visitor.visit(slot);
+    }
+
+    /**
+     * Removes every pair which contains the specified index.
+     *
+     * @param index the index
+     */
+    public void removeAll(int index) {
+        removeAll(index, null);
+    }
+
+    /**
+     * Removes every pair which contains the specified index.
+     * <p>
+     * Only the pairs of the index are visited, through its list of partners.
+     *
+     * @param index   the index
+     * @param visitor the visitor notified of each pair before it is removed, or {@code null}
+     */
+    public void removeAll(int index, Visitor visitor) {
+        while (getPartnerCount(index) > 0) {
+            int slot = find(index, partners[index][degrees[index] - 1]);
+            if (visitor != null)
+                visitor.visit(slot);
+            delete(slot);
+        }
+    }
+
+    /**
+     * Removes every pair from the cache.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(degrees, 0);
+        size = 0;
+    }
+
+    /**
+     * Removes the pair in the specified slot, shifting back any later pairs in the same probe sequence so no
+     * tombstones are left behind.
+     *
+     * @param slot the slot
+     */
+    private void delete(int slot) {
+        unlink(getLeft(slot), getRight(slot));
+        unlink(getRight(slot), getLeft(slot));
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                stamps[hole] = stamps[next];
+                ages[hole] = ages[next];
+                normalX[hole] = normalX[next];
+                normalY[hole] = normalY[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    /**
+     * Returns the slot following the first empty slot, where a scan which deletes as it goes should begin.
+     * <p>
+     * Deleting a pair shifts later pairs of the same probe sequence back towards it, wrapping around the end of the
+     * table. Since no probe sequence crosses an empty slot, a scan which begins just after one and visits each slot
+     * once only ever shifts pairs into slots it has yet to visit, so every remaining pair is visited exactly once.
+     *
+     * @return the slot to begin scanning from
+     */
+    private int start() {
+        int slot = 0;
+        while (keys[slot] != EMPTY)
+            slot++;
+        return (slot + 1) & (keys.length - 1);
+    }
+
+    private void link(int index, int other) {
+        if (index >= degrees.length) {
+            int length = Math.max(degrees.length * 2, index + 1);
+            partners = Arrays.copyOf(partners, length);
+            degrees = Arrays.copyOf(degrees, length);
+        }
+        int[] others = partners[index];
+        if (others == null)
+            others = partners[index] = new int[4];
+        else if (degrees[index] == others.length)
+            others = partners[index] = Arrays.copyOf(others, others.length * 2);
+        others[degrees[index]++] = other;
+    }
+
+    private void unlink(int index, int other) {
+        int[] others = partners[index];
+        int degree = degrees[index];
+        for (int i = 0; i < degree; i++) {
+            if (others[i] == other) {
+                others[i] = others[degree - 1];
+                degrees[index] = degree - 1;
+                return;
+            }
+        }
+    }
+
+    private void resize(int length) {
+        long[] oldKeys = keys;
+        int[] oldStamps = stamps;
+        int[] oldAges = ages;
+        double[] oldNormalX = normalX;
+        double[] oldNormalY = normalY;
+        keys = new long[length];
+        Arrays.fill(keys, EMPTY);
+        stamps = new int[length];
+        ages = new int[length];
+        normalX = new double[length];
+        normalY = new double[length];
+        int mask = length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY)
+                continue;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+            stamps[slot] = oldStamps[i];
+            ages[slot] = oldAges[i];
+            normalX[slot] = oldNormalX[i];
+            normalY[slot] = oldNormalY[i];
+        }
+    }
+
+    private static long key(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Visitor
+     * <p>
+     * A callback which visits a single slot of a pair cache.
+     */
+    public interface Visitor {
+        /**
+         * Visits the pair in the specified slot.
+         *
+         * @param slot the slot
+         */
+        public void visit(int slot);
+    }
+}
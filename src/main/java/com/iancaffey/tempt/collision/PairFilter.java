@@ -0,0 +1,21 @@
+package com.iancaffey.tempt.collision;
+
+/**
+ * PairFilter
+ * <p>
+ * A filter which decides whether a candidate pair of values found by a broadphase should be tested for collision.
+ *
+ * @param <E> the type of value stored in the broadphase
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public interface PairFilter<E> {
+    /**
+     * Returns whether the two values should be tested for collision.
+     *
+     * @param left  the left value
+     * @param right the right value
+     * @return {@code true} if the pair should be tested
+     */
+    public boolean test(E left, E right);
+}
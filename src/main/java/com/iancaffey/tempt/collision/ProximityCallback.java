@@ -0,0 +1,25 @@
+package com.iancaffey.tempt.collision;
+
+/**
+ * ProximityCallback
+ * <p>
+ * A callback which is notified of each value whose bounds lie near a point searched through a broadphase.
+ * <p>
+ * The squared distance returned from each report bounds the rest of the search, which lets a k-nearest search skip
+ * every value lying beyond the k-th nearest value found so far.
+ *
+ * @param <E> the type of value stored in the broadphase
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public interface ProximityCallback<E> {
+    /**
+     * Invoked when the bounds of the value lie within the maximum distance of the point.
+     *
+     * @param value           the value
+     * @param distanceSquared the squared distance from the point to the bounds of the value, or {@code 0} if the point
+     *                        lies within them
+     * @return the new maximum squared distance of the search, or a negative distance to stop the search
+     */
+    public double report(E value, double distanceSquared);
+}
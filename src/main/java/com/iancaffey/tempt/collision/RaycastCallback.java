@@ -0,0 +1,25 @@
+package com.iancaffey.tempt.collision;
+
+/**
+ * RaycastCallback
+ * <p>
+ * A callback which is notified of each value whose bounds are crossed by a ray cast through a broadphase.
+ * <p>
+ * The distance returned from each report clips the ray, which lets a nearest hit query skip every value lying beyond
+ * the nearest hit found so far.
+ *
+ * @param <E> the type of value stored in the broadphase
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public interface RaycastCallback<E> {
+    /**
+     * Invoked when the ray crosses the bounds of the value.
+     *
+     * @param value    the value
+     * @param distance the distance along the ray at which it enters the bounds of the value, or {@code 0} if the ray
+     *                 starts within them
+     * @return the new maximum distance of the ray, or a negative distance to stop the raycast
+     */
+    public double report(E value, double distance);
+}
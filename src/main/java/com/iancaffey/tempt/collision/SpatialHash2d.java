@@ -0,0 +1,492 @@
+package com.iancaffey.tempt.collision;
+
+import com.iancaffey.tempt.util.Motion;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * SpatialHash2d
+ * <p>
+ * A representation of a uniform grid broadphase which buckets bounding boxes by the cells they overlap.
+ * <p>
+ * Proxies are only re-bucketed when the range of cells they cover changes, so entities moving within their cells
+ * cost a single bounds update. Bounding boxes covering more than {@link #MAX_PROXY_CELLS} cells are kept aside and
+ * tested against every other proxy instead of flooding the grid.
+ * <p>
+ * Cell coordinates are clamped to a fixed range, so far away bounds share the cells at the edge of the grid rather
+ * than overflowing the cell coordinates. Occupied cells are kept in a {@link CellTable}, so finding a cell does not
+ * allocate.
+ *
+ * @param <E> the type of value stored in the index
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SpatialHash2d<E> implements Broadphase2d<E> {
+    public static final double DEFAULT_CELL_SIZE = 64;
+    public static final int MAX_PROXY_CELLS = 64;
+    private static final int CELL_LIMIT = 1 << 20;
+    private final CellTable<Cell> cells = new CellTable<>();
+    private final Cell oversized = new Cell(0, 0);
+    private final double cellSize;
+    private final double inverseCellSize;
+    private Object[] values = new Object[16];
+    private double[] minX = new double[16];
+    private double[] minY = new double[16];
+    private double[] maxX = new double[16];
+    private double[] maxY = new double[16];
+    private int[] minCellX = new int[16];
+    private int[] minCellY = new int[16];
+    private int[] maxCellX = new int[16];
+    private int[] maxCellY = new int[16];
+    private boolean[] large = new boolean[16];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int capacity;
+
+    /**
+     * Constructs a new {@code SpatialHash2d} with the default cell size.
+     */
+    public SpatialHash2d() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code SpatialHash2d} with specified cell size.
+     * <p>
+     * The cell size must be positive and should be close to the size of a typical entity.
+     *
+     * @param cellSize the width and height of each cell
+     */
+    public SpatialHash2d(double cellSize) {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize))
+            throw new IllegalArgumentException();
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0d / cellSize;
+    }
+
+    /**
+     * Returns the width and height of each cell.
+     *
+     * @return the cell size
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    @Override
+    public int add(E value, double x, double y, double width, double height) {
+        if (value == null)
+            throw new IllegalArgumentException();
+        int proxy = allocate();
+        values[proxy] = value;
+        bound(proxy, x, y, width, height);
+        insert(proxy);
+        return proxy;
+    }
+
+    @Override
+    public void move(int proxy, double x, double y, double width, double height) {
+        check(proxy);
+        int cx1 = minCellX[proxy];
+        int cy1 = minCellY[proxy];
+        int cx2 = maxCellX[proxy];
+        int cy2 = maxCellY[proxy];
+        boolean wasLarge = large[proxy];
+        bound(proxy, x, y, width, height);
+        if (large[proxy] == wasLarge && (wasLarge || (cx1 == minCellX[proxy] && cy1 == minCellY[proxy] && cx2 == maxCellX[proxy] && cy2 == maxCellY[proxy])))
+            return;
+        evict(proxy, wasLarge, cx1, cy1, cx2, cy2);
+        insert(proxy);
+    }
+
+    @Override
+    public void remove(int proxy) {
+        check(proxy);
+        evict(proxy, large[proxy], minCellX[proxy], minCellY[proxy], maxCellX[proxy], maxCellY[proxy]);
+        values[proxy] = null;
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = proxy;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int proxy) {
+        check(proxy);
+        return (E) values[proxy];
+    }
+
+    @Override
+    public void clear() {
+        cells.clear();
+        oversized.size = 0;
+        Arrays.fill(values, 0, capacity, null);
+        freeCount = 0;
+        capacity = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void findPairs(BiConsumer<E, E> consumer) {
+        if (consumer == null)
+            return;
+        for (int slot = 0; slot < cells.length(); slot++) {
+            Cell cell = cells.get(slot);
+            if (cell == null)
+                continue;
+            int[] proxies = cell.proxies;
+            int size = cell.size;
+            for (int i = 0; i < size; i++) {
+                int a = proxies[i];
+                for (int j = i + 1; j < size; j++) {
+                    int b = proxies[j];
+                    if (cell.x != Math.max(minCellX[a], minCellX[b]) || cell.y != Math.max(minCellY[a], minCellY[b]))
+                        continue;
+                    if (overlaps(a, b))
+                        consumer.accept((E) values[a], (E) values[b]);
+                }
+            }
+        }
+        int[] proxies = oversized.proxies;
+        for (int i = 0; i < oversized.size; i++) {
+            int a = proxies[i];
+            for (int b = 0; b < capacity; b++) {
+                if (values[b] == null || b == a || (large[b] && b < a))
+                    continue;
+                if (overlaps(a, b))
+                    consumer.accept((E) values[a], (E) values[b]);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(double x, double y, double width, double height, Consumer<E> consumer) {
+        if (consumer == null)
+            return;
+        double x2 = x + width;
+        double y2 = y + height;
+        int cx1 = cell(x);
+        int cy1 = cell(y);
+        int cx2 = cell(x2);
+        int cy2 = cell(y2);
+        if (((long) cx2 - cx1 + 1) * ((long) cy2 - cy1 + 1) > cells.length()) {
+            for (int slot = 0; slot < cells.length(); slot++) {
+                Cell cell = cells.get(slot);
+                if (cell != null && cell.x >= cx1 && cell.x <= cx2 && cell.y >= cy1 && cell.y <= cy2)
+                    query(cell, cx1, cy1, x, y, x2, y2, consumer);
+            }
+        } else {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cy = cy1; cy <= cy2; cy++) {
+                    Cell cell = cells.find(key(cx, cy));
+                    if (cell != null)
+                        query(cell, cx1, cy1, x, y, x2, y2, consumer);
+                }
+            }
+        }
+        int[] proxies = oversized.proxies;
+        for (int i = 0; i < oversized.size; i++) {
+            int proxy = proxies[i];
+            if (x <= maxX[proxy] && minX[proxy] <= x2 && y <= maxY[proxy] && minY[proxy] <= y2)
+                consumer.accept((E) values[proxy]);
+        }
+    }
+
+    /**
+     * Reports the proxies of a single cell which overlap the query bounds.
+     * <p>
+     * A proxy spanning several cells is only reported from the first cell shared by the proxy and the query.
+     */
+    @SuppressWarnings("unchecked")
+    private void query(Cell cell, int cx1, int cy1, double x1, double y1, double x2, double y2, Consumer<E> consumer) {
+        int[] proxies = cell.proxies;
+        for (int i = 0; i < cell.size; i++) {
+            int proxy = proxies[i];
+            if (cell.x != Math.max(minCellX[proxy], cx1) || cell.y != Math.max(minCellY[proxy], cy1))
+                continue;
+            if (x1 <= maxX[proxy] && minX[proxy] <= x2 && y1 <= maxY[proxy] && minY[proxy] <= y2)
+                consumer.accept((E) values[proxy]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cells crossed by the ray are walked in order with a digital differential analyzer, stopping at the first cell
+     * entered beyond the maximum distance of the ray. A proxy spanning several cells is only reported from the first of
+     * its cells crossed by the ray. Rays crossing more cells than are occupied, or leaving the range of cells, test
+     * every proxy instead.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void raycast(double x, double y, double directionX, double directionY, double maxDistance, RaycastCallback<E> callback) {
+        if (callback == null || !(maxDistance >= 0))
+            return;
+        int[] proxies = oversized.proxies;
+        for (int i = 0; i < oversized.size && maxDistance >= 0; i++)
+            maxDistance = raycast(proxies[i], x, y, directionX, directionY, maxDistance, callback);
+        if (!(maxDistance >= 0))
+            return;
+        if (!((Math.abs(directionX) + Math.abs(directionY)) * maxDistance * inverseCellSize <= cells.size())
+                || isClamped(x) || isClamped(y) || isClamped(x + directionX * maxDistance) || isClamped(y + directionY * maxDistance)) {
+            for (int proxy = 0; proxy < capacity && maxDistance >= 0; proxy++)
+                if (values[proxy] != null && !large[proxy])
+                    maxDistance = raycast(proxy, x, y, directionX, directionY, maxDistance, callback);
+            return;
+        }
+        int cx = cell(x);
+        int cy = cell(y);
+        int stepX = directionX > 0 ? 1 : directionX < 0 ? -1 : 0;
+        int stepY = directionY > 0 ? 1 : directionY < 0 ? -1 : 0;
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(directionX);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(directionY);
+        double nextX = stepX == 0 ? Double.POSITIVE_INFINITY : ((stepX > 0 ? cx + 1 : cx) * cellSize - x) / directionX;
+        double nextY = stepY == 0 ? Double.POSITIVE_INFINITY : ((stepY > 0 ? cy + 1 : cy) * cellSize - y) / directionY;
+        int previousX = cx;
+        int previousY = cy;
+        boolean first = true;
+        double entry = 0;
+        while (entry <= maxDistance) {
+            Cell cell = cells.find(key(cx, cy));
+            if (cell != null) {
+                proxies = cell.proxies;
+                for (int i = 0; i < cell.size && maxDistance >= 0; i++) {
+                    int proxy = proxies[i];
+                    if (!first && previousX >= minCellX[proxy] && previousX <= maxCellX[proxy] && previousY >= minCellY[proxy] && previousY <= maxCellY[proxy])
+                        continue;
+                    maxDistance = raycast(proxy, x, y, directionX, directionY, maxDistance, callback);
+                }
+            }
+            previousX = cx;
+            previousY = cy;
+            first = false;
+            if (nextX < nextY) {
+                entry = nextX;
+                nextX += deltaX;
+                cx += stepX;
+            } else {
+                entry = nextY;
+                nextY += deltaY;
+                cy += stepY;
+            }
+        }
+    }
+
+    /**
+     * Reports the proxy if the ray crosses its bounds within the maximum distance.
+     *
+     * @return the new maximum distance of the ray
+     */
+    @SuppressWarnings("unchecked")
+    private double raycast(int proxy, double x, double y, double directionX, double directionY, double maxDistance, RaycastCallback<E> callback) {
+        double distance = Motion.getRayDistance(x, y, directionX, directionY, minX[proxy], minY[proxy], maxX[proxy], maxY[proxy], maxDistance);
+        if (distance == Double.POSITIVE_INFINITY)
+            return maxDistance;
+        return callback.report((E) values[proxy], distance);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Cells are searched in square rings expanding outward from the cell containing the point, stopping once the point
+     * is farther than the maximum distance from every cell not yet searched. A proxy is only reported from the cell of
+     * its range nearest to the point. Once more cells would be searched than are occupied, or if the point lies beyond
+     * the range of cells, the remaining proxies are tested directly instead.
+     */
+    @Override
+    public void nearest(double x, double y, double maxDistanceSquared, ProximityCallback<E> callback) {
+        if (callback == null || !(maxDistanceSquared >= 0))
+            return;
+        int[] proxies = oversized.proxies;
+        for (int i = 0; i < oversized.size && maxDistanceSquared >= 0; i++)
+            maxDistanceSquared = nearest(proxies[i], x, y, maxDistanceSquared, callback);
+        int cx = cell(x);
+        int cy = cell(y);
+        boolean clamped = isClamped(x) || isClamped(y);
+        int searched = 0;
+        for (int ring = 0; maxDistanceSquared >= 0; ring++) {
+            if (ring > 0) {
+                double inner = Math.min(Math.min(x - (cx - ring + 1) * cellSize, (cx + ring) * cellSize - x),
+                        Math.min(y - (cy - ring + 1) * cellSize, (cy + ring) * cellSize - y));
+                if (inner * inner > maxDistanceSquared)
+                    return;
+            }
+            if (clamped || searched >= cells.size()) {
+                for (int proxy = 0; proxy < capacity && maxDistanceSquared >= 0; proxy++)
+                    if (values[proxy] != null && !large[proxy] && getRing(proxy, cx, cy) >= ring)
+                        maxDistanceSquared = nearest(proxy, x, y, maxDistanceSquared, callback);
+                return;
+            }
+            for (int dx = -ring; dx <= ring && maxDistanceSquared >= 0; dx++) {
+                int step = dx == -ring || dx == ring ? 1 : ring * 2;
+                for (int dy = -ring; dy <= ring && maxDistanceSquared >= 0; dy += step) {
+                    searched++;
+                    Cell cell = cells.find(key(cx + dx, cy + dy));
+                    if (cell == null)
+                        continue;
+                    proxies = cell.proxies;
+                    for (int i = 0; i < cell.size && maxDistanceSquared >= 0; i++) {
+                        int proxy = proxies[i];
+                        if (cell.x == clamp(cx, minCellX[proxy], maxCellX[proxy]) && cell.y == clamp(cy, minCellY[proxy], maxCellY[proxy]))
+                            maxDistanceSquared = nearest(proxy, x, y, maxDistanceSquared, callback);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the proxy if its bounds lie within the maximum distance of the point.
+     *
+     * @return the new maximum squared distance of the search
+     */
+    @SuppressWarnings("unchecked")
+    private double nearest(int proxy, double x, double y, double maxDistanceSquared, ProximityCallback<E> callback) {
+        double distance = Motion.getDistanceSquared(x, y, minX[proxy], minY[proxy], maxX[proxy], maxY[proxy]);
+        if (distance > maxDistanceSquared)
+            return maxDistanceSquared;
+        return callback.report((E) values[proxy], distance);
+    }
+
+    /**
+     * Returns the ring of cells around the specified cell in which the range of cells of the proxy is first reached.
+     */
+    private int getRing(int proxy, int cx, int cy) {
+        return Math.max(Math.abs(clamp(cx, minCellX[proxy], maxCellX[proxy]) - cx), Math.abs(clamp(cy, minCellY[proxy], maxCellY[proxy]) - cy));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    private int allocate() {
+        if (freeCount > 0)
+            return free[--freeCount];
+        if (capacity == values.length) {
+            int length = capacity * 2;
+            values = Arrays.copyOf(values, length);
+            minX = Arrays.copyOf(minX, length);
+            minY = Arrays.copyOf(minY, length);
+            maxX = Arrays.copyOf(maxX, length);
+            maxY = Arrays.copyOf(maxY, length);
+            minCellX = Arrays.copyOf(minCellX, length);
+            minCellY = Arrays.copyOf(minCellY, length);
+            maxCellX = Arrays.copyOf(maxCellX, length);
+            maxCellY = Arrays.copyOf(maxCellY, length);
+            large = Arrays.copyOf(large, length);
+        }
+        return capacity++;
+    }
+
+    private void check(int proxy) {
+        if (proxy < 0 || proxy >= capacity || values[proxy] == null)
+            throw new IllegalArgumentException();
+    }
+
+    private void bound(int proxy, double x, double y, double width, double height) {
+        minX[proxy] = x;
+        minY[proxy] = y;
+        maxX[proxy] = x + width;
+        maxY[proxy] = y + height;
+        int cx1 = cell(x);
+        int cy1 = cell(y);
+        int cx2 = cell(x + width);
+        int cy2 = cell(y + height);
+        minCellX[proxy] = cx1;
+        minCellY[proxy] = cy1;
+        maxCellX[proxy] = cx2;
+        maxCellY[proxy] = cy2;
+        large[proxy] = ((long) cx2 - cx1 + 1) * ((long) cy2 - cy1 + 1) > MAX_PROXY_CELLS;
+    }
+
+    private int cell(double coordinate) {
+        double cell = Math.floor(coordinate * inverseCellSize);
+        return (int) Math.max(-CELL_LIMIT, Math.min(CELL_LIMIT - 1, cell));
+    }
+
+    /**
+     * Returns whether the coordinate lies beyond the range of cells, in which case its cell is clamped to the edge of
+     * the grid and does not contain it.
+     */
+    private boolean isClamped(double coordinate) {
+        double cell = Math.floor(coordinate * inverseCellSize);
+        return !(cell >= -CELL_LIMIT && cell < CELL_LIMIT);
+    }
+
+    private void insert(int proxy) {
+        if (large[proxy]) {
+            oversized.add(proxy);
+            return;
+        }
+        for (int cx = minCellX[proxy]; cx <= maxCellX[proxy]; cx++) {
+            for (int cy = minCellY[proxy]; cy <= maxCellY[proxy]; cy++) {
+                long key = key(cx, cy);
+                Cell cell = cells.find(key);
+                if (cell == null) {
+                    cell = new Cell(cx, cy);
+                    cells.add(key, cell);
+                }
+                cell.add(proxy);
+            }
+        }
+    }
+
+    private void evict(int proxy, boolean wasLarge, int cx1, int cy1, int cx2, int cy2) {
+        if (wasLarge) {
+            oversized.remove(proxy);
+            return;
+        }
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cy = cy1; cy <= cy2; cy++) {
+                long key = key(cx, cy);
+                Cell cell = cells.find(key);
+                if (cell != null && cell.remove(proxy) && cell.size == 0)
+                    cells.remove(key);
+            }
+        }
+    }
+
+    private boolean overlaps(int a, int b) {
+        return minX[a] <= maxX[b] && minX[b] <= maxX[a] && minY[a] <= maxY[b] && minY[b] <= maxY[a];
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Cell
+     * <p>
+     * A representation of a single grid cell and the proxies bucketed within it.
+     */
+    private static final class Cell {
+        private final int x;
+        private final int y;
+        private int[] proxies = new int[4];
+        private int size;
+
+        private Cell(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        private void add(int proxy) {
+            if (size == proxies.length)
+                proxies = Arrays.copyOf(proxies, size * 2);
+            proxies[size++] = proxy;
+        }
+
+        private boolean remove(int proxy) {
+            for (int i = 0; i < size; i++) {
+                if (proxies[i] == proxy) {
+                    proxies[i] = proxies[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
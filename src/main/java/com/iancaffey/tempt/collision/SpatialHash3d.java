@@ -0,0 +1,364 @@
+package com.iancaffey.tempt.collision;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * SpatialHash3d
+ * <p>
+ * A representation of a uniform grid broadphase which buckets bounding cubes by the cells they overlap.
+ * <p>
+ * Proxies are only re-bucketed when the range of cells they cover changes, so entities moving within their cells
+ * cost a single bounds update. Bounding cubes covering more than {@link #MAX_PROXY_CELLS} cells are kept aside and
+ * tested against every other proxy instead of flooding the grid. Occupied cells are kept in a {@link CellTable}, so
+ * finding a cell does not allocate. Cell counts are multiplied as doubles, since the number of cells spanned by the
+ * full range of cell coordinates overflows a {@code long}.
+ *
+ * @param <E> the type of value stored in the index
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SpatialHash3d<E> implements Broadphase3d<E> {
+    public static final double DEFAULT_CELL_SIZE = 64;
+    public static final int MAX_PROXY_CELLS = 256;
+    private static final int CELL_LIMIT = 1 << 20;
+    private final CellTable<Cell> cells = new CellTable<>();
+    private final Cell oversized = new Cell(0, 0, 0);
+    private final double cellSize;
+    private final double inverseCellSize;
+    private Object[] values = new Object[16];
+    private double[] minX = new double[16];
+    private double[] minY = new double[16];
+    private double[] minZ = new double[16];
+    private double[] maxX = new double[16];
+    private double[] maxY = new double[16];
+    private double[] maxZ = new double[16];
+    private int[] minCellX = new int[16];
+    private int[] minCellY = new int[16];
+    private int[] minCellZ = new int[16];
+    private int[] maxCellX = new int[16];
+    private int[] maxCellY = new int[16];
+    private int[] maxCellZ = new int[16];
+    private boolean[] large = new boolean[16];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int capacity;
+
+    /**
+     * Constructs a new {@code SpatialHash3d} with the default cell size.
+     */
+    public SpatialHash3d() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code SpatialHash3d} with specified cell size.
+     * <p>
+     * The cell size must be positive and should be close to the size of a typical entity.
+     *
+     * @param cellSize the width, height, and depth of each cell
+     */
+    public SpatialHash3d(double cellSize) {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize))
+            throw new IllegalArgumentException();
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0d / cellSize;
+    }
+
+    /**
+     * Returns the width, height, and depth of each cell.
+     *
+     * @return the cell size
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    @Override
+    public int add(E value, double x, double y, double z, double width, double height, double depth) {
+        if (value == null)
+            throw new IllegalArgumentException();
+        int proxy = allocate();
+        values[proxy] = value;
+        bound(proxy, x, y, z, width, height, depth);
+        insert(proxy);
+        return proxy;
+    }
+
+    @Override
+    public void move(int proxy, double x, double y, double z, double width, double height, double depth) {
+        check(proxy);
+        int cx1 = minCellX[proxy];
+        int cy1 = minCellY[proxy];
+        int cz1 = minCellZ[proxy];
+        int cx2 = maxCellX[proxy];
+        int cy2 = maxCellY[proxy];
+        int cz2 = maxCellZ[proxy];
+        boolean wasLarge = large[proxy];
+        bound(proxy, x, y, z, width, height, depth);
+        if (large[proxy] == wasLarge && (wasLarge || (cx1 == minCellX[proxy] && cy1 == minCellY[proxy] && cz1 == minCellZ[proxy] &&
+                cx2 == maxCellX[proxy] && cy2 == maxCellY[proxy] && cz2 == maxCellZ[proxy])))
+            return;
+        evict(proxy, wasLarge, cx1, cy1, cz1, cx2, cy2, cz2);
+        insert(proxy);
+    }
+
+    @Override
+    public void remove(int proxy) {
+        check(proxy);
+        evict(proxy, large[proxy], minCellX[proxy], minCellY[proxy], minCellZ[proxy], maxCellX[proxy], maxCellY[proxy], maxCellZ[proxy]);
+        values[proxy] = null;
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = proxy;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int proxy) {
+        check(proxy);
+        return (E) values[proxy];
+    }
+
+    @Override
+    public void clear() {
+        cells.clear();
+        oversized.size = 0;
+        Arrays.fill(values, 0, capacity, null);
+        freeCount = 0;
+        capacity = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void findPairs(BiConsumer<E, E> consumer) {
+        if (consumer == null)
+            return;
+        for (int slot = 0; slot < cells.length(); slot++) {
+            Cell cell = cells.get(slot);
+            if (cell == null)
+                continue;
+            int[] proxies = cell.proxies;
+            int size = cell.size;
+            for (int i = 0; i < size; i++) {
+                int a = proxies[i];
+                for (int j = i + 1; j < size; j++) {
+                    int b = proxies[j];
+                    if (cell.x != Math.max(minCellX[a], minCellX[b]) || cell.y != Math.max(minCellY[a], minCellY[b]) ||
+                            cell.z != Math.max(minCellZ[a], minCellZ[b]))
+                        continue;
+                    if (overlaps(a, b))
+                        consumer.accept((E) values[a], (E) values[b]);
+                }
+            }
+        }
+        int[] proxies = oversized.proxies;
+        for (int i = 0; i < oversized.size; i++) {
+            int a = proxies[i];
+            for (int b = 0; b < capacity; b++) {
+                if (values[b] == null || b == a || (large[b] && b < a))
+                    continue;
+                if (overlaps(a, b))
+                    consumer.accept((E) values[a], (E) values[b]);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(double x, double y, double z, double width, double height, double depth, Consumer<E> consumer) {
+        if (consumer == null)
+            return;
+        double x2 = x + width;
+        double y2 = y + height;
+        double z2 = z + depth;
+        int cx1 = cell(x);
+        int cy1 = cell(y);
+        int cz1 = cell(z);
+        int cx2 = cell(x2);
+        int cy2 = cell(y2);
+        int cz2 = cell(z2);
+        if ((cx2 - cx1 + 1.0d) * (cy2 - cy1 + 1.0d) * (cz2 - cz1 + 1.0d) > cells.length()) {
+            for (int slot = 0; slot < cells.length(); slot++) {
+                Cell cell = cells.get(slot);
+                if (cell != null && cell.x >= cx1 && cell.x <= cx2 && cell.y >= cy1 && cell.y <= cy2 && cell.z >= cz1 && cell.z <= cz2)
+                    query(cell, cx1, cy1, cz1, x, y, z, x2, y2, z2, consumer);
+            }
+        } else {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cy = cy1; cy <= cy2; cy++) {
+                    for (int cz = cz1; cz <= cz2; cz++) {
+                        Cell cell = cells.find(key(cx, cy, cz));
+                        if (cell != null)
+                            query(cell, cx1, cy1, cz1, x, y, z, x2, y2, z2, consumer);
+                    }
+                }
+            }
+        }
+        int[] proxies = oversized.proxies;
+        for (int i = 0; i < oversized.size; i++) {
+            int proxy = proxies[i];
+            if (x <= maxX[proxy] && minX[proxy] <= x2 && y <= maxY[proxy] && minY[proxy] <= y2 && z <= maxZ[proxy] && minZ[proxy] <= z2)
+                consumer.accept((E) values[proxy]);
+        }
+    }
+
+    /**
+     * Reports the proxies of a single cell which overlap the query bounds.
+     * <p>
+     * A proxy spanning several cells is only reported from the first cell shared by the proxy and the query.
+     */
+    @SuppressWarnings("unchecked")
+    private void query(Cell cell, int cx1, int cy1, int cz1, double x1, double y1, double z1, double x2, double y2, double z2, Consumer<E> consumer) {
+        int[] proxies = cell.proxies;
+        for (int i = 0; i < cell.size; i++) {
+            int proxy = proxies[i];
+            if (cell.x != Math.max(minCellX[proxy], cx1) || cell.y != Math.max(minCellY[proxy], cy1) || cell.z != Math.max(minCellZ[proxy], cz1))
+                continue;
+            if (x1 <= maxX[proxy] && minX[proxy] <= x2 && y1 <= maxY[proxy] && minY[proxy] <= y2 && z1 <= maxZ[proxy] && minZ[proxy] <= z2)
+                consumer.accept((E) values[proxy]);
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0)
+            return free[--freeCount];
+        if (capacity == values.length) {
+            int length = capacity * 2;
+            values = Arrays.copyOf(values, length);
+            minX = Arrays.copyOf(minX, length);
+            minY = Arrays.copyOf(minY, length);
+            minZ = Arrays.copyOf(minZ, length);
+            maxX = Arrays.copyOf(maxX, length);
+            maxY = Arrays.copyOf(maxY, length);
+            maxZ = Arrays.copyOf(maxZ, length);
+            minCellX = Arrays.copyOf(minCellX, length);
+            minCellY = Arrays.copyOf(minCellY, length);
+            minCellZ = Arrays.copyOf(minCellZ, length);
+            maxCellX = Arrays.copyOf(maxCellX, length);
+            maxCellY = Arrays.copyOf(maxCellY, length);
+            maxCellZ = Arrays.copyOf(maxCellZ, length);
+            large = Arrays.copyOf(large, length);
+        }
+        return capacity++;
+    }
+
+    private void check(int proxy) {
+        if (proxy < 0 || proxy >= capacity || values[proxy] == null)
+            throw new IllegalArgumentException();
+    }
+
+    private void bound(int proxy, double x, double y, double z, double width, double height, double depth) {
+        minX[proxy] = x;
+        minY[proxy] = y;
+        minZ[proxy] = z;
+        maxX[proxy] = x + width;
+        maxY[proxy] = y + height;
+        maxZ[proxy] = z + depth;
+        int cx1 = cell(x);
+        int cy1 = cell(y);
+        int cz1 = cell(z);
+        int cx2 = cell(x + width);
+        int cy2 = cell(y + height);
+        int cz2 = cell(z + depth);
+        minCellX[proxy] = cx1;
+        minCellY[proxy] = cy1;
+        minCellZ[proxy] = cz1;
+        maxCellX[proxy] = cx2;
+        maxCellY[proxy] = cy2;
+        maxCellZ[proxy] = cz2;
+        large[proxy] = (cx2 - cx1 + 1.0d) * (cy2 - cy1 + 1.0d) * (cz2 - cz1 + 1.0d) > MAX_PROXY_CELLS;
+    }
+
+    /**
+     * Returns the cell containing the coordinate, clamped so that cell coordinates fit within the packed cell keys.
+     *
+     * @param coordinate the coordinate
+     * @return the cell coordinate
+     */
+    private int cell(double coordinate) {
+        double cell = Math.floor(coordinate * inverseCellSize);
+        return (int) Math.max(-CELL_LIMIT, Math.min(CELL_LIMIT - 1, cell));
+    }
+
+    private void insert(int proxy) {
+        if (large[proxy]) {
+            oversized.add(proxy);
+            return;
+        }
+        for (int cx = minCellX[proxy]; cx <= maxCellX[proxy]; cx++) {
+            for (int cy = minCellY[proxy]; cy <= maxCellY[proxy]; cy++) {
+                for (int cz = minCellZ[proxy]; cz <= maxCellZ[proxy]; cz++) {
+                    long key = key(cx, cy, cz);
+                    Cell cell = cells.find(key);
+                    if (cell == null) {
+                        cell = new Cell(cx, cy, cz);
+                        cells.add(key, cell);
+                    }
+                    cell.add(proxy);
+                }
+            }
+        }
+    }
+
+    private void evict(int proxy, boolean wasLarge, int cx1, int cy1, int cz1, int cx2, int cy2, int cz2) {
+        if (wasLarge) {
+            oversized.remove(proxy);
+            return;
+        }
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cy = cy1; cy <= cy2; cy++) {
+                for (int cz = cz1; cz <= cz2; cz++) {
+                    long key = key(cx, cy, cz);
+                    Cell cell = cells.find(key);
+                    if (cell != null && cell.remove(proxy) && cell.size == 0)
+                        cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private boolean overlaps(int a, int b) {
+        return minX[a] <= maxX[b] && minX[b] <= maxX[a] && minY[a] <= maxY[b] && minY[b] <= maxY[a] && minZ[a] <= maxZ[b] && minZ[b] <= maxZ[a];
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((long) (cx & 0x1FFFFF) << 42) | ((long) (cy & 0x1FFFFF) << 21) | (cz & 0x1FFFFF);
+    }
+
+    /**
+     * Cell
+     * <p>
+     * A representation of a single grid cell and the proxies bucketed within it.
+     */
+    private static final class Cell {
+        private final int x;
+        private final int y;
+        private final int z;
+        private int[] proxies = new int[4];
+        private int size;
+
+        private Cell(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private void add(int proxy) {
+            if (size == proxies.length)
+                proxies = Arrays.copyOf(proxies, size * 2);
+            proxies[size++] = proxy;
+        }
+
+        private boolean remove(int proxy) {
+            for (int i = 0; i < size; i++) {
+                if (proxies[i] == proxy) {
+                    proxies[i] = proxies[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
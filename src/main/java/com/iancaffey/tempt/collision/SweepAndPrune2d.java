@@ -0,0 +1,377 @@
+package com.iancaffey.tempt.collision;
+
+import com.iancaffey.tempt.util.Motion;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * SweepAndPrune2d
+ * <p>
+ * A representation of a sort-and-sweep broadphase which keeps the bounding box endpoints sorted along each axis.
+ * <p>
+ * The endpoints are re-sorted with an insertion sort before pairs are reported, which is close to linear when values
+ * only move a little between updates. Every swap of a minimum and maximum endpoint is used to maintain the set of
+ * overlapping pairs incrementally, notifying the {@link OverlapListener} as pairs begin and stop overlapping.
+ * <p>
+ * The endpoints are only sorted by {@link #findPairs(BiConsumer)}, so queries never change the overlapping pairs.
+ * Queries visit values in order of their minimum x-coordinate while the endpoints are still sorted, and scan every
+ * value once a value has been added or moved since the last sort.
+ * <p>
+ * Overlapping pairs are kept in a {@link PairCache}, whose lists of partners for each value let removing a value end
+ * only its own pairs. The endpoints of removed values are left in place and dropped by the next sort, or sooner
+ * once they make up half of the endpoints, and their proxies are not reused until then.
+ *
+ * @param <E> the type of value stored in the index
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SweepAndPrune2d<E> implements Broadphase2d<E> {
+    private final PairCache pairs = new PairCache();
+    private Object[] values = new Object[16];
+    private double[] minX = new double[16];
+    private double[] minY = new double[16];
+    private double[] maxX = new double[16];
+    private double[] maxY = new double[16];
+    private int[] endpointsX = new int[32];
+    private int[] endpointsY = new int[32];
+    private int endpoints;
+    private int[] free = new int[16];
+    private int freeCount;
+    private int[] removed = new int[16];
+    private int removedCount;
+    private int capacity;
+    private boolean sorted = true;
+    private OverlapListener<E> listener;
+
+    /**
+     * Constructs a new {@code SweepAndPrune2d} with no listener.
+     */
+    public SweepAndPrune2d() {
+        this(null);
+    }
+
+    /**
+     * Constructs a new {@code SweepAndPrune2d} with specified listener.
+     *
+     * @param listener the overlap listener
+     */
+    public SweepAndPrune2d(OverlapListener<E> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the listener notified as pairs begin and stop overlapping.
+     *
+     * @return the overlap listener
+     */
+    public OverlapListener<E> getListener() {
+        return listener;
+    }
+
+    /**
+     * Updates the listener notified as pairs begin and stop overlapping.
+     *
+     * @param listener the overlap listener
+     */
+    public void setListener(OverlapListener<E> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public int add(E value, double x, double y, double width, double height) {
+        if (value == null)
+            throw new IllegalArgumentException();
+        int proxy = allocate();
+        values[proxy] = value;
+        bound(proxy, x, y, width, height);
+        if (endpoints + 2 > endpointsX.length) {
+            endpointsX = Arrays.copyOf(endpointsX, endpointsX.length * 2);
+            endpointsY = Arrays.copyOf(endpointsY, endpointsY.length * 2);
+        }
+        endpointsX[endpoints] = proxy << 1;
+        endpointsY[endpoints] = proxy << 1;
+        endpointsX[endpoints + 1] = (proxy << 1) | 1;
+        endpointsY[endpoints + 1] = (proxy << 1) | 1;
+        endpoints += 2;
+        sorted = false;
+        return proxy;
+    }
+
+    @Override
+    public void move(int proxy, double x, double y, double width, double height) {
+        check(proxy);
+        bound(proxy, x, y, width, height);
+        sorted = false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void remove(int proxy) {
+        check(proxy);
+        int count;
+        while ((count = pairs.getPartnerCount(proxy)) > 0) {
+            int other = pairs.getPartner(proxy, count - 1);
+            pairs.remove(proxy, other);
+            if (listener != null)
+                listener.end((E) values[Math.min(proxy, other)], (E) values[Math.max(proxy, other)]);
+        }
+        values[proxy] = null;
+        if (removedCount == removed.length)
+            removed = Arrays.copyOf(removed, removedCount * 2);
+        removed[removedCount++] = proxy;
+        if (removedCount * 4 > endpoints)
+            purge();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int proxy) {
+        check(proxy);
+        return (E) values[proxy];
+    }
+
+    @Override
+    public void clear() {
+        pairs.clear();
+        Arrays.fill(values, 0, capacity, null);
+        endpoints = 0;
+        freeCount = 0;
+        removedCount = 0;
+        capacity = 0;
+        sorted = true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void findPairs(BiConsumer<E, E> consumer) {
+        sort(endpointsX, minX, maxX);
+        endpoints = sort(endpointsY, minY, maxY);
+        release();
+        sorted = true;
+        if (consumer == null)
+            return;
+        for (int proxy = 0; proxy < capacity; proxy++) {
+            int count = pairs.getPartnerCount(proxy);
+            for (int i = 0; i < count; i++) {
+                int other = pairs.getPartner(proxy, i);
+                if (other > proxy)
+                    consumer.accept((E) values[proxy], (E) values[other]);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(double x, double y, double width, double height, Consumer<E> consumer) {
+        if (consumer == null)
+            return;
+        double x2 = x + width;
+        double y2 = y + height;
+        boolean sorted = this.sorted;
+        int visits = sorted ? endpoints : capacity;
+        for (int i = 0; i < visits; i++) {
+            int proxy = visit(sorted, i);
+            if (proxy < 0)
+                continue;
+            if (minX[proxy] > x2) {
+                if (sorted)
+                    break;
+                continue;
+            }
+            if (x <= maxX[proxy] && y <= maxY[proxy] && minY[proxy] <= y2)
+                consumer.accept((E) values[proxy]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * While the endpoints are sorted, values are visited in order of their minimum x-coordinate, stopping at the first
+     * value which begins beyond the horizontal extent of the ray.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void raycast(double x, double y, double directionX, double directionY, double maxDistance, RaycastCallback<E> callback) {
+        if (callback == null || !(maxDistance >= 0))
+            return;
+        boolean sorted = this.sorted;
+        int visits = sorted ? endpoints : capacity;
+        for (int i = 0; i < visits; i++) {
+            int proxy = visit(sorted, i);
+            if (proxy < 0)
+                continue;
+            if (sorted && minX[proxy] > (directionX > 0 ? x + directionX * maxDistance : x))
+                break;
+            double distance = Motion.getRayDistance(x, y, directionX, directionY, minX[proxy], minY[proxy], maxX[proxy], maxY[proxy], maxDistance);
+            if (distance == Double.POSITIVE_INFINITY)
+                continue;
+            maxDistance = callback.report((E) values[proxy], distance);
+            if (!(maxDistance >= 0))
+                return;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * While the endpoints are sorted, values are visited in order of their minimum x-coordinate, stopping at the first
+     * value which begins beyond the maximum distance to the right of the point.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void nearest(double x, double y, double maxDistanceSquared, ProximityCallback<E> callback) {
+        if (callback == null || !(maxDistanceSquared >= 0))
+            return;
+        boolean sorted = this.sorted;
+        int visits = sorted ? endpoints : capacity;
+        for (int i = 0; i < visits; i++) {
+            int proxy = visit(sorted, i);
+            if (proxy < 0)
+                continue;
+            double gap = minX[proxy] - x;
+            if (sorted && gap > 0 && gap * gap > maxDistanceSquared)
+                break;
+            double distance = Motion.getDistanceSquared(x, y, minX[proxy], minY[proxy], maxX[proxy], maxY[proxy]);
+            if (distance > maxDistanceSquared)
+                continue;
+            maxDistanceSquared = callback.report((E) values[proxy], distance);
+            if (!(maxDistanceSquared >= 0))
+                return;
+        }
+    }
+
+    /**
+     * Returns the proxy visited at the specified position of a query. Sorted queries visit the minimum endpoints along
+     * the x-axis, and unsorted queries visit the proxies in order. Removed values are skipped either way.
+     *
+     * @param sorted whether the endpoints are sorted
+     * @param index  the position
+     * @return the proxy, or {@code -1} if there is no value to visit at the position
+     */
+    private int visit(boolean sorted, int index) {
+        if (!sorted)
+            return values[index] == null ? -1 : index;
+        int endpoint = endpointsX[index];
+        return (endpoint & 1) == 1 || values[endpoint >>> 1] == null ? -1 : endpoint >>> 1;
+    }
+
+    /**
+     * Re-sorts the endpoints along a single axis using an insertion sort, updating the overlapping pairs as minimum
+     * and maximum endpoints pass each other. The endpoints of removed values are dropped along the way.
+     *
+     * @param axis the endpoints along the axis
+     * @param min  the minimum bounds along the axis
+     * @param max  the maximum bounds along the axis
+     * @return the number of endpoints left along the axis
+     */
+    private int sort(int[] axis, double[] min, double[] max) {
+        int size = 0;
+        for (int i = 0; i < endpoints; i++) {
+            int key = axis[i];
+            int keyProxy = key >>> 1;
+            if (values[keyProxy] == null)
+                continue;
+            boolean keyMax = (key & 1) == 1;
+            double keyValue = keyMax ? max[keyProxy] : min[keyProxy];
+            int j = size - 1;
+            while (j >= 0) {
+                int other = axis[j];
+                int otherProxy = other >>> 1;
+                boolean otherMax = (other & 1) == 1;
+                double otherValue = otherMax ? max[otherProxy] : min[otherProxy];
+                if (otherValue < keyValue || (otherValue == keyValue && (!otherMax || keyMax)))
+                    break;
+                if (!keyMax && otherMax) {
+                    if (overlaps(keyProxy, otherProxy))
+                        begin(keyProxy, otherProxy);
+                } else if (keyMax && !otherMax) {
+                    end(keyProxy, otherProxy);
+                }
+                axis[j + 1] = other;
+                j--;
+            }
+            axis[j + 1] = key;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Drops the endpoints of every removed value without re-sorting, keeping the remaining endpoints in order.
+     */
+    private void purge() {
+        int size = 0;
+        for (int i = 0; i < endpoints; i++)
+            if (values[endpointsX[i] >>> 1] != null)
+                endpointsX[size++] = endpointsX[i];
+        size = 0;
+        for (int i = 0; i < endpoints; i++)
+            if (values[endpointsY[i] >>> 1] != null)
+                endpointsY[size++] = endpointsY[i];
+        endpoints = size;
+        release();
+    }
+
+    /**
+     * Frees the proxies of every removed value once their endpoints have been dropped.
+     */
+    private void release() {
+        if (freeCount + removedCount > free.length)
+            free = Arrays.copyOf(free, Math.max(free.length * 2, freeCount + removedCount));
+        System.arraycopy(removed, 0, free, freeCount, removedCount);
+        freeCount += removedCount;
+        removedCount = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void begin(int a, int b) {
+        if (a == b)
+            return;
+        int size = pairs.size();
+        pairs.touch(a, b);
+        if (pairs.size() == size)
+            return;
+        if (listener != null)
+            listener.begin((E) values[Math.min(a, b)], (E) values[Math.max(a, b)]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void end(int a, int b) {
+        if (a == b || !pairs.remove(a, b))
+            return;
+        if (listener != null)
+            listener.end((E) values[Math.min(a, b)], (E) values[Math.max(a, b)]);
+    }
+
+    private int allocate() {
+        if (freeCount > 0)
+            return free[--freeCount];
+        if (capacity == values.length) {
+            int length = capacity * 2;
+            values = Arrays.copyOf(values, length);
+            minX = Arrays.copyOf(minX, length);
+            minY = Arrays.copyOf(minY, length);
+            maxX = Arrays.copyOf(maxX, length);
+            maxY = Arrays.copyOf(maxY, length);
+        }
+        return capacity++;
+    }
+
+    private void check(int proxy) {
+        if (proxy < 0 || proxy >= capacity || values[proxy] == null)
+            throw new IllegalArgumentException();
+    }
+
+    private void bound(int proxy, double x, double y, double width, double height) {
+        minX[proxy] = x;
+        minY[proxy] = y;
+        maxX[proxy] = x + width;
+        maxY[proxy] = y + height;
+    }
+
+    private boolean overlaps(int a, int b) {
+        return minX[a] <= maxX[b] && minX[b] <= maxX[a] && minY[a] <= maxY[b] && minY[b] <= maxY[a];
+    }
+}
@@ -0,0 +1,26 @@
+package com.iancaffey.tempt.entity;
+
+/**
+ * BodyType
+ * <p>
+ * A representation of how an entity takes part in a simulation.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public enum BodyType {
+    /**
+     * An entity which never moves, such as level geometry. Static entities only collide with dynamic entities and are
+     * unaffected by the collisions.
+     */
+    STATIC,
+    /**
+     * An entity which moves with its own motion but is unaffected by collisions. Kinematic entities only collide with
+     * dynamic entities.
+     */
+    KINEMATIC,
+    /**
+     * An entity which moves with its own motion and responds to collisions with every other type of entity.
+     */
+    DYNAMIC
+}
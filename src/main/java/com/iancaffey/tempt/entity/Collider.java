@@ -0,0 +1,20 @@
+package com.iancaffey.tempt.entity;
+
+/**
+ * Collider
+ * <p>
+ * A representation of the shape an entity collides as, fitted to the bounds of the entity.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public enum Collider {
+    /**
+     * The entity collides as its bounding rectangle.
+     */
+    RECTANGLE,
+    /**
+     * The entity collides as the largest circle centered within its bounding rectangle.
+     */
+    CIRCLE
+}
@@ -10,6 +10,8 @@ package com.iancaffey.tempt.entity;
  */
 public class Entity {
     private double mass;
+    volatile EntityRegistry<?> registry;
+    volatile int id = -1;
 
     /**
      * Constructs a new {@code Entity} with 0 mass.
@@ -51,6 +53,19 @@ public class Entity {
         this.mass = mass;
     }
 
+    /**
+     * Returns the id assigned to the entity by the registry it belongs to.
+     * <p>
+     * The id may be read from any thread, such as one rendering a snapshot, but is only stable while the entity stays
+     * within its registry.
+     *
+     * @return the entity id, or {@code -1} if the entity is not registered
+     * @see EntityRegistry
+     */
+    public int getId() {
+        return id;
+    }
+
     @Override
     public int hashCode() {
         return (int) (31 * getMass());
@@ -14,8 +14,16 @@ import com.iancaffey.tempt.math.Motion2d;
  * @since 1.0
  */
 public class Entity2d extends Entity {
+    public static final int DEFAULT_CATEGORY = 1;
+    public static final int DEFAULT_MASK = -1;
     private final Motion2d motion;
     private final Dimension2d size;
+    private int category = DEFAULT_CATEGORY;
+    private int mask = DEFAULT_MASK;
+    private BodyType bodyType = BodyType.DYNAMIC;
+    private Collider collider = Collider.RECTANGLE;
+    volatile EntityStore2d<?> store;
+    private Motion2d storedMotion;
 
     /**
      * Constructs a new {@code Entity2d} with specified mass and size.
@@ -31,6 +39,10 @@ public class Entity2d extends Entity {
 
     /**
      * Constructs a new {@code Entity2d} with specified mass, motion, and size.
+     * <p>
+     * While the entity belongs to an {@link EntityStore2d}, its state is kept by the store and the specified motion is
+     * neither read nor written. Changes made to the motion in the meantime are overwritten by the stored state once
+     * the entity leaves the store, so the motion should be updated through {@link #getMotion()} instead.
      *
      * @param mass   the mass
      * @param motion the motion
@@ -46,11 +58,169 @@ public class Entity2d extends Entity {
 
     /**
      * Returns the current motion of the entity.
+     * <p>
+     * While the entity belongs to an {@link EntityStore2d}, the motion is a view onto the stored state of the entity
+     * rather than the motion the entity was constructed with.
      *
      * @return the entity motion
      */
     public Motion2d getMotion() {
-        return motion;
+        if (store == null)
+            return motion;
+        if (storedMotion == null)
+            storedMotion = new StoredMotion2d(this);
+        return storedMotion;
+    }
+
+    @Override
+    public double getMass() {
+        EntityStore2d<?> store = this.store;
+        if (store == null)
+            return super.getMass();
+        synchronized (store) {
+            return this.store == store ? store.mass[id] : super.getMass();
+        }
+    }
+
+    @Override
+    public void setMass(double mass) {
+        EntityStore2d<?> store = this.store;
+        if (store == null) {
+            super.setMass(mass);
+            return;
+        }
+        if (mass < 0)
+            throw new IllegalArgumentException();
+        synchronized (store) {
+            if (this.store != store) {
+                super.setMass(mass);
+                return;
+            }
+            store.mass[id] = mass;
+            store.wake(id);
+        }
+    }
+
+    /**
+     * Returns the collision categories the entity belongs to, as a bitset.
+     *
+     * @return the category bits
+     */
+    public int getCategory() {
+        EntityStore2d<?> store = this.store;
+        if (store == null)
+            return category;
+        synchronized (store) {
+            return this.store == store ? store.category[id] : category;
+        }
+    }
+
+    /**
+     * Updates the collision categories the entity belongs to, as a bitset.
+     * <p>
+     * Two entities may only collide when the categories of each share a bit with the mask of the other.
+     *
+     * @param category the category bits
+     */
+    public void setCategory(int category) {
+        EntityStore2d<?> store = this.store;
+        if (store == null) {
+            this.category = category;
+            return;
+        }
+        synchronized (store) {
+            if (this.store != store) {
+                this.category = category;
+                return;
+            }
+            store.category[id] = category;
+            store.wake(id);
+        }
+    }
+
+    /**
+     * Returns the collision categories the entity collides with, as a bitset.
+     *
+     * @return the mask bits
+     */
+    public int getMask() {
+        EntityStore2d<?> store = this.store;
+        if (store == null)
+            return mask;
+        synchronized (store) {
+            return this.store == store ? store.mask[id] : mask;
+        }
+    }
+
+    /**
+     * Updates the collision categories the entity collides with, as a bitset.
+     *
+     * @param mask the mask bits
+     */
+    public void setMask(int mask) {
+        EntityStore2d<?> store = this.store;
+        if (store == null) {
+            this.mask = mask;
+            return;
+        }
+        synchronized (store) {
+            if (this.store != store) {
+                this.mask = mask;
+                return;
+            }
+            store.mask[id] = mask;
+            store.wake(id);
+        }
+    }
+
+    /**
+     * Returns the body type of the entity.
+     *
+     * @return the entity body type
+     */
+    public BodyType getBodyType() {
+        return bodyType;
+    }
+
+    /**
+     * Updates the body type of the entity.
+     * <p>
+     * The body type may only be changed while the entity does not belong to an {@link EntityStore2d}.
+     *
+     * @param bodyType the entity body type
+     * @throws IllegalStateException if the entity belongs to a store
+     */
+    public void setBodyType(BodyType bodyType) {
+        if (bodyType == null)
+            throw new IllegalArgumentException();
+        if (store != null)
+            throw new IllegalStateException();
+        this.bodyType = bodyType;
+    }
+
+    /**
+     * Returns the collider shape of the entity.
+     *
+     * @return the entity collider
+     */
+    public Collider getCollider() {
+        return collider;
+    }
+
+    /**
+     * Updates the collider shape of the entity.
+     * <p>
+     * The collider may only be changed while the entity does not belong to an {@link EntityStore2d}.
+     *
+     * @param collider the entity collider
+     * @throws IllegalStateException if the entity belongs to a store
+     */
+    public void setCollider(Collider collider) {
+        if (collider == null)
+            throw new IllegalArgumentException();
+        if (store != null)
+            throw new IllegalStateException();
+        this.collider = collider;
     }
 
     /**
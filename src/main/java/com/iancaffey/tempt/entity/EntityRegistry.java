@@ -0,0 +1,175 @@
+package com.iancaffey.tempt.entity;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * EntityRegistry
+ * <p>
+ * A representation of a set of entities which assigns each entity a stable, dense integer id.
+ * <p>
+ * Ids are stored on the entity itself, so membership checks and lookups are O(1) and never depend on the entity hash
+ * code. Ids of unregistered entities are recycled, keeping them within {@link #getCapacity()} so that per-entity state
+ * can be kept in plain arrays indexed by id. An entity may only belong to a single registry at a time.
+ * <p>
+ * The owner and id stored on an entity may be read from any thread. An entity is given its owner before its id, and
+ * loses its id before its owner, so an entity with an id always has an owner.
+ *
+ * @param <E> the type of entity stored in the registry
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class EntityRegistry<E extends Entity> {
+    private Object[] entities = new Object[16];
+    private int[] ids = new int[16];
+    private int[] indices = new int[16];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int capacity;
+    private int size;
+
+    /**
+     * Returns the number of registered entities.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of ids which have been issued, which is one greater than the highest id in use.
+     *
+     * @return the id capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Registers the specified entity, assigning it an id.
+     * <p>
+     * Registering an entity which is already registered returns its current id.
+     *
+     * @param entity the entity
+     * @return the entity id
+     * @throws IllegalArgumentException if the entity belongs to another registry
+     */
+    public int register(E entity) {
+        if (entity == null)
+            throw new IllegalArgumentException();
+        if (entity.registry == this)
+            return entity.id;
+        if (entity.registry != null)
+            throw new IllegalArgumentException();
+        int id;
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            if (capacity == entities.length) {
+                int length = capacity * 2;
+                entities = Arrays.copyOf(entities, length);
+                ids = Arrays.copyOf(ids, length);
+                indices = Arrays.copyOf(indices, length);
+            }
+            id = capacity++;
+        }
+        entities[id] = entity;
+        indices[id] = size;
+        ids[size++] = id;
+        entity.registry = this;
+        entity.id = id;
+        return id;
+    }
+
+    /**
+     * Unregisters the specified entity, releasing its id for reuse.
+     *
+     * @param entity the entity
+     * @return the released id, or {@code -1} if the entity was not registered
+     */
+    public int unregister(Entity entity) {
+        if (!contains(entity))
+            return -1;
+        int id = entity.id;
+        int index = indices[id];
+        int last = ids[--size];
+        ids[index] = last;
+        indices[last] = index;
+        entities[id] = null;
+        entity.id = -1;
+        entity.registry = null;
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = id;
+        return id;
+    }
+
+    /**
+     * Returns whether the specified entity is registered.
+     *
+     * @param entity the entity
+     * @return {@code true} if the entity is registered
+     */
+    public boolean contains(Entity entity) {
+        return entity != null && entity.registry == this;
+    }
+
+    /**
+     * Returns the entity with the specified id.
+     *
+     * @param id the entity id
+     * @return the entity, or {@code null} if the id is not in use
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int id) {
+        if (id < 0 || id >= capacity)
+            return null;
+        return (E) entities[id];
+    }
+
+    /**
+     * Returns the id of the registered entity at the specified index.
+     * <p>
+     * Indices range from {@code 0} to {@code size() - 1} and pack the live ids densely, so they may be used to iterate
+     * the registry. Indices are only stable until the next entity is unregistered.
+     *
+     * @param index the index
+     * @return the entity id
+     */
+    public int getId(int index) {
+        if (index < 0 || index >= size)
+            throw new IllegalArgumentException();
+        return ids[index];
+    }
+
+    /**
+     * Returns the registered entities in the specified array, or in a new array of the same type if it is too small.
+     *
+     * @param array the array to fill
+     * @return the array of entities
+     */
+    @SuppressWarnings("unchecked")
+    public E[] toArray(E[] array) {
+        if (array.length < size)
+            array = (E[]) Array.newInstance(array.getClass().getComponentType(), size);
+        for (int i = 0; i < size; i++)
+            array[i] = (E) entities[ids[i]];
+        return array;
+    }
+
+    /**
+     * Unregisters every entity.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            Entity entity = (Entity) entities[ids[i]];
+            entity.id = -1;
+            entity.registry = null;
+        }
+        Arrays.fill(entities, 0, capacity, null);
+        freeCount = 0;
+        capacity = 0;
+        size = 0;
+    }
+}
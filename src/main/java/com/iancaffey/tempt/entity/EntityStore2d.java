@@ -0,0 +1,308 @@
+package com.iancaffey.tempt.entity;
+
+import com.iancaffey.tempt.coordinate.Cartesian2d;
+import com.iancaffey.tempt.coordinate.Vector2d;
+import com.iancaffey.tempt.math.Dimension2d;
+import com.iancaffey.tempt.math.Motion2d;
+
+import java.util.Arrays;
+
+/**
+ * EntityStore2d
+ * <p>
+ * A representation of an entity registry which keeps the state of its 2-dimensional entities in parallel primitive
+ * columns indexed by entity id.
+ * <p>
+ * While an entity is registered, its position, velocity, acceleration, mass, and collision filter are read from and
+ * written to the store, and its motion becomes a view onto the columns. Simulation loops can then iterate the columns
+ * directly instead of following the entity, motion, and coordinate objects. The state is copied back into the entity
+ * once it is unregistered. Missing motion components are stored as zero.
+ * <p>
+ * Every entity is active when it is registered. Entities may be put to sleep, which removes them from the dense list
+ * of active entities until they are woken again. Updating the motion, mass, or collision filter of a sleeping entity
+ * through the entity wakes it.
+ * <p>
+ * The arrays returned by the column accessors are the backing storage of the store and are replaced as the store
+ * grows, so they should be re-read after registering an entity.
+ * <p>
+ * The store itself is the lock guarding its state. Reads and writes made through a registered entity, and waking or
+ * putting an entity to sleep, hold the lock, so they are serialized with an owner which holds the lock while it
+ * iterates the columns, such as a scene while it is being stepped.
+ *
+ * @param <E> the type of entity stored in the store
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class EntityStore2d<E extends Entity2d> extends EntityRegistry<E> {
+    double[] positionX = new double[16];
+    double[] positionY = new double[16];
+    double[] velocityX = new double[16];
+    double[] velocityY = new double[16];
+    double[] accelerationX = new double[16];
+    double[] accelerationY = new double[16];
+    double[] width = new double[16];
+    double[] height = new double[16];
+    double[] mass = new double[16];
+    int[] category = new int[16];
+    int[] mask = new int[16];
+    private int[] restSteps = new int[16];
+    private int[] active = new int[16];
+    private int[] activeIndices = new int[16];
+    private int activeCount;
+
+    @Override
+    public int register(E entity) {
+        if (contains(entity))
+            return entity.id;
+        Motion2d motion = entity.getMotion();
+        Dimension2d size = entity.getSize();
+        double mass = entity.getMass();
+        int category = entity.getCategory();
+        int mask = entity.getMask();
+        int id = super.register(entity);
+        if (id >= positionX.length) {
+            int length = Math.max(positionX.length * 2, id + 1);
+            positionX = Arrays.copyOf(positionX, length);
+            positionY = Arrays.copyOf(positionY, length);
+            velocityX = Arrays.copyOf(velocityX, length);
+            velocityY = Arrays.copyOf(velocityY, length);
+            accelerationX = Arrays.copyOf(accelerationX, length);
+            accelerationY = Arrays.copyOf(accelerationY, length);
+            width = Arrays.copyOf(width, length);
+            height = Arrays.copyOf(height, length);
+            this.mass = Arrays.copyOf(this.mass, length);
+            this.category = Arrays.copyOf(this.category, length);
+            this.mask = Arrays.copyOf(this.mask, length);
+            restSteps = Arrays.copyOf(restSteps, length);
+            active = Arrays.copyOf(active, length);
+            activeIndices = Arrays.copyOf(activeIndices, length);
+        }
+        Cartesian2d position = motion.getPosition();
+        Vector2d velocity = motion.getVelocity();
+        Vector2d acceleration = motion.getAcceleration();
+        positionX[id] = position == null ? 0 : position.getX();
+        positionY[id] = position == null ? 0 : position.getY();
+        velocityX[id] = velocity == null ? 0 : velocity.getX();
+        velocityY[id] = velocity == null ? 0 : velocity.getY();
+        accelerationX[id] = acceleration == null ? 0 : acceleration.getX();
+        accelerationY[id] = acceleration == null ? 0 : acceleration.getY();
+        width[id] = size.getWidth();
+        height[id] = size.getHeight();
+        this.mass[id] = mass;
+        this.category[id] = category;
+        this.mask[id] = mask;
+        restSteps[id] = 0;
+        activeIndices[id] = -1;
+        entity.store = this;
+        wake(id);
+        return id;
+    }
+
+    @Override
+    public int unregister(Entity entity) {
+        if (!contains(entity))
+            return -1;
+        detach((Entity2d) entity);
+        sleep(entity.id);
+        return super.unregister(entity);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size(); i++)
+            detach(get(getId(i)));
+        activeCount = 0;
+        super.clear();
+    }
+
+    /**
+     * Copies the stored state of the entity back into the entity and its motion.
+     *
+     * @param entity the entity
+     */
+    private void detach(Entity2d entity) {
+        int id = entity.id;
+        entity.store = null;
+        Motion2d motion = entity.getMotion();
+        motion.setPosition(positionX[id], positionY[id]);
+        motion.setVelocity(velocityX[id], velocityY[id]);
+        motion.setAcceleration(accelerationX[id], accelerationY[id]);
+        entity.setMass(mass[id]);
+        entity.setCategory(category[id]);
+        entity.setMask(mask[id]);
+    }
+
+    /**
+     * Returns the number of active entities.
+     *
+     * @return the number of entities which are not sleeping
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Returns the id of the active entity at the specified index.
+     * <p>
+     * Indices range from {@code 0} to {@code getActiveCount() - 1} and are only stable until the next entity is put to
+     * sleep or unregistered.
+     *
+     * @param index the index
+     * @return the entity id
+     */
+    public int getActiveId(int index) {
+        if (index < 0 || index >= activeCount)
+            throw new IllegalArgumentException();
+        return active[index];
+    }
+
+    /**
+     * Returns whether the entity with the specified id is sleeping.
+     *
+     * @param id the entity id
+     * @return {@code true} if the entity is registered and sleeping
+     */
+    public boolean isSleeping(int id) {
+        return get(id) != null && activeIndices[id] < 0;
+    }
+
+    /**
+     * Wakes the entity with the specified id, resetting its rest counter.
+     *
+     * @param id the entity id
+     */
+    public synchronized void wake(int id) {
+        if (get(id) == null)
+            return;
+        restSteps[id] = 0;
+        if (activeIndices[id] >= 0)
+            return;
+        activeIndices[id] = activeCount;
+        active[activeCount++] = id;
+    }
+
+    /**
+     * Puts the entity with the specified id to sleep.
+     *
+     * @param id the entity id
+     */
+    public synchronized void sleep(int id) {
+        if (get(id) == null)
+            return;
+        int index = activeIndices[id];
+        if (index < 0)
+            return;
+        int last = active[--activeCount];
+        active[index] = last;
+        activeIndices[last] = index;
+        activeIndices[id] = -1;
+    }
+
+    /**
+     * Returns the column of rest counters, which count the consecutive steps an entity has been at rest.
+     *
+     * @return the rest counters indexed by entity id
+     */
+    public int[] getRestSteps() {
+        return restSteps;
+    }
+
+    /**
+     * Returns the x-coordinate column.
+     *
+     * @return the x-coordinates indexed by entity id
+     */
+    public double[] getPositionX() {
+        return positionX;
+    }
+
+    /**
+     * Returns the y-coordinate column.
+     *
+     * @return the y-coordinates indexed by entity id
+     */
+    public double[] getPositionY() {
+        return positionY;
+    }
+
+    /**
+     * Returns the column of x components of velocity.
+     *
+     * @return the x components of velocity indexed by entity id
+     */
+    public double[] getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * Returns the column of y components of velocity.
+     *
+     * @return the y components of velocity indexed by entity id
+     */
+    public double[] getVelocityY() {
+        return velocityY;
+    }
+
+    /**
+     * Returns the column of x components of acceleration.
+     *
+     * @return the x components of acceleration indexed by entity id
+     */
+    public double[] getAccelerationX() {
+        return accelerationX;
+    }
+
+    /**
+     * Returns the column of y components of acceleration.
+     *
+     * @return the y components of acceleration indexed by entity id
+     */
+    public double[] getAccelerationY() {
+        return accelerationY;
+    }
+
+    /**
+     * Returns the width column.
+     *
+     * @return the widths indexed by entity id
+     */
+    public double[] getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height column.
+     *
+     * @return the heights indexed by entity id
+     */
+    public double[] getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the mass column.
+     *
+     * @return the masses indexed by entity id
+     */
+    public double[] getMass() {
+        return mass;
+    }
+
+    /**
+     * Returns the column of collision categories.
+     *
+     * @return the category bits indexed by entity id
+     */
+    public int[] getCategory() {
+        return category;
+    }
+
+    /**
+     * Returns the column of collision masks.
+     *
+     * @return the mask bits indexed by entity id
+     */
+    public int[] getMask() {
+        return mask;
+    }
+}
@@ -0,0 +1,152 @@
+package com.iancaffey.tempt.entity;
+
+import com.iancaffey.tempt.coordinate.Cartesian2d;
+import com.iancaffey.tempt.coordinate.Vector2d;
+import com.iancaffey.tempt.math.Motion2d;
+
+/**
+ * StoredMotion2d
+ * <p>
+ * A representation of the motion of an entity whose state is kept within an {@link EntityStore2d}.
+ * <p>
+ * Reads and writes go straight to the store columns of the entity, and every write wakes the entity. Both hold the
+ * lock of the store, so they are serialized with the owner of the store, such as a scene which is being stepped.
+ * Once the entity has left the store, reads and writes go to the motion of the entity instead. Missing components are
+ * written as zero.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+class StoredMotion2d extends Motion2d {
+    private final Entity2d entity;
+
+    /**
+     * Constructs a new {@code StoredMotion2d} viewing the stored motion of the specified entity.
+     *
+     * @param entity the entity
+     */
+    StoredMotion2d(Entity2d entity) {
+        super(null, null, null);
+        this.entity = entity;
+    }
+
+    @Override
+    public Cartesian2d getPosition() {
+        EntityStore2d<?> store = entity.store;
+        if (store == null)
+            return entity.getMotion().getPosition();
+        synchronized (store) {
+            if (entity.store != store)
+                return entity.getMotion().getPosition();
+            int id = entity.id;
+            return new Cartesian2d(store.positionX[id], store.positionY[id]);
+        }
+    }
+
+    @Override
+    public void setPosition(Cartesian2d position) {
+        if (position == null)
+            setPosition(0, 0);
+        else
+            setPosition(position.getX(), position.getY());
+    }
+
+    @Override
+    public void setPosition(double x, double y) {
+        EntityStore2d<?> store = entity.store;
+        if (store == null) {
+            entity.getMotion().setPosition(x, y);
+            return;
+        }
+        synchronized (store) {
+            if (entity.store != store) {
+                entity.getMotion().setPosition(x, y);
+                return;
+            }
+            int id = entity.id;
+            store.positionX[id] = x;
+            store.positionY[id] = y;
+            store.wake(id);
+        }
+    }
+
+    @Override
+    public Vector2d getVelocity() {
+        EntityStore2d<?> store = entity.store;
+        if (store == null)
+            return entity.getMotion().getVelocity();
+        synchronized (store) {
+            if (entity.store != store)
+                return entity.getMotion().getVelocity();
+            int id = entity.id;
+            return new Vector2d(store.velocityX[id], store.velocityY[id]);
+        }
+    }
+
+    @Override
+    public void setVelocity(Vector2d velocity) {
+        if (velocity == null)
+            setVelocity(0, 0);
+        else
+            setVelocity(velocity.getX(), velocity.getY());
+    }
+
+    @Override
+    public void setVelocity(double x, double y) {
+        EntityStore2d<?> store = entity.store;
+        if (store == null) {
+            entity.getMotion().setVelocity(x, y);
+            return;
+        }
+        synchronized (store) {
+            if (entity.store != store) {
+                entity.getMotion().setVelocity(x, y);
+                return;
+            }
+            int id = entity.id;
+            store.velocityX[id] = x;
+            store.velocityY[id] = y;
+            store.wake(id);
+        }
+    }
+
+    @Override
+    public Vector2d getAcceleration() {
+        EntityStore2d<?> store = entity.store;
+        if (store == null)
+            return entity.getMotion().getAcceleration();
+        synchronized (store) {
+            if (entity.store != store)
+                return entity.getMotion().getAcceleration();
+            int id = entity.id;
+            return new Vector2d(store.accelerationX[id], store.accelerationY[id]);
+        }
+    }
+
+    @Override
+    public void setAcceleration(Vector2d acceleration) {
+        if (acceleration == null)
+            setAcceleration(0, 0);
+        else
+            setAcceleration(acceleration.getX(), acceleration.getY());
+    }
+
+    @Override
+    public void setAcceleration(double x, double y) {
+        EntityStore2d<?> store = entity.store;
+        if (store == null) {
+            entity.getMotion().setAcceleration(x, y);
+            return;
+        }
+        synchronized (store) {
+            if (entity.store != store) {
+                entity.getMotion().setAcceleration(x, y);
+                return;
+            }
+            int id = entity.id;
+            store.accelerationX[id] = x;
+            store.accelerationY[id] = y;
+            store.wake(id);
+        }
+    }
+}
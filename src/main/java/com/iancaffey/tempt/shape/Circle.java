@@ -91,6 +91,34 @@ public class Circle implements Shape2d {
         return Coordinate.distance(getX(), getY(), x, y) < getRadius();
     }
 
+    /**
+     * Returns the smallest rectangle which contains the circle.
+     *
+     * @return the circle bounds
+     */
+    @Override
+    public Rectangle getBounds() {
+        return new Rectangle(getX() - getRadius(), getY() - getRadius(), 2 * getRadius(), 2 * getRadius());
+    }
+
+    /**
+     * Returns whether the circle intersects the specified rectangle.
+     *
+     * @param x      the rectangle x-coordinate
+     * @param y      the rectangle y-coordinate
+     * @param width  the rectangle width
+     * @param height the rectangle height
+     * @return {@code true} if the circle intersects the specified rectangle
+     */
+    @Override
+    public boolean intersects(double x, double y, double width, double height) {
+        if (width <= 0 || height <= 0)
+            return false;
+        double dx = getX() - Math.max(x, Math.min(getX(), x + width));
+        double dy = getY() - Math.max(y, Math.min(getY(), y + height));
+        return dx * dx + dy * dy < getRadius() * getRadius();
+    }
+
     @Override
     public int hashCode() {
         long bits = 7L;
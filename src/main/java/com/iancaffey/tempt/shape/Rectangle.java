@@ -147,6 +147,16 @@ public class Rectangle implements Shape2d {
         return centerY;
     }
 
+    /**
+     * Returns the rectangle itself, as a rectangle is its own bounds.
+     *
+     * @return the rectangle
+     */
+    @Override
+    public Rectangle getBounds() {
+        return this;
+    }
+
     /**
      * Returns whether the rectangle contains the specified coordinate.
      *
@@ -254,6 +264,7 @@ public class Rectangle implements Shape2d {
      * @param height the rectangle height
      * @return {@code true} if the rectangle intersects the specified rectangle
      */
+    @Override
     public boolean intersects(double x, double y, double width, double height) {
         double tw = getWidth();
         double th = getHeight();
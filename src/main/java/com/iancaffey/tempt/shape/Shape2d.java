@@ -41,4 +41,27 @@ public interface Shape2d {
      * @return {@code true} if the shape absolutely contains the specified coordinate
      */
     public boolean contains(double x, double y);
+
+    /**
+     * Returns the smallest rectangle which contains the shape.
+     *
+     * @return the shape bounds
+     */
+    public Rectangle getBounds();
+
+    /**
+     * Returns whether the shape intersects the specified rectangle.
+     * <p>
+     * By default, the rectangle is tested against the bounds of the shape, which may report rectangles that only
+     * intersect the bounds.
+     *
+     * @param x      the rectangle x-coordinate
+     * @param y      the rectangle y-coordinate
+     * @param width  the rectangle width
+     * @param height the rectangle height
+     * @return {@code true} if the shape intersects the specified rectangle
+     */
+    public default boolean intersects(double x, double y, double width, double height) {
+        return getBounds().intersects(x, y, width, height);
+    }
 }
@@ -4,7 +4,9 @@ import com.iancaffey.tempt.coordinate.*;
 import com.iancaffey.tempt.entity.Entity2d;
 import com.iancaffey.tempt.entity.Entity3d;
 import com.iancaffey.tempt.math.Dimension2d;
+import com.iancaffey.tempt.math.Dimension3d;
 import com.iancaffey.tempt.shape.Rectangle;
+import com.iancaffey.tempt.shape.RectangularPrism;
 
 /**
  * Motion
@@ -15,6 +17,8 @@ import com.iancaffey.tempt.shape.Rectangle;
  * @since 1.0
  */
 public class Motion {
+    public static final int COLLISION_RESULT_LENGTH = 6;
+
     private Motion() {
     }
 
@@ -26,18 +30,367 @@ public class Motion {
      * @return a {@code VectorPair2d} representing the new velocities of each entity
      */
     public static VectorPair2d getCollision(Entity2d left, Entity2d right) {
-        if (left == null || right == null)
+        double[] result = new double[COLLISION_RESULT_LENGTH];
+        if (!getCollision(left, right, result))
             return null;
+        return new VectorPair2d(new Vector2d(result[0], result[1]), new Vector2d(result[2], result[3]));
+    }
+
+    /**
+     * Calculates the resulting velocities of each entity, writing them into the specified array instead of allocating
+     * a new vector pair.
+     *
+     * @param left   the left entity
+     * @param right  the right entity
+     * @param result  the array receiving the results, laid out as described by
+     *               {@link #getCollision(double, double, double, double, double, double, double, double, double, double, double, double, double, double, double[])}
+     * @return {@code true} if the collision could be resolved and the results were written
+     */
+    public static boolean getCollision(Entity2d left, Entity2d right, double[] result) {
+        if (left == null || right == null || result == null || result.length < COLLISION_RESULT_LENGTH)
+            return false;
         Vector2d velocityOne = left.getVelocity();
         Vector2d velocityTwo = right.getVelocity();
         if (velocityOne == null || velocityTwo == null)
-            return null;
+            return false;
         Cartesian2d positionOne = left.getPosition();
         Cartesian2d positionTwo = right.getPosition();
         if (positionOne == null || positionTwo == null)
-            return null;
+            return false;
         Dimension2d dimensionOne = left.getSize();
         Dimension2d dimensionTwo = right.getSize();
+        if (dimensionOne == null || dimensionTwo == null)
+            return false;
+        getCollision(positionOne.getX(), positionOne.getY(), dimensionOne.getWidth(), dimensionOne.getHeight(), velocityOne.getX(), velocityOne.getY(), left.getMass(),
+                positionTwo.getX(), positionTwo.getY(), dimensionTwo.getWidth(), dimensionTwo.getHeight(), velocityTwo.getX(), velocityTwo.getY(), right.getMass(), result);
+        return true;
+    }
+
+    /**
+     * Calculates the resulting velocities of two colliding rectangular bodies without allocating.
+     * <p>
+     * The result array receives the velocity of the left body at indices {@code 0} and {@code 1}, the velocity of the
+     * right body at indices {@code 2} and {@code 3}, and the collision normal at indices {@code 4} and {@code 5}. The
+     * normal always points from the left body towards the right body. The result array must have a length of at least
+     * {@link #COLLISION_RESULT_LENGTH}.
+     * <p>
+     * The normal points from the center of the left body to the center of the intersection of the bodies. When the left
+     * body lies within the right body, those centers coincide, and the normal is instead taken along the dominant axis
+     * of the offset between the centers of the bodies, as it is against an immovable body. The velocities are then
+     * resolved along the normal by
+     * {@link #getCollision(double, double, double, double, double, double, double, double, double[])}, so rectangular
+     * and circular bodies exchange momentum in the same way.
+     *
+     * @param x1      the left x-coordinate
+     * @param y1      the left y-coordinate
+     * @param width1  the left width
+     * @param height1 the left height
+     * @param vx1     the x component of the left velocity
+     * @param vy1     the y component of the left velocity
+     * @param mass1   the left mass
+     * @param x2      the right x-coordinate
+     * @param y2      the right y-coordinate
+     * @param width2  the right width
+     * @param height2 the right height
+     * @param vx2     the x component of the right velocity
+     * @param vy2     the y component of the right velocity
+     * @param mass2   the right mass
+     * @param result  the array receiving the results
+     */
+    public static void getCollision(double x1, double y1, double width1, double height1, double vx1, double vy1, double mass1,
+                                    double x2, double y2, double width2, double height2, double vx2, double vy2, double mass2, double[] result) {
+        if ((mass1 == Double.MAX_VALUE) != (mass2 == Double.MAX_VALUE)) {
+            getSide(x1, y1, width1, height1, x2, y2, width2, height2, result);
+        } else {
+            double left = Math.max(x1, x2);
+            double top = Math.max(y1, y2);
+            double intersectionX = left + (Math.min(x1 + width1, x2 + width2) - left) / 2.0;
+            double intersectionY = top + (Math.min(y1 + height1, y2 + height2) - top) / 2.0d;
+            double ix = intersectionX - (x1 + width1 / 2.0d);
+            double iy = intersectionY - (y1 + height1 / 2.0d);
+            double magnitude = Math.sqrt(ix * ix + iy * iy);
+            if (magnitude > 0) {
+                result[4] = ix / magnitude;
+                result[5] = iy / magnitude;
+            } else {
+                getSide(x1, y1, width1, height1, x2, y2, width2, height2, result);
+            }
+        }
+        getCollision(vx1, vy1, mass1, vx2, vy2, mass2, result[4], result[5], result);
+    }
+
+    /**
+     * Calculates the side of the right rectangle which the left rectangle has hit, from the offset between their
+     * centers scaled by their combined extents, writing the normal of the side pointing from the left rectangle towards
+     * the right rectangle into indices {@code 4} and {@code 5} of the result array.
+     *
+     * @param x1      the left x-coordinate
+     * @param y1      the left y-coordinate
+     * @param width1  the left width
+     * @param height1 the left height
+     * @param x2      the right x-coordinate
+     * @param y2      the right y-coordinate
+     * @param width2  the right width
+     * @param height2 the right height
+     * @param result  the array receiving the normal
+     */
+    private static void getSide(double x1, double y1, double width1, double height1,
+                                double x2, double y2, double width2, double height2, double[] result) {
+        double w = 0.5 * (width1 + width2);
+        double h = 0.5 * (height1 + height2);
+        double dx = (x1 + (width1 / 2.0d)) - (x2 + (width2 / 2.0d));
+        double dy = (y1 + (height1 / 2.0d)) - (y2 + (height2 / 2.0d));
+        double wy = w * dy;
+        double hx = h * dx;
+        if (wy > hx) {
+            result[4] = wy > -hx ? 0 : 1;
+            result[5] = wy > -hx ? -1 : 0;
+        } else {
+            result[4] = wy > -hx ? -1 : 0;
+            result[5] = wy > -hx ? 0 : 1;
+        }
+    }
+
+    /**
+     * Calculates the time of impact between two moving rectangles using their swept bounding boxes.
+     * <p>
+     * Both rectangles are assumed to move with constant velocity over the specified duration. Rectangles which already
+     * intersect, or which touch while moving towards each other, have a time of impact of {@code 0}.
+     *
+     * @param x1      the left x-coordinate
+     * @param y1      the left y-coordinate
+     * @param width1  the left width
+     * @param height1 the left height
+     * @param vx1     the x component of the left velocity
+     * @param vy1     the y component of the left velocity
+     * @param x2      the right x-coordinate
+     * @param y2      the right y-coordinate
+     * @param width2  the right width
+     * @param height2 the right height
+     * @param vx2     the x component of the right velocity
+     * @param vy2     the y component of the right velocity
+     * @param time    the duration to sweep over
+     * @return the time of first contact within {@code [0, time]}, or {@code Double.POSITIVE_INFINITY} if the rectangles
+     * do not come into contact within the duration
+     */
+    public static double getTimeOfImpact(double x1, double y1, double width1, double height1, double vx1, double vy1,
+                                         double x2, double y2, double width2, double height2, double vx2, double vy2, double time) {
+        if (width1 <= 0 || height1 <= 0 || width2 <= 0 || height2 <= 0 || !(time >= 0))
+            return Double.POSITIVE_INFINITY;
+        double vx = vx1 - vx2;
+        double vy = vy1 - vy2;
+        double entryX;
+        double exitX;
+        if (vx == 0) {
+            if (x1 + width1 <= x2 || x2 + width2 <= x1)
+                return Double.POSITIVE_INFINITY;
+            entryX = Double.NEGATIVE_INFINITY;
+            exitX = Double.POSITIVE_INFINITY;
+        } else if (vx > 0) {
+            entryX = (x2 - (x1 + width1)) / vx;
+            exitX = (x2 + width2 - x1) / vx;
+        } else {
+            entryX = (x2 + width2 - x1) / vx;
+            exitX = (x2 - (x1 + width1)) / vx;
+        }
+        double entryY;
+        double exitY;
+        if (vy == 0) {
+            if (y1 + height1 <= y2 || y2 + height2 <= y1)
+                return Double.POSITIVE_INFINITY;
+            entryY = Double.NEGATIVE_INFINITY;
+            exitY = Double.POSITIVE_INFINITY;
+        } else if (vy > 0) {
+            entryY = (y2 - (y1 + height1)) / vy;
+            exitY = (y2 + height2 - y1) / vy;
+        } else {
+            entryY = (y2 + height2 - y1) / vy;
+            exitY = (y2 - (y1 + height1)) / vy;
+        }
+        double entry = Math.max(entryX, entryY);
+        double exit = Math.min(exitX, exitY);
+        if (entry >= exit || exit <= 0 || entry > time)
+            return Double.POSITIVE_INFINITY;
+        return Math.max(0, entry);
+    }
+
+    /**
+     * Calculates the distance along a ray at which it enters the specified bounding box, using a slab test.
+     * <p>
+     * Distances are measured in multiples of the direction, and the bounds are inclusive.
+     *
+     * @param x           the x-coordinate of the ray origin
+     * @param y           the y-coordinate of the ray origin
+     * @param directionX  the x component of the ray direction
+     * @param directionY  the y component of the ray direction
+     * @param minX        the minimum x-coordinate of the box
+     * @param minY        the minimum y-coordinate of the box
+     * @param maxX        the maximum x-coordinate of the box
+     * @param maxY        the maximum y-coordinate of the box
+     * @param maxDistance the maximum distance of the ray
+     * @return the distance at which the ray enters the box, {@code 0} if the ray starts within the box, or
+     * {@code Double.POSITIVE_INFINITY} if the ray misses the box within the maximum distance
+     */
+    public static double getRayDistance(double x, double y, double directionX, double directionY,
+                                        double minX, double minY, double maxX, double maxY, double maxDistance) {
+        double entry = 0;
+        double exit = maxDistance;
+        if (directionX == 0) {
+            if (x < minX || x > maxX)
+                return Double.POSITIVE_INFINITY;
+        } else {
+            double near = (minX - x) / directionX;
+            double far = (maxX - x) / directionX;
+            entry = Math.max(entry, Math.min(near, far));
+            exit = Math.min(exit, Math.max(near, far));
+        }
+        if (directionY == 0) {
+            if (y < minY || y > maxY)
+                return Double.POSITIVE_INFINITY;
+        } else {
+            double near = (minY - y) / directionY;
+            double far = (maxY - y) / directionY;
+            entry = Math.max(entry, Math.min(near, far));
+            exit = Math.min(exit, Math.max(near, far));
+        }
+        return entry <= exit ? entry : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Calculates the squared distance from a point to the nearest point of the specified bounding box.
+     *
+     * @param x    the x-coordinate of the point
+     * @param y    the y-coordinate of the point
+     * @param minX the minimum x-coordinate of the box
+     * @param minY the minimum y-coordinate of the box
+     * @param maxX the maximum x-coordinate of the box
+     * @param maxY the maximum y-coordinate of the box
+     * @return the squared distance, or {@code 0} if the point lies within the box
+     */
+    public static double getDistanceSquared(double x, double y, double minX, double minY, double maxX, double maxY) {
+        double dx = Math.max(0, Math.max(minX - x, x - maxX));
+        double dy = Math.max(0, Math.max(minY - y, y - maxY));
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Calculates the resulting velocities of two colliding bodies along the specified collision normal without
+     * allocating.
+     * <p>
+     * The bodies exchange momentum along the normal, keeping their velocity perpendicular to the normal. A body with a
+     * mass of {@code Double.MAX_VALUE} is treated as immovable. Bodies which are already separating along the normal keep
+     * their velocities. The result array is laid out as in
+     * {@link #getCollision(double, double, double, double, double, double, double, double, double, double, double, double, double, double, double[])}.
+     *
+     * @param vx1    the x component of the left velocity
+     * @param vy1    the y component of the left velocity
+     * @param mass1  the left mass
+     * @param vx2    the x component of the right velocity
+     * @param vy2    the y component of the right velocity
+     * @param mass2  the right mass
+     * @param nx     the x component of the unit normal pointing from the left body to the right body
+     * @param ny     the y component of the unit normal pointing from the left body to the right body
+     * @param result the array receiving the results
+     */
+    public static void getCollision(double vx1, double vy1, double mass1, double vx2, double vy2, double mass2,
+                                    double nx, double ny, double[] result) {
+        result[0] = vx1;
+        result[1] = vy1;
+        result[2] = vx2;
+        result[3] = vy2;
+        result[4] = nx;
+        result[5] = ny;
+        double normalOne = vx1 * nx + vy1 * ny;
+        double normalTwo = vx2 * nx + vy2 * ny;
+        if (normalOne <= normalTwo)
+            return;
+        boolean infiniteOne = mass1 == Double.MAX_VALUE;
+        boolean infiniteTwo = mass2 == Double.MAX_VALUE;
+        double afterOne;
+        double afterTwo;
+        if (infiniteOne && !infiniteTwo) {
+            afterOne = normalOne;
+            afterTwo = 2 * normalOne - normalTwo;
+        } else if (infiniteTwo && !infiniteOne) {
+            afterOne = 2 * normalTwo - normalOne;
+            afterTwo = normalTwo;
+        } else {
+            if (infiniteOne || mass1 + mass2 <= 0) {
+                mass1 = 1.0;
+                mass2 = 1.0;
+            }
+            afterOne = (normalOne * (mass1 - mass2) + 2 * mass2 * normalTwo) / (mass1 + mass2);
+            afterTwo = (normalTwo * (mass2 - mass1) + 2 * mass1 * normalOne) / (mass1 + mass2);
+        }
+        result[0] += (afterOne - normalOne) * nx;
+        result[1] += (afterOne - normalOne) * ny;
+        result[2] += (afterTwo - normalTwo) * nx;
+        result[3] += (afterTwo - normalTwo) * ny;
+    }
+
+    /**
+     * Returns whether two circles intersect, comparing squared distances.
+     *
+     * @param x1      the left center x-coordinate
+     * @param y1      the left center y-coordinate
+     * @param radius1 the left radius
+     * @param x2      the right center x-coordinate
+     * @param y2      the right center y-coordinate
+     * @param radius2 the right radius
+     * @return {@code true} if the circles intersect
+     */
+    public static boolean intersectsCircle(double x1, double y1, double radius1, double x2, double y2, double radius2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double radius = radius1 + radius2;
+        return dx * dx + dy * dy < radius * radius;
+    }
+
+    /**
+     * Returns whether a circle intersects a rectangle, comparing the squared distance from the center of the circle to
+     * the closest point of the rectangle.
+     *
+     * @param x      the circle center x-coordinate
+     * @param y      the circle center y-coordinate
+     * @param radius the circle radius
+     * @param left   the rectangle x-coordinate
+     * @param top    the rectangle y-coordinate
+     * @param width  the rectangle width
+     * @param height the rectangle height
+     * @return {@code true} if the circle intersects the rectangle
+     */
+    public static boolean intersectsCircle(double x, double y, double radius, double left, double top, double width, double height) {
+        if (width <= 0 || height <= 0)
+            return false;
+        double dx = x - Math.max(left, Math.min(x, left + width));
+        double dy = y - Math.max(top, Math.min(y, top + height));
+        return dx * dx + dy * dy < radius * radius;
+    }
+
+    /**
+     * Calculates the vector pair representing the resulting velocities of each entity.
+     * <p>
+     * The entities exchange momentum along the normal from the center of the left entity to the center of their
+     * intersection, keeping their velocity perpendicular to the normal. An entity with a mass of
+     * {@code Double.MAX_VALUE} is treated as immovable and reflects the other entity off the face it was hit on.
+     *
+     * @param left  the left entity
+     * @param right the right entity
+     * @return a {@code VectorPair3d} representing the new velocities of each entity
+     */
+    public static VectorPair3d getCollision(Entity3d left, Entity3d right) {
+        if (left == null || right == null)
+            return null;
+        Vector3d velocityOne = left.getVelocity();
+        Vector3d velocityTwo = right.getVelocity();
+        if (velocityOne == null || velocityTwo == null)
+            return null;
+        Cartesian3d positionOne = left.getPosition();
+        Cartesian3d positionTwo = right.getPosition();
+        if (positionOne == null || positionTwo == null)
+            return null;
+        Dimension3d dimensionOne = left.getSize();
+        Dimension3d dimensionTwo = right.getSize();
         if (dimensionOne == null || dimensionTwo == null)
             return null;
         double massOne = left.getMass();
@@ -48,28 +401,30 @@ public class Motion {
             massOne = 1.0;
             massTwo = 1.0;
         } else if (infiniteOne) {
-            Vector2d normal = side(positionOne, dimensionOne, positionTwo, dimensionTwo);
-            return new VectorPair2d(velocityOne, Vector.add(velocityTwo, Vector.multiply(normal, -2 * Vector.dot(velocityTwo, normal))));
+            Vector3d normal = side(positionOne, dimensionOne, positionTwo, dimensionTwo);
+            return new VectorPair3d(velocityOne, Vector.add(velocityTwo, Vector.multiply(normal, -2 * Vector.dot(velocityTwo, normal))));
         } else if (infiniteTwo) {
-            Vector2d normal = side(positionOne, dimensionOne, positionTwo, dimensionTwo);
-            return new VectorPair2d(Vector.add(velocityOne, Vector.multiply(normal, -2 * Vector.dot(velocityOne, normal))), velocityTwo);
+            Vector3d normal = side(positionOne, dimensionOne, positionTwo, dimensionTwo);
+            return new VectorPair3d(Vector.add(velocityOne, Vector.multiply(normal, -2 * Vector.dot(velocityOne, normal))), velocityTwo);
         }
-        Cartesian2d intersection = Motion.intersection(positionOne, dimensionOne, positionTwo, dimensionTwo);
-        Vector2d intersectionVector = new Vector2d(new Cartesian2d(positionOne.getX() + dimensionOne.getWidth() / 2.0d, positionOne.getY() + dimensionOne.getHeight() / 2.0d), intersection);
-        Vector2d normal = Vector.normalize(intersectionVector);
-        Vector2d tangent = new Vector2d(-normal.getY(), normal.getX());
+        Cartesian3d intersection = Motion.intersection(positionOne, dimensionOne, positionTwo, dimensionTwo);
+        Vector3d intersectionVector = new Vector3d(intersection.getX() - (positionOne.getX() + dimensionOne.getWidth() / 2.0d),
+                intersection.getY() - (positionOne.getY() + dimensionOne.getHeight() / 2.0d),
+                intersection.getZ() - (positionOne.getZ() + dimensionOne.getDepth() / 2.0d));
+        double magnitude = Vector.magnitude(intersectionVector);
+        if (magnitude == 0)
+            return new VectorPair3d(velocityOne, velocityTwo);
+        Vector3d normal = Vector.divide(intersectionVector, magnitude);
         double velocityOneNormal = Vector.dot(normal, velocityOne);
         double velocityTwoNormal = Vector.dot(normal, velocityTwo);
-        double velocityOneTangent = Vector.dot(tangent, velocityOne);
-        double velocityTwoTangent = Vector.dot(tangent, velocityTwo);
         double velocityOneAfter = (velocityOneNormal * (massOne - massTwo) + 2 * massTwo * velocityTwoNormal) / (massOne + massTwo);
         double velocityTwoAfter = (velocityTwoNormal * (massTwo - massOne) + 2 * massOne * velocityOneNormal) / (massOne + massTwo);
-        return new VectorPair2d(Vector.add(Vector.multiply(normal, velocityTwoAfter), Vector.multiply(tangent, velocityTwoTangent)),
-                Vector.add(Vector.multiply(normal, velocityOneAfter), Vector.multiply(tangent, velocityOneTangent)));
+        return new VectorPair3d(Vector.add(velocityOne, Vector.multiply(normal, velocityOneAfter - velocityOneNormal)),
+                Vector.add(velocityTwo, Vector.multiply(normal, velocityTwoAfter - velocityTwoNormal)));
     }
 
     /**
-     * Returns the vector normal which represents which side a collision should choose to send an entity (used to resolve overlapping conflicts).
+     * Returns the axis of least penetration between two rectangular prisms (used to resolve overlapping conflicts).
      *
      * @param positionOne  the left position
      * @param dimensionOne the left dimension
@@ -77,22 +432,18 @@ public class Motion {
      * @param dimensionTwo the right dimension
      * @return a vector normal indicating the direction to send a collision
      */
-    private static Vector2d side(Cartesian2d positionOne, Dimension2d dimensionOne, Cartesian2d positionTwo, Dimension2d dimensionTwo) {
-        double w = 0.5 * (dimensionOne.getWidth() + dimensionTwo.getWidth());
-        double h = 0.5 * (dimensionOne.getHeight() + dimensionTwo.getHeight());
+    private static Vector3d side(Cartesian3d positionOne, Dimension3d dimensionOne, Cartesian3d positionTwo, Dimension3d dimensionTwo) {
         double dx = (positionOne.getX() + (dimensionOne.getWidth() / 2.0d)) - (positionTwo.getX() + (dimensionTwo.getWidth() / 2.0d));
         double dy = (positionOne.getY() + (dimensionOne.getHeight() / 2.0d)) - (positionTwo.getY() + (dimensionTwo.getHeight() / 2.0d));
-        double wy = w * dy;
-        double hx = h * dx;
-        if (wy > hx)
-            if (wy > -hx)
-                return Vector2d.NORTH;
-            else
-                return Vector2d.WEST;
-        else if (wy > -hx)
-            return Vector2d.EAST;
-        else
-            return Vector2d.SOUTH;
+        double dz = (positionOne.getZ() + (dimensionOne.getDepth() / 2.0d)) - (positionTwo.getZ() + (dimensionTwo.getDepth() / 2.0d));
+        double px = 0.5 * (dimensionOne.getWidth() + dimensionTwo.getWidth()) - Math.abs(dx);
+        double py = 0.5 * (dimensionOne.getHeight() + dimensionTwo.getHeight()) - Math.abs(dy);
+        double pz = 0.5 * (dimensionOne.getDepth() + dimensionTwo.getDepth()) - Math.abs(dz);
+        if (px <= py && px <= pz)
+            return Vector3d.EAST;
+        if (py <= pz)
+            return Vector3d.NORTH;
+        return new Vector3d(0, 0, 1);
     }
 
     /**
@@ -159,6 +510,46 @@ public class Motion {
         return new Cartesian2d(tx1 + tx2 / 2.0, ty1 + ty2 / 2.0d);
     }
 
+    /**
+     * Calculates the intersection point between two rectangular prisms (represented as base and dimension).
+     *
+     * @param baseOne the coordinate of the left entity
+     * @param sizeOne the dimension of the left entity
+     * @param baseTwo the coordinate of the right entity
+     * @param sizeTwo the dimension of the right entity
+     * @return a {@code Cartesian3d} representing the intersection point between the two rectangular prisms
+     */
+    public static Cartesian3d intersection(Cartesian3d baseOne, Dimension3d sizeOne, Cartesian3d baseTwo, Dimension3d sizeTwo) {
+        if (baseOne == null || sizeOne == null || baseTwo == null || sizeTwo == null)
+            return null;
+        double x1 = Math.max(baseOne.getX(), baseTwo.getX());
+        double y1 = Math.max(baseOne.getY(), baseTwo.getY());
+        double z1 = Math.max(baseOne.getZ(), baseTwo.getZ());
+        double x2 = Math.min(baseOne.getX() + sizeOne.getWidth(), baseTwo.getX() + sizeTwo.getWidth());
+        double y2 = Math.min(baseOne.getY() + sizeOne.getHeight(), baseTwo.getY() + sizeTwo.getHeight());
+        double z2 = Math.min(baseOne.getZ() + sizeOne.getDepth(), baseTwo.getZ() + sizeTwo.getDepth());
+        return new Cartesian3d((x1 + x2) / 2.0d, (y1 + y2) / 2.0d, (z1 + z2) / 2.0d);
+    }
+
+    /**
+     * Calculates the intersection point between two rectangular prisms.
+     *
+     * @param one the left rectangular prism
+     * @param two the right rectangular prism
+     * @return a {@code Cartesian3d} representing the intersection point between the two rectangular prisms
+     */
+    public static Cartesian3d intersection(RectangularPrism one, RectangularPrism two) {
+        if (one == null || two == null)
+            return null;
+        double x1 = Math.max(one.getX(), two.getX());
+        double y1 = Math.max(one.getY(), two.getY());
+        double z1 = Math.max(one.getZ(), two.getZ());
+        double x2 = Math.min(one.getMaxX(), two.getMaxX());
+        double y2 = Math.min(one.getMaxY(), two.getMaxY());
+        double z2 = Math.min(one.getMaxZ(), two.getMaxZ());
+        return new Cartesian3d((x1 + x2) / 2.0d, (y1 + y2) / 2.0d, (z1 + z2) / 2.0d);
+    }
+
     /**
      * Calculates the displacement for a constant velocity and acceleration for the specified time.
      *
@@ -213,7 +604,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Cartesian2d.ORIGIN;
+            return position;
         double timeSquared = Math.pow(time, 2);
         return new Cartesian2d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)));
     }
@@ -242,7 +633,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Cartesian3d.ORIGIN;
+            return position;
         double timeSquared = Math.pow(time, 2);
         return new Cartesian3d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)), position.getZ() + (velocity == null ? 0 : (velocity.getZ() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getZ() * timeSquared)));
     }
@@ -260,7 +651,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Cartesian2d.ORIGIN;
+            return Vector.toCartesian(position);
         double timeSquared = Math.pow(time, 2);
         return new Cartesian2d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)));
     }
@@ -278,7 +669,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Cartesian3d.ORIGIN;
+            return Vector.toCartesian(position);
         double timeSquared = Math.pow(time, 2);
         return new Cartesian3d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)), position.getZ() + (velocity == null ? 0 : (velocity.getZ() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getZ() * timeSquared)));
     }
@@ -307,7 +698,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Vector2d.ORIGIN;
+            return Vector.toVector(position);
         double timeSquared = Math.pow(time, 2);
         return new Vector2d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)));
     }
@@ -336,7 +727,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Vector3d.ORIGIN;
+            return Vector.toVector(position);
         double timeSquared = Math.pow(time, 2);
         return new Vector3d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)), position.getZ() + (velocity == null ? 0 : (velocity.getZ() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getZ() * timeSquared)));
     }
@@ -354,7 +745,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Vector2d.ORIGIN;
+            return position;
         double timeSquared = Math.pow(time, 2);
         return new Vector2d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)));
     }
@@ -372,7 +763,7 @@ public class Motion {
         if (position == null)
             return null;
         if (time == 0)
-            return Vector3d.ORIGIN;
+            return position;
         double timeSquared = Math.pow(time, 2);
         return new Vector3d(position.getX() + (velocity == null ? 0 : (velocity.getX() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getX() * timeSquared)), position.getY() + (velocity == null ? 0 : (velocity.getY() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getY() * timeSquared)), position.getZ() + (velocity == null ? 0 : (velocity.getZ() * time)) + (acceleration == null ? 0 : (1 / 2) * (acceleration.getZ() * timeSquared)));
     }
@@ -0,0 +1,108 @@
+package com.iancaffey.tempt;
+
+import com.iancaffey.tempt.math.Dimension2d;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * FixedTimestepTest
+ * <p>
+ * Tests for {@link FixedTimestep}, driven by a manual clock.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class FixedTimestepTest {
+    private static final long MILLISECOND = 1000000L;
+    private final long[] now = new long[1];
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveSteps() {
+        new FixedTimestep(new Scene(0, 0, 100, 100), 0, 1, () -> now[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveStepLimits() {
+        new FixedTimestep(new Scene(0, 0, 100, 100), 0.25, 0, () -> now[0]);
+    }
+
+    @Test
+    public void elapsedTimeAccumulatesIntoWholeSteps() {
+        Scene scene = new Scene(0, 0, 1000, 100);
+        SceneEntity2d entity = entity(scene);
+        FixedTimestep timestep = new FixedTimestep(scene, 0.25, 8, () -> now[0]);
+        assertEquals(0, timestep.advance());
+        assertEquals(0, timestep.getAlpha(), 0);
+        now[0] += 125 * MILLISECOND;
+        assertEquals(0, timestep.advance());
+        assertEquals(0.5, timestep.getAlpha(), 0);
+        assertEquals(0, entity.getPosition().getX(), 0);
+        now[0] += 125 * MILLISECOND;
+        assertEquals(1, timestep.advance());
+        assertEquals(0, timestep.getAlpha(), 0);
+        assertEquals(1, entity.getPosition().getX(), 0);
+        now[0] += 625 * MILLISECOND;
+        assertEquals(2, timestep.advance());
+        assertEquals(0.5, timestep.getAlpha(), 0);
+        assertEquals(3, entity.getPosition().getX(), 0);
+        now[0] -= 1000 * MILLISECOND;
+        assertEquals(0, timestep.advance());
+        assertEquals(0.5, timestep.getAlpha(), 0);
+    }
+
+    @Test
+    public void stepsBeyondTheLimitAreDropped() {
+        Scene scene = new Scene(0, 0, 1000, 100);
+        SceneEntity2d entity = entity(scene);
+        FixedTimestep timestep = new FixedTimestep(scene, 0.25, 3, () -> now[0]);
+        timestep.advance();
+        now[0] += 10125 * MILLISECOND;
+        assertEquals(3, timestep.advance());
+        assertEquals(3, entity.getPosition().getX(), 0);
+        assertEquals(0.5, timestep.getAlpha(), 0);
+        now[0] += 125 * MILLISECOND;
+        assertEquals(1, timestep.advance());
+        assertEquals(0, timestep.getAlpha(), 0);
+        assertEquals(4, entity.getPosition().getX(), 0);
+    }
+
+    @Test
+    public void alphaStaysWithinAStep() {
+        Scene scene = new Scene(0, 0, 1000, 100);
+        FixedTimestep timestep = new FixedTimestep(scene, 1.0d / 120.0d, 4, () -> now[0]);
+        timestep.advance();
+        for (int frame = 0; frame < 1000; frame++) {
+            now[0] += (frame * 7919L % 40) * MILLISECOND + frame % 3;
+            timestep.advance();
+            assertTrue(timestep.getAlpha() >= 0);
+            assertTrue(timestep.getAlpha() < 1);
+        }
+    }
+
+    @Test
+    public void resetDropsAccumulatedTime() {
+        Scene scene = new Scene(0, 0, 1000, 100);
+        FixedTimestep timestep = new FixedTimestep(scene, 0.25, 8, () -> now[0]);
+        timestep.advance();
+        now[0] += 125 * MILLISECOND;
+        timestep.advance();
+        timestep.reset();
+        assertEquals(0, timestep.getAlpha(), 0);
+        now[0] += 5000 * MILLISECOND;
+        assertEquals(0, timestep.advance());
+        now[0] += 250 * MILLISECOND;
+        assertEquals(1, timestep.advance());
+    }
+
+    /**
+     * Adds a 4x4 entity of unit mass to the scene, moving 4 units per second along the x-axis from the origin.
+     */
+    private static SceneEntity2d entity(Scene scene) {
+        SceneEntity2d entity = new SceneEntity2d(1, new Dimension2d(4, 4));
+        entity.setPosition(0, 0);
+        entity.setVelocity(4, 0);
+        scene.add(entity);
+        return entity;
+    }
+}
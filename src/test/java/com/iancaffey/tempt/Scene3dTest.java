@@ -0,0 +1,134 @@
+package com.iancaffey.tempt;
+
+import com.iancaffey.tempt.coordinate.Vector3d;
+import com.iancaffey.tempt.coordinate.VectorPair3d;
+import com.iancaffey.tempt.entity.Entity3d;
+import com.iancaffey.tempt.math.Dimension3d;
+import com.iancaffey.tempt.shape.RectangularPrism;
+import com.iancaffey.tempt.util.Motion;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scene3dTest
+ * <p>
+ * Tests for {@link Scene3d}.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class Scene3dTest {
+    @Test
+    public void contactsAreResolvedWhenTheyBegin() {
+        Scene3d scene = new Scene3d(0, 0, 0, 100, 100, 100);
+        Entity3d left = entity(10, 10, 10, 5, 2, 0);
+        Entity3d right = entity(13, 11, 10, -5, -1, 0);
+        scene.add(left, right);
+        assertResolved(scene, left, right);
+        Vector3d persisting = left.getVelocity();
+        scene.update();
+        assertVector(persisting, left.getVelocity());
+        scene.remove(left);
+        left.setVelocity(5, 2, 0);
+        right.setVelocity(-5, -1, 0);
+        scene.add(left);
+        assertResolved(scene, left, right);
+    }
+
+    @Test
+    public void queriesReportIntersectingEntities() {
+        Scene3d scene = new Scene3d(0, 0, 0, 100, 100, 100);
+        Entity3d near = entity(10, 10, 10, 0, 0, 0);
+        Entity3d far = entity(10, 10, 80, 0, 0, 0);
+        scene.add(near, far);
+        scene.update();
+        assertArrayEquals(new Entity3d[]{near}, scene.query(new RectangularPrism(0, 0, 0, 20, 20, 20)));
+        assertEquals(2, scene.query(new RectangularPrism(0, 0, 0, 100, 100, 100)).length);
+        scene.remove(near);
+        assertEquals(0, scene.query(new RectangularPrism(0, 0, 0, 20, 20, 20)).length);
+        scene.clear();
+        assertEquals(0, scene.getEntities().length);
+        assertEquals(0, scene.query(new RectangularPrism(0, 0, 0, 100, 100, 100)).length);
+    }
+
+    @Test
+    public void entitiesMayBeAddedAndRemovedDuringUpdates() throws Exception {
+        Scene3d scene = new Scene3d(0, 0, 0, 200, 200, 200);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            Future<?> updates = executor.submit(() -> {
+                while (running.get())
+                    scene.update();
+            });
+            List<Future<List<Entity3d>>> mutations = new ArrayList<>();
+            for (int thread = 0; thread < 2; thread++) {
+                int seed = thread;
+                mutations.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    List<Entity3d> kept = new ArrayList<>();
+                    for (int i = 0; i < 2000; i++) {
+                        Entity3d entity = entity(random.nextDouble() * 190, random.nextDouble() * 190, random.nextDouble() * 190, 0, 0, 0);
+                        scene.add(entity);
+                        if (random.nextBoolean())
+                            scene.remove(entity);
+                        else
+                            kept.add(entity);
+                    }
+                    return kept;
+                }));
+            }
+            int kept = 0;
+            for (Future<List<Entity3d>> mutation : mutations)
+                kept += mutation.get(30, TimeUnit.SECONDS).size();
+            running.set(false);
+            updates.get(30, TimeUnit.SECONDS);
+            assertEquals(kept, scene.getEntities().length);
+            assertEquals(kept, scene.query(new RectangularPrism(0, 0, 0, 200, 200, 200)).length);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Updates the scene and checks that the contact between the two entities was resolved.
+     */
+    private static void assertResolved(Scene3d scene, Entity3d left, Entity3d right) {
+        VectorPair3d expected = Motion.getCollision(left, right);
+        assertFalse(equals(expected.getLeft(), left.getVelocity()) && equals(expected.getRight(), right.getVelocity()));
+        scene.update();
+        assertVector(expected.getLeft(), left.getVelocity());
+        assertVector(expected.getRight(), right.getVelocity());
+    }
+
+    private static boolean equals(Vector3d a, Vector3d b) {
+        return Math.abs(a.getX() - b.getX()) < 1e-9 && Math.abs(a.getY() - b.getY()) < 1e-9 && Math.abs(a.getZ() - b.getZ()) < 1e-9;
+    }
+
+    private static void assertVector(Vector3d expected, Vector3d actual) {
+        assertEquals(expected.getX(), actual.getX(), 1e-9);
+        assertEquals(expected.getY(), actual.getY(), 1e-9);
+        assertEquals(expected.getZ(), actual.getZ(), 1e-9);
+    }
+
+    /**
+     * Returns a new 4x4x4 entity of unit mass at the specified position and with the specified velocity.
+     */
+    private static Entity3d entity(double x, double y, double z, double velocityX, double velocityY, double velocityZ) {
+        Entity3d entity = new Entity3d(1, new Dimension3d(4, 4, 4));
+        entity.setPosition(x, y, z);
+        entity.setVelocity(velocityX, velocityY, velocityZ);
+        return entity;
+    }
+}
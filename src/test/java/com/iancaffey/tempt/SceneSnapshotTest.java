@@ -0,0 +1,137 @@
+package com.iancaffey.tempt;
+
+import com.iancaffey.tempt.math.Dimension2d;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+/**
+ * SceneSnapshotTest
+ * <p>
+ * Tests for {@link SceneSnapshot} and the snapshots published by {@link Scene}.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SceneSnapshotTest {
+    @Test
+    public void publishedSnapshotsAreNeverModified() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        SceneEntity2d first = entity(10, 20, 100, 0);
+        SceneEntity2d second = entity(50, 60, 0, -100);
+        scene.add(first, second);
+        scene.step(0.1);
+        SceneSnapshot snapshot = scene.getSnapshot();
+        assertSame(snapshot, scene.getSnapshot());
+        double[] frame = frame(snapshot);
+        scene.step(0.1);
+        second.setPosition(150, 150);
+        scene.remove(first);
+        scene.add(entity(100, 100, 0, 0));
+        scene.step(0.1);
+        scene.step(0.1);
+        assertEquals(2, snapshot.size());
+        assertArrayEquals(frame, frame(snapshot), 0);
+        SceneSnapshot latest = scene.getSnapshot();
+        assertNotSame(snapshot, latest);
+        assertTrue(latest.getSequence() > snapshot.getSequence());
+        assertEquals(2, latest.size());
+    }
+
+    @Test
+    public void snapshotsHoldTheStateAtTheEndOfTheStep() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        SceneEntity2d entity = entity(10, 20, 100, -50);
+        scene.add(entity);
+        SceneSnapshot initial = scene.getSnapshot();
+        assertEquals(1, initial.size());
+        assertSame(entity, initial.getEntity(0));
+        assertEquals(10, initial.getX(0), 0);
+        assertEquals(20, initial.getY(0), 0);
+        assertEquals(4, initial.getWidth(0), 0);
+        assertEquals(4, initial.getHeight(0), 0);
+        scene.add(entity(100, 100, 0, 0));
+        assertSame(initial, scene.getSnapshot());
+        scene.step(0.1);
+        SceneSnapshot stepped = scene.getSnapshot();
+        assertEquals(2, stepped.size());
+        int index = stepped.getEntity(0) == entity ? 0 : 1;
+        assertEquals(20, stepped.getX(index), 1e-9);
+        assertEquals(15, stepped.getY(index), 1e-9);
+        assertEquals(10, stepped.getX(index, 0), 1e-9);
+        assertEquals(15, stepped.getX(index, 0.5), 1e-9);
+        assertEquals(20, stepped.getY(index, 0), 1e-9);
+        assertEquals(17.5, stepped.getY(index, 0.5), 1e-9);
+        assertEquals(stepped.getX(index), stepped.getX(index, 1), 0);
+    }
+
+    @Test
+    public void indicesOutsideTheSnapshotAreRejected() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        scene.add(entity(10, 10, 0, 0));
+        SceneSnapshot snapshot = scene.getSnapshot();
+        for (int index : new int[]{-1, 1}) {
+            try {
+                snapshot.getX(index, 0.5);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                snapshot.getEntity(index);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void viewsRenderInterpolatedSnapshots() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d entity = entity(10, 10, 200, 0);
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        Graphics graphics = image.getGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 4, 4);
+        graphics.dispose();
+        entity.setImage(image);
+        scene.add(entity);
+        long[] now = new long[1];
+        FixedTimestep timestep = new FixedTimestep(scene, 0.25, 8, () -> now[0]);
+        SceneView view = new SceneView(scene);
+        view.setTimestep(timestep);
+        view.update();
+        now[0] += 375000000L;
+        view.update();
+        assertEquals(0.5, timestep.getAlpha(), 0);
+        BufferedImage rendered = view.render();
+        assertSame(rendered, view.render());
+        assertEquals(Color.RED.getRGB(), rendered.getRGB(35, 11));
+        assertEquals(Color.RED.getRGB(), rendered.getRGB(38, 13));
+        assertEquals(0, rendered.getRGB(34, 11));
+        assertEquals(0, rendered.getRGB(39, 11));
+        assertEquals(0, rendered.getRGB(60, 11));
+    }
+
+    private static double[] frame(SceneSnapshot snapshot) {
+        double[] frame = new double[snapshot.size() * 6];
+        for (int i = 0; i < snapshot.size(); i++) {
+            frame[i * 6] = snapshot.getX(i);
+            frame[i * 6 + 1] = snapshot.getY(i);
+            frame[i * 6 + 2] = snapshot.getX(i, 0);
+            frame[i * 6 + 3] = snapshot.getY(i, 0);
+            frame[i * 6 + 4] = snapshot.getWidth(i);
+            frame[i * 6 + 5] = snapshot.getHeight(i);
+        }
+        return frame;
+    }
+
+    private static SceneEntity2d entity(double x, double y, double velocityX, double velocityY) {
+        SceneEntity2d entity = new SceneEntity2d(1, new Dimension2d(4, 4));
+        entity.setPosition(x, y);
+        entity.setVelocity(velocityX, velocityY);
+        return entity;
+    }
+}
@@ -0,0 +1,737 @@
+package com.iancaffey.tempt;
+
+import com.iancaffey.tempt.coordinate.Cartesian2d;
+import com.iancaffey.tempt.entity.BodyType;
+import com.iancaffey.tempt.math.Dimension2d;
+import com.iancaffey.tempt.shape.Rectangle;
+import com.iancaffey.tempt.shape.Shape2d;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * SceneTest
+ * <p>
+ * Tests for {@link Scene}.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SceneTest {
+    @Test
+    public void addRejectsEntitiesOfOtherScenes() {
+        SceneEntity2d entity = entity(0, 0, 0, 0);
+        Scene first = new Scene(0, 0, 100, 100);
+        Scene second = new Scene(0, 0, 100, 100);
+        first.add(entity);
+        first.add(entity);
+        try {
+            second.add(entity);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            second.spawn(entity);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        first.remove(entity);
+        second.add(entity);
+        assertEquals(0, first.getEntities().length);
+        assertSame(entity, second.getEntities()[0]);
+    }
+
+    @Test
+    public void commandsApplyInOrderAtTheNextStep() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d first = entity(10, 10, 0, 0);
+        SceneEntity2d second = entity(50, 50, 0, 0);
+        scene.add(second);
+        scene.spawn(first);
+        scene.modify(first, entity -> entity.setPosition(20, 30));
+        scene.despawn(second);
+        scene.modify(second, entity -> fail());
+        scene.spawn(second);
+        scene.despawn(second);
+        assertEquals(1, scene.getEntities().length);
+        scene.step(0.01);
+        assertArrayEquals(new SceneEntity2d[]{first}, scene.getEntities());
+        assertEquals(20, first.getPosition().getX(), 0);
+        assertEquals(30, first.getPosition().getY(), 0);
+    }
+
+    @Test
+    public void mutationsDuringStepsAreDeferred() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d left = entity(10, 10, 0, 0);
+        SceneEntity2d right = entity(12, 10, 0, 0);
+        SceneEntity2d spawned = entity(60, 60, 0, 0);
+        scene.add(left, right);
+        scene.setPairFilter((a, b) -> {
+            scene.add(spawned);
+            scene.remove(left);
+            return true;
+        });
+        scene.step(0.01);
+        assertEquals(2, scene.getEntities().length);
+        scene.setPairFilter(null);
+        scene.step(0.01);
+        assertArrayEquals(new SceneEntity2d[]{right, spawned}, sorted(scene.getEntities()));
+    }
+
+    @Test
+    public void spawnsFromManyThreadsAreApplied() throws InterruptedException {
+        Scene scene = new Scene(0, 0, 1000, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<SceneEntity2d> spawned = Collections.synchronizedList(new ArrayList<>());
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                Random random = new Random();
+                for (int i = 0; i < 500; i++) {
+                    SceneEntity2d entity = entity(random.nextDouble() * 990, random.nextDouble() * 990, 0, 0);
+                    spawned.add(entity);
+                    scene.spawn(entity);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        scene.step(0.01);
+        assertEquals(spawned.size(), scene.getEntities().length);
+        for (SceneEntity2d entity : spawned)
+            assertTrue(entity.getId() >= 0);
+    }
+
+    @Test
+    public void contactsBeginPersistAndEnd() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d left = entity(40, 50, 0, 0);
+        SceneEntity2d right = entity(42, 50, 10, 0);
+        scene.add(left, right);
+        List<ContactState> states = new ArrayList<>();
+        scene.setContactListener(events -> {
+            for (int i = 0; i < events.size(); i++) {
+                assertSame(left, events.getLeft(i));
+                assertSame(right, events.getRight(i));
+                assertEquals(1, events.getNormalX(i), 1e-9);
+                assertEquals(0, events.getNormalY(i), 1e-9);
+                states.add(events.getState(i));
+            }
+        });
+        for (int step = 0; step < 200; step++)
+            scene.step(0.01);
+        assertTrue(states.size() > 2);
+        assertEquals(ContactState.BEGIN, states.get(0));
+        assertEquals(ContactState.END, states.get(states.size() - 1));
+        for (ContactState state : states.subList(1, states.size() - 1))
+            assertEquals(ContactState.PERSIST, state);
+    }
+
+    @Test
+    public void removingAnEntityEndsItsContacts() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d left = entity(10, 10, 0, 0);
+        SceneEntity2d right = entity(12, 10, 0, 0);
+        scene.add(left, right);
+        List<ContactState> states = new ArrayList<>();
+        scene.setContactListener(events -> {
+            for (int i = 0; i < events.size(); i++)
+                states.add(events.getState(i));
+        });
+        scene.step(0.01);
+        scene.step(0.01);
+        scene.remove(left);
+        scene.step(0.01);
+        scene.step(0.01);
+        assertEquals(Arrays.asList(ContactState.BEGIN, ContactState.PERSIST, ContactState.END), states);
+    }
+
+    @Test
+    public void staticBodiesOnlyCollideWithDynamicBodies() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d first = body(BodyType.STATIC, 10, 10, 0, 0);
+        SceneEntity2d second = body(BodyType.STATIC, 12, 10, 0, 0);
+        SceneEntity2d kinematic = body(BodyType.KINEMATIC, 11, 12, 0, 0);
+        scene.add(first, second, kinematic);
+        List<ContactState> states = new ArrayList<>();
+        scene.setContactListener(events -> {
+            for (int i = 0; i < events.size(); i++)
+                states.add(events.getState(i));
+        });
+        for (int step = 0; step < 5; step++)
+            scene.step(0.01);
+        assertTrue(states.isEmpty());
+        SceneEntity2d dynamic = entity(30, 11, -100, 0);
+        scene.add(dynamic);
+        for (int step = 0; step < 20; step++)
+            scene.step(0.01);
+        assertFalse(states.isEmpty());
+        assertTrue(dynamic.getVelocity().getX() > 0);
+        assertEquals(12, second.getPosition().getX(), 0);
+        assertEquals(0, second.getVelocity().getX(), 0);
+    }
+
+    @Test
+    public void kinematicBodiesAreUnaffectedByCollisions() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d kinematic = body(BodyType.KINEMATIC, 10, 10, 100, 0);
+        SceneEntity2d other = body(BodyType.KINEMATIC, 30, 10, -100, 0);
+        SceneEntity2d dynamic = entity(20, 30, 0, 0);
+        scene.add(kinematic, other, dynamic);
+        List<ContactState> states = new ArrayList<>();
+        scene.setContactListener(events -> {
+            for (int i = 0; i < events.size(); i++)
+                states.add(events.getState(i));
+        });
+        for (int step = 0; step < 20; step++)
+            scene.step(0.01);
+        assertTrue(states.isEmpty());
+        assertEquals(100, kinematic.getVelocity().getX(), 0);
+        assertEquals(-100, other.getVelocity().getX(), 0);
+        kinematic.setPosition(20, 20);
+        kinematic.setVelocity(0, 100);
+        for (int step = 0; step < 10; step++)
+            scene.step(0.01);
+        assertFalse(states.isEmpty());
+        assertEquals(0, kinematic.getVelocity().getX(), 0);
+        assertEquals(100, kinematic.getVelocity().getY(), 0);
+        assertTrue(dynamic.getVelocity().getY() > 100);
+    }
+
+    @Test
+    public void continuousStepsStopFastBodiesTunnelling() {
+        assertTrue(tunnels(false));
+        assertFalse(tunnels(true));
+    }
+
+    /**
+     * Fires a fast body at a thin static wall, moving five times the wall thickness per step, and returns whether it
+     * ends up beyond the wall.
+     */
+    private static boolean tunnels(boolean continuous) {
+        Scene scene = new Scene(0, 0, 200, 100);
+        scene.setContinuous(continuous);
+        SceneEntity2d wall = new SceneEntity2d(1, new Dimension2d(4, 100));
+        wall.setBodyType(BodyType.STATIC);
+        wall.setPosition(100, 0);
+        SceneEntity2d bullet = entity(10, 48, 2000, 0);
+        scene.add(wall, bullet);
+        for (int step = 0; step < 10; step++)
+            scene.step(0.01);
+        assertEquals(100, wall.getPosition().getX(), 0);
+        return bullet.getPosition().getX() > 100;
+    }
+
+    @Test
+    public void maskedOutPairsDoNotCollide() {
+        assertTrue(collides(1, -1, 2, -1));
+        assertFalse(collides(1, ~2, 2, ~1));
+        assertFalse(collides(4, 8, 8, 8));
+    }
+
+    @Test
+    public void oneSidedMasksAreRejected() {
+        assertFalse(collides(1, 2, 2, 4));
+        assertFalse(collides(1, -1, 2, ~1));
+        assertTrue(collides(1, 2, 2, 1));
+    }
+
+    /**
+     * Drives two entities with the specified collision filters head-on into each other and returns whether they
+     * collided, checking that the contact events and pair filter agree with the velocities.
+     */
+    private static boolean collides(int leftCategory, int leftMask, int rightCategory, int rightMask) {
+        Scene scene = new Scene(0, 0, 200, 100);
+        SceneEntity2d left = entity(40, 48, 100, 0);
+        SceneEntity2d right = entity(60, 48, -100, 0);
+        left.setCategory(leftCategory);
+        left.setMask(leftMask);
+        right.setCategory(rightCategory);
+        right.setMask(rightMask);
+        scene.add(left, right);
+        int[] contacts = new int[2];
+        scene.setContactListener(events -> contacts[0] += events.size());
+        scene.setPairFilter((a, b) -> ++contacts[1] > 0);
+        for (int step = 0; step < 20; step++)
+            scene.step(0.01);
+        boolean collided = left.getVelocity().getX() != 100 || right.getVelocity().getX() != -100;
+        assertEquals(collided, contacts[0] > 0);
+        assertEquals(collided, contacts[1] > 0);
+        return collided;
+    }
+
+    @Test
+    public void restingEntitiesSleepAfterTheSleepSteps() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        scene.setSleepSteps(5);
+        SceneEntity2d resting = entity(10, 10, 0.005, 0);
+        SceneEntity2d moving = entity(50, 50, 1, 0);
+        scene.add(resting, moving);
+        for (int step = 0; step < 4; step++)
+            scene.step(0.01);
+        assertFalse(scene.isSleeping(resting));
+        scene.step(0.01);
+        assertTrue(scene.isSleeping(resting));
+        assertFalse(scene.isSleeping(moving));
+        assertEquals(0, resting.getVelocity().getX(), 0);
+        scene.setSleepSteps(0);
+        assertFalse(scene.isSleeping(resting));
+    }
+
+    @Test
+    public void sleepingEntitiesAreNotIntegrated() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        scene.setSleepThreshold(1);
+        scene.setSleepSteps(5);
+        SceneEntity2d entity = entity(10, 10, 0, 0);
+        entity.getMotion().setAcceleration(0.5, 0);
+        scene.add(entity);
+        for (int step = 0; step < 5; step++)
+            scene.step(0.01);
+        assertTrue(scene.isSleeping(entity));
+        double x = entity.getPosition().getX();
+        for (int step = 0; step < 100; step++)
+            scene.step(0.01);
+        assertTrue(scene.isSleeping(entity));
+        assertEquals(x, entity.getPosition().getX(), 0);
+        assertEquals(0, entity.getVelocity().getX(), 0);
+    }
+
+    @Test
+    public void sleepingEntitiesWakeOnContactAndMotionUpdates() {
+        Scene scene = new Scene(0, 0, 200, 100);
+        scene.setSleepSteps(5);
+        SceneEntity2d sleeper = entity(100, 48, 0, 0);
+        SceneEntity2d striker = entity(20, 48, 0, 0);
+        scene.add(sleeper, striker);
+        for (int step = 0; step < 5; step++)
+            scene.step(0.01);
+        assertTrue(scene.isSleeping(sleeper));
+        assertTrue(scene.isSleeping(striker));
+        striker.setVelocity(100, 0);
+        assertFalse(scene.isSleeping(striker));
+        assertTrue(scene.isSleeping(sleeper));
+        for (int step = 0; step < 100 && scene.isSleeping(sleeper); step++)
+            scene.step(0.01);
+        assertFalse(scene.isSleeping(sleeper));
+        assertTrue(sleeper.getVelocity().getX() > 0);
+        double x = sleeper.getPosition().getX();
+        scene.step(0.01);
+        assertTrue(sleeper.getPosition().getX() > x);
+    }
+
+    @Test
+    public void parallelStepsMatchSerialSteps() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertArrayEquals(crowd(null, false), crowd(executor, false), 0);
+            assertArrayEquals(crowd(null, true), crowd(executor, true), 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void queriesAcceptShapesDescribedByTheirBounds() {
+        Scene scene = new Scene(0, 0, 100, 100);
+        SceneEntity2d inside = entity(10, 10, 0, 0);
+        scene.add(inside, entity(80, 80, 0, 0));
+        Shape2d shape = new Shape2d() {
+            @Override
+            public double getX() {
+                return 5;
+            }
+
+            @Override
+            public double getY() {
+                return 5;
+            }
+
+            @Override
+            public boolean contains(Cartesian2d coordinate) {
+                return contains(coordinate.getX(), coordinate.getY());
+            }
+
+            @Override
+            public boolean contains(double x, double y) {
+                return getBounds().contains(x, y);
+            }
+
+            @Override
+            public Rectangle getBounds() {
+                return new Rectangle(5, 5, 10, 10);
+            }
+        };
+        assertArrayEquals(new SceneEntity2d[]{inside}, scene.query(shape));
+    }
+
+    @Test
+    public void raycastsIntoCallerHitsDoNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        Scene scene = new Scene(0, 0, 1000, 1000);
+        Random random = new Random(4);
+        for (int i = 0; i < 2000; i++)
+            scene.add(entity(random.nextDouble() * 990, random.nextDouble() * 990, 0, 0));
+        scene.step(0.01);
+        RaycastHit hit = new RaycastHit();
+        long thread = Thread.currentThread().getId();
+        long allocated = 0;
+        int hits = 0;
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 5000; i++) {
+                double angle = i * 0.37;
+                if (scene.raycast(500, 500, Math.cos(angle), Math.sin(angle), 400, hit))
+                    hits++;
+                if (scene.segmentQuery(10, 10 + i % 900, 990, 990 - i % 900, hit))
+                    hits++;
+            }
+            allocated = threads.getThreadAllocatedBytes(thread) - before;
+        }
+        assertTrue(hits > 0);
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    @Test
+    public void nearestReturnsAtMostKEntitiesNearestFirst() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        SceneEntity2d first = entity(100, 100, 0, 0);
+        SceneEntity2d second = entity(110, 100, 0, 0);
+        SceneEntity2d third = entity(100, 130, 0, 0);
+        scene.add(third, first, second);
+        assertArrayEquals(new SceneEntity2d[]{first, second}, scene.nearest(101, 101, 2));
+        assertArrayEquals(new SceneEntity2d[]{first, second, third}, scene.nearest(101, 101, Integer.MAX_VALUE));
+        assertEquals(0, scene.nearest(101, 101, 0).length);
+        assertEquals(0, scene.nearest(101, 101, -1).length);
+    }
+
+    @Test
+    public void nearestIsConsistentWithConcurrentMutations() throws Exception {
+        Scene scene = new Scene(0, 0, 200, 200);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> mutations = executor.submit(() -> {
+                Random random = new Random(31);
+                List<SceneEntity2d> added = new ArrayList<>();
+                for (int i = 0; i < 20000; i++) {
+                    if (added.isEmpty() || random.nextBoolean()) {
+                        SceneEntity2d entity = entity(random.nextDouble() * 196, random.nextDouble() * 196, 0, 0);
+                        added.add(entity);
+                        scene.add(entity);
+                    } else {
+                        scene.remove(added.remove(random.nextInt(added.size())));
+                    }
+                }
+            });
+            while (!mutations.isDone()) {
+                SceneEntity2d[] nearest = scene.nearest(100, 100, 8);
+                assertTrue(nearest.length <= 8);
+                for (SceneEntity2d entity : nearest)
+                    assertNotNull(entity);
+            }
+            mutations.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(Math.min(8, scene.getEntities().length), scene.nearest(100, 100, 8).length);
+    }
+
+    @Test
+    public void sectorQueriesTestEntityCentersAgainstTheSector() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        SceneEntity2d ahead = entity(128, 98, 0, 0);
+        SceneEntity2d edge = entity(98 + 30 * Math.cos(0.7), 98 + 30 * Math.sin(0.7), 0, 0);
+        SceneEntity2d outside = entity(98 + 30 * Math.cos(0.9), 98 + 30 * Math.sin(0.9), 0, 0);
+        SceneEntity2d behind = entity(68, 98, 0, 0);
+        SceneEntity2d limit = entity(148, 98, 0, 0);
+        SceneEntity2d far = entity(148.001, 98, 0, 0);
+        scene.add(ahead, edge, outside, behind, limit, far);
+        assertArrayEquals(new SceneEntity2d[]{ahead, edge, limit}, sector(scene, 100, 100, 0, 0.8, 50));
+        assertArrayEquals(new SceneEntity2d[]{ahead, limit}, sector(scene, 100, 100, 0, 0, 50));
+        assertArrayEquals(new SceneEntity2d[]{ahead, edge, outside}, sector(scene, 100, 100, 0, Math.PI / 2, 30));
+        assertArrayEquals(new SceneEntity2d[]{behind}, sector(scene, 100, 100, Math.PI, 0.1, 50));
+        assertArrayEquals(new SceneEntity2d[]{behind}, sector(scene, 100, 100, -Math.PI, 0.1, 50));
+        assertArrayEquals(new SceneEntity2d[0], sector(scene, 100, 100, 0, -0.1, 50));
+        assertArrayEquals(new SceneEntity2d[0], sector(scene, 100, 100, 0, 0.8, 0));
+    }
+
+    @Test
+    public void sectorQueriesFromWithinAnEntity() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        SceneEntity2d viewer = entity(98, 98, 0, 0);
+        SceneEntity2d offset = entity(99, 98, 0, 0);
+        SceneEntity2d other = entity(120, 98, 0, 0);
+        scene.add(viewer, offset, other);
+        assertArrayEquals(new SceneEntity2d[]{offset, other}, sector(scene, 100, 100, 0, 0.5, 50));
+        assertArrayEquals(new SceneEntity2d[0], sector(scene, 100, 100, Math.PI, 0.5, 50));
+        assertArrayEquals(new SceneEntity2d[]{offset, other}, sector(scene, 100, 100, Math.PI, Math.PI, 50));
+    }
+
+    @Test
+    public void wideSectorQueriesCoverTheWholeDisc() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        List<SceneEntity2d> ring = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            double angle = i * Math.PI / 8;
+            ring.add(entity(98 + 40 * Math.cos(angle), 98 + 40 * Math.sin(angle), 0, 0));
+        }
+        SceneEntity2d far = entity(180, 98, 0, 0);
+        scene.add(ring.toArray(new SceneEntity2d[0]));
+        scene.add(far);
+        SceneEntity2d[] expected = sorted(ring.toArray(new SceneEntity2d[0]));
+        for (double halfAngle : new double[]{Math.PI, 3.5, 2 * Math.PI, 100})
+            for (double heading : new double[]{0, 1, -2, Math.PI})
+                assertArrayEquals(expected, sector(scene, 100, 100, heading, halfAngle, 50));
+        assertEquals(15, sector(scene, 100, 100, 0, Math.PI - 0.1, 50).length);
+    }
+
+    @Test
+    public void sectorQueriesMatchBruteForce() {
+        Random random = new Random(29);
+        Scene scene = new Scene(0, 0, 200, 200);
+        List<SceneEntity2d> entities = new ArrayList<>();
+        for (int i = 0; i < 400; i++)
+            entities.add(entity(random.nextDouble() * 196, random.nextDouble() * 196, 0, 0));
+        scene.add(entities.toArray(new SceneEntity2d[0]));
+        int viewers = 50;
+        double[] x = new double[viewers];
+        double[] y = new double[viewers];
+        double[] headings = new double[viewers];
+        double[] ranges = new double[viewers];
+        for (int i = 0; i < viewers; i++) {
+            x[i] = random.nextDouble() * 200;
+            y[i] = random.nextDouble() * 200;
+            headings[i] = (random.nextDouble() - 0.5) * 4 * Math.PI;
+            ranges[i] = random.nextDouble() * 80;
+        }
+        for (double halfAngle : new double[]{0.3, 1.2, Math.PI / 2 + 0.4, 3, 4}) {
+            List<List<SceneEntity2d>> found = new ArrayList<>();
+            for (int i = 0; i < viewers; i++)
+                found.add(new ArrayList<>());
+            scene.querySectors(x, y, headings, ranges, halfAngle, (entity, viewer) -> found.get(viewer).add(entity));
+            for (int i = 0; i < viewers; i++) {
+                List<SceneEntity2d> expected = new ArrayList<>();
+                for (SceneEntity2d entity : entities) {
+                    double dx = entity.getPosition().getX() + 2 - x[i];
+                    double dy = entity.getPosition().getY() + 2 - y[i];
+                    double difference = Math.abs(Math.IEEEremainder(Math.atan2(dy, dx) - headings[i], 2 * Math.PI));
+                    if (Math.hypot(dx, dy) <= ranges[i] && difference <= halfAngle)
+                        expected.add(entity);
+                }
+                SceneEntity2d[] single = sector(scene, x[i], y[i], headings[i], halfAngle, ranges[i]);
+                assertArrayEquals(sorted(expected.toArray(new SceneEntity2d[0])), single);
+                assertArrayEquals(single, sorted(found.get(i).toArray(new SceneEntity2d[0])));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sectorQueriesRejectMismatchedViewers() {
+        new Scene(0, 0, 100, 100).querySectors(new double[2], new double[2], new double[1], new double[2], 1, (entity, viewer) -> {
+        });
+    }
+
+    /**
+     * Returns the entities within the specified sector of the scene, sorted by id.
+     */
+    private static SceneEntity2d[] sector(Scene scene, double x, double y, double heading, double halfAngle, double range) {
+        List<SceneEntity2d> found = new ArrayList<>();
+        scene.querySector(x, y, heading, halfAngle, range, found::add);
+        return sorted(found.toArray(new SceneEntity2d[0]));
+    }
+
+    @Test
+    public void reflectingScenesBounceEntitiesOffTheBounds() {
+        BoundedScene scene = new BoundedScene(new Rectangle(0, 0, 100, 100), BoundaryPolicy.REFLECT);
+        SceneEntity2d right = entity(94, 50, 100, 20);
+        SceneEntity2d top = entity(50, 1, 20, -100);
+        scene.add(right, top);
+        scene.step(0.05);
+        assertEquals(96, right.getPosition().getX(), 0);
+        assertEquals(-100, right.getVelocity().getX(), 0);
+        assertEquals(20, right.getVelocity().getY(), 0);
+        assertEquals(0, top.getPosition().getY(), 0);
+        assertEquals(20, top.getVelocity().getX(), 0);
+        assertEquals(100, top.getVelocity().getY(), 0);
+        assertEquals(0, scene.getWalls().length);
+    }
+
+    @Test
+    public void clampingScenesStopEntitiesAtTheBounds() {
+        BoundedScene scene = new BoundedScene(new Rectangle(0, 0, 100, 100), BoundaryPolicy.CLAMP);
+        SceneEntity2d left = entity(2, 50, -100, 20);
+        SceneEntity2d bottom = entity(50, 94, 20, 100);
+        scene.add(left, bottom);
+        scene.step(0.05);
+        assertEquals(0, left.getPosition().getX(), 0);
+        assertEquals(0, left.getVelocity().getX(), 0);
+        assertEquals(20, left.getVelocity().getY(), 0);
+        assertEquals(96, bottom.getPosition().getY(), 0);
+        assertEquals(20, bottom.getVelocity().getX(), 0);
+        assertEquals(0, bottom.getVelocity().getY(), 0);
+    }
+
+    @Test
+    public void despawningScenesRemoveEntitiesWhichLeaveTheBounds() {
+        BoundedScene scene = new BoundedScene(new Rectangle(0, 0, 100, 100), BoundaryPolicy.DESPAWN);
+        SceneEntity2d leaving = entity(94, 50, 100, 0);
+        SceneEntity2d straddling = entity(97, 10, 0, 0);
+        SceneEntity2d wall = body(BodyType.STATIC, 120, 50, 0, 0);
+        scene.add(leaving, straddling, wall);
+        scene.step(0.05);
+        assertEquals(3, scene.getEntities().length);
+        scene.step(0.05);
+        assertEquals(Arrays.asList(straddling, wall), Arrays.asList(sorted(scene.getEntities())));
+        assertEquals(-1, leaving.getId());
+        scene.add(leaving);
+        assertEquals(3, scene.getEntities().length);
+    }
+
+    @Test
+    public void walledScenesKeepEntitiesInside() {
+        BoundedScene scene = new BoundedScene(0, 0, 100, 100);
+        for (SceneEntity2d wall : scene.getWalls())
+            assertEquals(BodyType.STATIC, wall.getBodyType());
+        SceneEntity2d entity = entity(50, 50, 300, 0);
+        scene.add(entity);
+        for (int step = 0; step < 100; step++)
+            scene.step(0.01);
+        assertTrue(entity.getPosition().getX() >= 0 && entity.getPosition().getX() <= 96);
+        assertEquals(300, Math.abs(entity.getVelocity().getX()), 1e-9);
+    }
+
+    @Test
+    public void wrappingQueriesReportEachEntityOnce() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        scene.setBoundaryPolicy(BoundaryPolicy.WRAP);
+        Random random = new Random(3);
+        List<SceneEntity2d> entities = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            SceneEntity2d entity = new SceneEntity2d(1, new Dimension2d(1 + random.nextDouble() * 12, 1 + random.nextDouble() * 12));
+            entity.setPosition(random.nextDouble() * 200, random.nextDouble() * 200);
+            entities.add(entity);
+            scene.add(entity);
+        }
+        for (int query = 0; query < 100; query++) {
+            double x = random.nextDouble() * 200;
+            double y = random.nextDouble() * 200;
+            double width = 1 + random.nextDouble() * 60;
+            double height = 1 + random.nextDouble() * 60;
+            Map<SceneEntity2d, Integer> found = new IdentityHashMap<>();
+            scene.query(x, y, width, height, entity -> found.merge(entity, 1, Integer::sum));
+            int expected = 0;
+            for (SceneEntity2d entity : entities) {
+                if (wrappedOverlap(entity, x, y, width, height, 200)) {
+                    expected++;
+                    assertEquals(Integer.valueOf(1), found.get(entity));
+                }
+            }
+            assertEquals(expected, found.size());
+        }
+        assertEquals(entities.size(), scene.query(new Rectangle(0, 0, 200, 200)).length);
+    }
+
+    @Test
+    public void wrappingScenesCollideAcrossTheSeam() {
+        Scene scene = new Scene(0, 0, 200, 200);
+        scene.setBoundaryPolicy(BoundaryPolicy.WRAP);
+        SceneEntity2d left = entity(194, 100, 100, 0);
+        SceneEntity2d right = entity(2, 100, -100, 0);
+        scene.add(left, right);
+        List<Double> normals = new ArrayList<>();
+        scene.setContactListener(events -> {
+            for (int i = 0; i < events.size(); i++) {
+                if (events.getState(i) == ContactState.BEGIN) {
+                    assertSame(left, events.getLeft(i));
+                    assertSame(right, events.getRight(i));
+                    normals.add(events.getNormalX(i));
+                }
+            }
+        });
+        for (int step = 0; step < 10; step++)
+            scene.step(0.01);
+        assertFalse(normals.isEmpty());
+        assertTrue(normals.get(0) > 0);
+    }
+
+    private static SceneEntity2d[] sorted(SceneEntity2d[] entities) {
+        Arrays.sort(entities, Comparator.comparingInt(SceneEntity2d::getId));
+        return entities;
+    }
+
+    /**
+     * Returns whether an entity overlaps a region of a wrapping scene at any of its wrapped images.
+     */
+    private static boolean wrappedOverlap(SceneEntity2d entity, double x, double y, double width, double height, double size) {
+        for (int shiftX = -1; shiftX <= 1; shiftX++) {
+            for (int shiftY = -1; shiftY <= 1; shiftY++) {
+                double left = entity.getPosition().getX() + shiftX * size;
+                double top = entity.getPosition().getY() + shiftY * size;
+                if (x < left + entity.getSize().getWidth() && left < x + width && y < top + entity.getSize().getHeight() && top < y + height)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Steps a crowded scene and returns the final positions of its entities. The crowd is dense enough that each step
+     * begins more contacts than fit in a single chunk, and a hub entity can overlap more entities than there are colors.
+     */
+    private static double[] crowd(ExecutorService executor, boolean hub) {
+        BoundedScene scene = new BoundedScene(0, 0, 400, 400);
+        scene.setExecutor(executor);
+        Random random = new Random(1);
+        SceneEntity2d[] entities = new SceneEntity2d[4000];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = entity(random.nextDouble() * 396, random.nextDouble() * 396, random.nextGaussian() * 40, random.nextGaussian() * 40);
+            entities[i].setMass(1 + random.nextInt(3));
+            scene.add(entities[i]);
+        }
+        if (hub) {
+            SceneEntity2d center = new SceneEntity2d(5, new Dimension2d(120, 120));
+            center.setPosition(140, 140);
+            scene.add(center);
+        }
+        for (int step = 0; step < 20; step++)
+            scene.step(1 / 120d);
+        double[] positions = new double[entities.length * 2];
+        for (int i = 0; i < entities.length; i++) {
+            positions[i * 2] = entities[i].getPosition().getX();
+            positions[i * 2 + 1] = entities[i].getPosition().getY();
+        }
+        for (double position : positions)
+            assertFalse(Double.isNaN(position));
+        return positions;
+    }
+
+    private static SceneEntity2d entity(double x, double y, double velocityX, double velocityY) {
+        SceneEntity2d entity = new SceneEntity2d(1, new Dimension2d(4, 4));
+        entity.setPosition(x, y);
+        entity.setVelocity(velocityX, velocityY);
+        return entity;
+    }
+
+    private static SceneEntity2d body(BodyType bodyType, double x, double y, double velocityX, double velocityY) {
+        SceneEntity2d entity = entity(x, y, velocityX, velocityY);
+        entity.setBodyType(bodyType);
+        return entity;
+    }
+}
@@ -0,0 +1,300 @@
+package com.iancaffey.tempt.collision;
+
+import com.iancaffey.tempt.util.Motion;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Broadphase2dTest
+ * <p>
+ * The contract shared by every {@link Broadphase2d}, checked against a brute force search over the same bounds.
+ * <p>
+ * Each round adds, moves, and removes values, then checks queries both before and after the pairs are found, since
+ * incremental indexes may only bring their state up to date when pairs are found.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public abstract class Broadphase2dTest {
+    private static final int ROUNDS = 40;
+    private final Map<Integer, double[]> bounds = new HashMap<>();
+    private final Map<Integer, Integer> proxies = new HashMap<>();
+    private Broadphase2d<Integer> broadphase;
+    private Random random;
+    private int next;
+
+    /**
+     * Creates the empty broadphase under test.
+     *
+     * @return the broadphase
+     */
+    protected abstract Broadphase2d<Integer> create();
+
+    @Before
+    public void setUp() {
+        broadphase = create();
+        random = new Random(11);
+        bounds.clear();
+        proxies.clear();
+        next = 0;
+    }
+
+    @Test
+    public void getReturnsAddedValues() {
+        int proxy = add(1, 2, 3, 4);
+        assertEquals(Integer.valueOf(0), broadphase.get(proxy));
+        broadphase.remove(proxy);
+        try {
+            broadphase.get(proxy);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRejectsNullValues() {
+        broadphase.add(null, 0, 0, 1, 1);
+    }
+
+    @Test
+    public void touchingBoundsOverlap() {
+        add(0, 0, 10, 10);
+        add(10, 0, 10, 10);
+        add(0, 10, 10, 10);
+        add(20.5, 20.5, 1, 1);
+        assertPairs();
+        assertQuery(20, 0, 0.5, 10);
+        assertQuery(21.5, 21.5, 0, 0);
+    }
+
+    @Test
+    public void queriesMatchBruteForce() {
+        for (int round = 0; round < ROUNDS; round++) {
+            churn();
+            assertQueries();
+            assertPairs();
+            assertQueries();
+        }
+    }
+
+    @Test
+    public void findPairsMatchesBruteForce() {
+        for (int round = 0; round < ROUNDS; round++) {
+            churn();
+            assertPairs();
+        }
+        for (int value : new ArrayList<>(proxies.keySet()))
+            remove(value);
+        assertPairs();
+    }
+
+    @Test
+    public void raycastsMatchBruteForce() {
+        for (int round = 0; round < ROUNDS; round++) {
+            churn();
+            if (round % 2 == 0)
+                broadphase.findPairs(null);
+            for (int ray = 0; ray < 10; ray++) {
+                double x = random.nextDouble() * 600 - 50;
+                double y = random.nextDouble() * 600 - 50;
+                double angle = random.nextDouble() * Math.PI * 2;
+                double directionX = ray == 0 ? 0 : Math.cos(angle);
+                double directionY = ray == 1 ? 0 : Math.sin(angle);
+                double maxDistance = random.nextDouble() * 400;
+                Map<Integer, Double> hits = new HashMap<>();
+                broadphase.raycast(x, y, directionX, directionY, maxDistance, (value, distance) -> {
+                    assertNull(hits.put(value, distance));
+                    return maxDistance;
+                });
+                Map<Integer, Double> expected = new HashMap<>();
+                double nearest = Double.POSITIVE_INFINITY;
+                for (Map.Entry<Integer, double[]> entry : bounds.entrySet()) {
+                    double[] box = entry.getValue();
+                    double distance = Motion.getRayDistance(x, y, directionX, directionY, box[0], box[1], box[0] + box[2], box[1] + box[3], maxDistance);
+                    if (distance != Double.POSITIVE_INFINITY) {
+                        expected.put(entry.getKey(), distance);
+                        nearest = Math.min(nearest, distance);
+                    }
+                }
+                assertEquals(expected, hits);
+                double[] closest = {Double.POSITIVE_INFINITY};
+                broadphase.raycast(x, y, directionX, directionY, maxDistance, (value, distance) -> {
+                    assertTrue(distance <= closest[0]);
+                    closest[0] = distance;
+                    return distance;
+                });
+                assertEquals(nearest, closest[0], 0);
+            }
+        }
+    }
+
+    @Test
+    public void nearestMatchesBruteForce() {
+        for (int round = 0; round < ROUNDS; round++) {
+            churn();
+            if (round % 2 == 0)
+                broadphase.findPairs(null);
+            for (int search = 0; search < 10; search++) {
+                double x = random.nextDouble() * 600 - 50;
+                double y = random.nextDouble() * 600 - 50;
+                double radius = random.nextDouble() * 80;
+                double maxDistanceSquared = radius * radius;
+                Map<Integer, Double> found = new HashMap<>();
+                broadphase.nearest(x, y, maxDistanceSquared, (value, distanceSquared) -> {
+                    assertNull(found.put(value, distanceSquared));
+                    return maxDistanceSquared;
+                });
+                Map<Integer, Double> expected = new HashMap<>();
+                double nearest = Double.POSITIVE_INFINITY;
+                for (Map.Entry<Integer, double[]> entry : bounds.entrySet()) {
+                    double[] box = entry.getValue();
+                    double distance = Motion.getDistanceSquared(x, y, box[0], box[1], box[0] + box[2], box[1] + box[3]);
+                    if (distance <= maxDistanceSquared) {
+                        expected.put(entry.getKey(), distance);
+                        nearest = Math.min(nearest, distance);
+                    }
+                }
+                assertEquals(expected, found);
+                double[] closest = {Double.POSITIVE_INFINITY};
+                broadphase.nearest(x, y, maxDistanceSquared, (value, distanceSquared) -> {
+                    assertTrue(distanceSquared <= closest[0]);
+                    closest[0] = distanceSquared;
+                    return distanceSquared;
+                });
+                assertEquals(nearest, closest[0], 0);
+            }
+        }
+    }
+
+    @Test
+    public void largeAndDistantValuesAreFound() {
+        for (int i = 0; i < 50; i++)
+            add(random.nextDouble() * 500, random.nextDouble() * 500, 5, 5);
+        add(-1000, -1000, 3000, 3000);
+        add(1e12, 1e12, 10, 10);
+        add(1e12 + 5, 1e12 + 5, 10, 10);
+        add(-1e12, 3, 10, 10);
+        assertPairs();
+        assertQuery(1e12 - 1, 1e12 - 1, 2, 2);
+        assertQuery(-1e12 - 5, 0, 10, 10);
+        assertQuery(-1e13, -1e13, 2e13, 2e13);
+        Set<Integer> hits = new HashSet<>();
+        broadphase.raycast(0, 0, 1, 1, 2e12, (value, distance) -> {
+            hits.add(value);
+            return 2e12;
+        });
+        assertTrue(hits.contains(next - 3));
+        assertTrue(hits.contains(next - 2));
+        Set<Integer> near = new HashSet<>();
+        broadphase.nearest(1e12 + 20, 1e12 + 20, 100, (value, distanceSquared) -> {
+            near.add(value);
+            return 100;
+        });
+        assertEquals(Collections.singleton(next - 2), near);
+    }
+
+    @Test
+    public void clearRemovesEveryValue() {
+        for (int round = 0; round < 3; round++)
+            churn();
+        broadphase.clear();
+        bounds.clear();
+        proxies.clear();
+        assertPairs();
+        assertQuery(-1000, -1000, 3000, 3000);
+        churn();
+        assertPairs();
+        assertQueries();
+    }
+
+    /**
+     * Adds, moves, and removes a batch of random values, keeping some bounds on whole numbers so that edges touch.
+     */
+    private void churn() {
+        for (int i = 0; i < 40; i++) {
+            int operation = random.nextInt(4);
+            if (operation < 2 || proxies.isEmpty()) {
+                add(coordinate(500), coordinate(500), 1 + coordinate(40), 1 + coordinate(40));
+                continue;
+            }
+            List<Integer> values = new ArrayList<>(proxies.keySet());
+            int value = values.get(random.nextInt(values.size()));
+            if (operation == 2) {
+                remove(value);
+            } else {
+                double[] box = bounds.get(value);
+                box[0] += random.nextInt(3) == 0 ? coordinate(200) - 100 : random.nextGaussian() * 3;
+                box[1] += random.nextGaussian() * 3;
+                broadphase.move(proxies.get(value), box[0], box[1], box[2], box[3]);
+            }
+        }
+    }
+
+    private double coordinate(double range) {
+        double coordinate = random.nextDouble() * range;
+        return random.nextBoolean() ? Math.floor(coordinate) : coordinate;
+    }
+
+    private int add(double x, double y, double width, double height) {
+        int value = next++;
+        bounds.put(value, new double[]{x, y, width, height});
+        int proxy = broadphase.add(value, x, y, width, height);
+        proxies.put(value, proxy);
+        return proxy;
+    }
+
+    private void remove(int value) {
+        bounds.remove(value);
+        broadphase.remove(proxies.remove(value));
+    }
+
+    private void assertQueries() {
+        for (int i = 0; i < 10; i++)
+            assertQuery(coordinate(600) - 50, coordinate(600) - 50, coordinate(120), coordinate(120));
+    }
+
+    private void assertQuery(double x, double y, double width, double height) {
+        List<Integer> found = new ArrayList<>();
+        broadphase.query(x, y, width, height, found::add);
+        Set<Integer> expected = new HashSet<>();
+        for (Map.Entry<Integer, double[]> entry : bounds.entrySet())
+            if (overlaps(entry.getValue(), x, y, width, height))
+                expected.add(entry.getKey());
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<>(found));
+    }
+
+    private void assertPairs() {
+        List<Long> found = new ArrayList<>();
+        broadphase.findPairs((left, right) -> found.add(key(left, right)));
+        Set<Long> expected = new HashSet<>();
+        List<Integer> values = new ArrayList<>(bounds.keySet());
+        for (int i = 0; i < values.size(); i++) {
+            double[] box = bounds.get(values.get(i));
+            for (int j = i + 1; j < values.size(); j++)
+                if (overlaps(bounds.get(values.get(j)), box[0], box[1], box[2], box[3]))
+                    expected.add(key(values.get(i), values.get(j)));
+        }
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<>(found));
+    }
+
+    private static boolean overlaps(double[] box, double x, double y, double width, double height) {
+        return box[0] <= x + width && x <= box[0] + box[2] && box[1] <= y + height && y <= box[1] + box[3];
+    }
+
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
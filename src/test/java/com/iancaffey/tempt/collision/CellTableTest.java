@@ -0,0 +1,73 @@
+package com.iancaffey.tempt.collision;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * CellTableTest
+ * <p>
+ * Tests for {@link CellTable}, checking the table against a map of the cells it should hold.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class CellTableTest {
+    @Test
+    public void findsAddedCells() {
+        CellTable<String> table = new CellTable<>();
+        table.add(-1L, "a");
+        table.add(0L, "b");
+        table.add(Long.MIN_VALUE, "c");
+        assertEquals(3, table.size());
+        assertEquals("a", table.find(-1L));
+        assertEquals("b", table.find(0L));
+        assertEquals("c", table.find(Long.MIN_VALUE));
+        assertNull(table.find(1L));
+        table.remove(0L);
+        table.remove(1L);
+        assertEquals(2, table.size());
+        assertNull(table.find(0L));
+        table.clear();
+        assertEquals(0, table.size());
+        assertNull(table.find(-1L));
+    }
+
+    @Test
+    public void matchesMapUnderChurn() {
+        Random random = new Random(13);
+        CellTable<Long> table = new CellTable<>();
+        Map<Long, Long> model = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(64) - 32;
+            if (random.nextInt(3) == 0 || model.containsKey(key)) {
+                table.remove(key);
+                model.remove(key);
+            } else {
+                table.add(key, key);
+                model.put(key, key);
+            }
+            if (i % 100 == 0)
+                assertModel(table, model);
+        }
+        assertModel(table, model);
+    }
+
+    private static void assertModel(CellTable<Long> table, Map<Long, Long> model) {
+        assertEquals(model.size(), table.size());
+        for (long key = -40; key < 40; key++)
+            assertEquals(model.get(key), table.find(key));
+        List<Long> scanned = new ArrayList<>();
+        for (int slot = 0; slot < table.length(); slot++)
+            if (table.get(slot) != null)
+                scanned.add(table.get(slot));
+        assertEquals(model.size(), scanned.size());
+        assertTrue(model.keySet().containsAll(scanned));
+    }
+}
@@ -0,0 +1,45 @@
+package com.iancaffey.tempt.collision;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * DynamicTree2dTest
+ * <p>
+ * Tests for {@link DynamicTree2d}, including the balance of the tree as leaves come and go.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class DynamicTree2dTest extends Broadphase2dTest {
+    @Override
+    protected Broadphase2d<Integer> create() {
+        return new DynamicTree2d<>();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeMargins() {
+        new DynamicTree2d<>(-1);
+    }
+
+    @Test
+    public void staysBalanced() {
+        DynamicTree2d<Integer> tree = new DynamicTree2d<>(0);
+        assertEquals(0, tree.getHeight());
+        int[] proxies = new int[4096];
+        for (int i = 0; i < proxies.length; i++)
+            proxies[i] = tree.add(i, i * 10, 0, 5, 5);
+        assertTrue(tree.getHeight() <= 24);
+        Random random = new Random(2);
+        for (int i = 0; i < proxies.length; i += 2)
+            tree.remove(proxies[i]);
+        for (int i = 1; i < proxies.length; i += 2)
+            tree.move(proxies[i], random.nextDouble() * 1000, random.nextDouble() * 1000, 5, 5);
+        assertTrue(tree.getHeight() <= 22);
+        tree.clear();
+        assertEquals(0, tree.getHeight());
+    }
+}
@@ -0,0 +1,258 @@
+package com.iancaffey.tempt.collision;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * PairCacheTest
+ * <p>
+ * Tests for {@link PairCache}, checking the cache against a simple model of the pairs it should hold.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class PairCacheTest {
+    @Test
+    public void touchStoresUnorderedPairsOnce() {
+        PairCache cache = new PairCache();
+        int slot = cache.touch(7, 3);
+        assertEquals(slot, cache.touch(3, 7));
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.getLeft(slot));
+        assertEquals(7, cache.getRight(slot));
+        assertEquals(slot, cache.find(7, 3));
+        assertEquals(PairCache.ABSENT, cache.find(3, 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void touchRejectsSelfPairs() {
+        new PairCache().touch(4, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void touchRejectsNegativeIndices() {
+        new PairCache().touch(-1, 4);
+    }
+
+    @Test
+    public void statesFollowSteps() {
+        PairCache cache = new PairCache();
+        int slot = cache.touch(1, 2);
+        assertEquals(PairCache.BEGIN, cache.getState(slot));
+        cache.sweep(null);
+        slot = cache.find(1, 2);
+        assertEquals(PairCache.END, cache.getState(slot));
+        assertEquals(1, cache.getAge(slot));
+        slot = cache.touch(1, 2);
+        assertEquals(PairCache.PERSIST, cache.getState(slot));
+        cache.sweep(null);
+        assertEquals(2, cache.getAge(cache.find(1, 2)));
+        List<Integer> ended = new ArrayList<>();
+        cache.sweep(ended::add);
+        assertEquals(1, ended.size());
+        assertEquals(0, cache.size());
+        assertEquals(PairCache.ABSENT, cache.find(1, 2));
+    }
+
+    @Test
+    public void normalsAreResetForNewPairs() {
+        PairCache cache = new PairCache();
+        int slot = cache.touch(1, 2);
+        cache.setNormal(slot, 0.6, -0.8);
+        slot = cache.touch(2, 1);
+        assertEquals(0.6, cache.getNormalX(slot), 0);
+        assertEquals(-0.8, cache.getNormalY(slot), 0);
+        cache.sweep(null);
+        cache.sweep(null);
+        slot = cache.touch(1, 2);
+        assertEquals(0, cache.getNormalX(slot), 0);
+        assertEquals(0, cache.getNormalY(slot), 0);
+    }
+
+    @Test
+    public void removeDropsSinglePairs() {
+        PairCache cache = new PairCache();
+        cache.touch(1, 2);
+        cache.touch(1, 3);
+        assertTrue(cache.remove(2, 1));
+        assertFalse(cache.remove(2, 1));
+        assertEquals(1, cache.size());
+        assertEquals(PairCache.ABSENT, cache.find(1, 2));
+        assertNotEquals(PairCache.ABSENT, cache.find(1, 3));
+    }
+
+    @Test
+    public void partnersFollowPairs() {
+        PairCache cache = new PairCache();
+        cache.touch(5, 1);
+        cache.touch(5, 2);
+        cache.touch(1, 2);
+        assertEquals(2, cache.getPartnerCount(5));
+        assertEquals(0, cache.getPartnerCount(3));
+        assertEquals(0, cache.getPartnerCount(100));
+        List<Integer> removed = new ArrayList<>();
+        cache.removeAll(5, slot -> removed.add(cache.getRight(slot) == 5 ? cache.getLeft(slot) : cache.getRight(slot)));
+        assertEquals(2, removed.size());
+        assertTrue(removed.containsAll(Arrays.asList(1, 2)));
+        assertEquals(0, cache.getPartnerCount(5));
+        assertEquals(1, cache.getPartnerCount(1));
+        assertEquals(2, cache.getPartner(1, 0));
+        cache.clear();
+        assertEquals(0, cache.getPartnerCount(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getPartnerRejectsMissingPartners() {
+        PairCache cache = new PairCache();
+        cache.touch(1, 2);
+        cache.getPartner(1, 1);
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        PairCache cache = new PairCache(0);
+        for (int i = 0; i < 1000; i++)
+            cache.touch(i, i + 1);
+        assertEquals(1000, cache.size());
+        for (int i = 0; i < 1000; i++) {
+            int slot = cache.find(i + 1, i);
+            assertEquals(i, cache.getLeft(slot));
+            assertEquals(i + 1, cache.getRight(slot));
+        }
+    }
+
+    @Test
+    public void forEachVisitsEveryPair() {
+        PairCache cache = new PairCache();
+        for (int i = 0; i < 50; i++)
+            cache.touch(i, 100 + i);
+        Set<Integer> lefts = new HashSet<>();
+        cache.forEach(slot -> assertTrue(lefts.add(cache.getLeft(slot))));
+        assertEquals(50, lefts.size());
+    }
+
+    @Test
+    public void clearRemovesEveryPair() {
+        PairCache cache = new PairCache();
+        cache.touch(1, 2);
+        cache.touch(3, 4);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(PairCache.ABSENT, cache.find(1, 2));
+        cache.forEach(slot -> fail());
+    }
+
+    /**
+     * Small tables make probe sequences wrap around the end of the table often, which is where a scan deleting as it
+     * goes could shift a pair it has already visited into a slot it has yet to visit.
+     */
+    @Test
+    public void sweepVisitsEachPairOnceAcrossTheWrap() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 5000; trial++) {
+            PairCache cache = new PairCache(2);
+            Map<Long, Integer> ages = new HashMap<>();
+            for (int step = 0; step < 6; step++) {
+                Set<Long> touched = new HashSet<>();
+                int touches = random.nextInt(5);
+                for (int i = 0; i < touches; i++) {
+                    int a = random.nextInt(6);
+                    int b = random.nextInt(6);
+                    if (a == b)
+                        continue;
+                    cache.touch(a, b);
+                    touched.add(key(a, b));
+                    ages.putIfAbsent(key(a, b), 0);
+                }
+                for (long key : ages.keySet()) {
+                    if (!touched.contains(key) && random.nextInt(4) != 0) {
+                        cache.touch(left(key), right(key));
+                        touched.add(key);
+                    }
+                }
+                Map<Long, Integer> visits = new HashMap<>();
+                cache.sweep(slot -> visits.merge(key(cache.getLeft(slot), cache.getRight(slot)), 1, Integer::sum));
+                for (long key : new ArrayList<>(ages.keySet())) {
+                    if (touched.contains(key)) {
+                        assertNull(visits.get(key));
+                        ages.put(key, ages.get(key) + 1);
+                    } else {
+                        assertEquals(Integer.valueOf(1), visits.get(key));
+                        ages.remove(key);
+                    }
+                }
+                assertModel(cache, ages);
+            }
+        }
+    }
+
+    @Test
+    public void removeAllVisitsEachPairOnceAcrossTheWrap() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 5000; trial++) {
+            PairCache cache = new PairCache(2);
+            Map<Long, Integer> ages = new HashMap<>();
+            int pairs = random.nextInt(6);
+            for (int i = 0; i < pairs; i++) {
+                int a = random.nextInt(5);
+                int b = random.nextInt(5);
+                if (a == b)
+                    continue;
+                cache.touch(a, b);
+                ages.put(key(a, b), 0);
+            }
+            int index = random.nextInt(5);
+            Map<Long, Integer> visits = new HashMap<>();
+            cache.removeAll(index, slot -> visits.merge(key(cache.getLeft(slot), cache.getRight(slot)), 1, Integer::sum));
+            for (long key : new ArrayList<>(ages.keySet())) {
+                if (left(key) == index || right(key) == index) {
+                    assertEquals(Integer.valueOf(1), visits.get(key));
+                    ages.remove(key);
+                } else {
+                    assertNull(visits.get(key));
+                }
+            }
+            assertModel(cache, ages);
+        }
+    }
+
+    private static void assertModel(PairCache cache, Map<Long, Integer> ages) {
+        assertEquals(ages.size(), cache.size());
+        for (Map.Entry<Long, Integer> entry : ages.entrySet()) {
+            int slot = cache.find(left(entry.getKey()), right(entry.getKey()));
+            assertNotEquals(PairCache.ABSENT, slot);
+            assertEquals((int) entry.getValue(), cache.getAge(slot));
+        }
+        Set<Long> partners = new HashSet<>();
+        for (int index = 0; index < 8; index++)
+            for (int i = 0; i < cache.getPartnerCount(index); i++)
+                assertTrue(partners.add(((long) index << 32) | cache.getPartner(index, i)));
+        assertEquals(ages.size() * 2, partners.size());
+        for (long key : ages.keySet()) {
+            assertTrue(partners.contains(key));
+            assertTrue(partners.contains(((long) right(key) << 32) | left(key)));
+        }
+    }
+
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    private static int left(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int right(long key) {
+        return (int) key;
+    }
+}
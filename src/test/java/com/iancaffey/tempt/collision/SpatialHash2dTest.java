@@ -0,0 +1,28 @@
+package com.iancaffey.tempt.collision;
+
+import org.junit.Test;
+
+/**
+ * SpatialHash2dTest
+ * <p>
+ * Tests for {@link SpatialHash2d}, using a cell size small enough that most values span several cells.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SpatialHash2dTest extends Broadphase2dTest {
+    @Override
+    protected Broadphase2d<Integer> create() {
+        return new SpatialHash2d<>(16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyCells() {
+        new SpatialHash2d<>(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInfiniteCells() {
+        new SpatialHash2d<>(Double.POSITIVE_INFINITY);
+    }
+}
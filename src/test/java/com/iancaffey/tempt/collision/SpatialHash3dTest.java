@@ -0,0 +1,191 @@
+package com.iancaffey.tempt.collision;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * SpatialHash3dTest
+ * <p>
+ * Tests for {@link SpatialHash3d}, checked against a brute force search over the same bounds.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SpatialHash3dTest {
+    private static final int ROUNDS = 40;
+    private final Map<Integer, double[]> bounds = new HashMap<>();
+    private final Map<Integer, Integer> proxies = new HashMap<>();
+    private SpatialHash3d<Integer> broadphase;
+    private Random random;
+    private int next;
+
+    @Before
+    public void setUp() {
+        broadphase = new SpatialHash3d<>(16);
+        random = new Random(17);
+        bounds.clear();
+        proxies.clear();
+        next = 0;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCellSizes() {
+        new SpatialHash3d<>(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRejectsNullValues() {
+        broadphase.add(null, 0, 0, 0, 1, 1, 1);
+    }
+
+    @Test
+    public void getReturnsAddedValues() {
+        int proxy = add(1, 2, 3, 4, 5, 6);
+        assertEquals(Integer.valueOf(0), broadphase.get(proxy));
+        broadphase.remove(proxy);
+        try {
+            broadphase.get(proxy);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void touchingBoundsOverlap() {
+        add(0, 0, 0, 16, 16, 16);
+        add(16, 0, 0, 16, 16, 16);
+        add(0, 0, 16, 16, 16, 16);
+        add(40.5, 40.5, 40.5, 1, 1, 1);
+        assertPairs();
+        assertQuery(32, 0, 0, 0.5, 16, 16);
+        assertQuery(41.5, 41.5, 41.5, 0, 0, 0);
+    }
+
+    @Test
+    public void queriesAndPairsMatchBruteForce() {
+        for (int round = 0; round < ROUNDS; round++) {
+            churn();
+            for (int i = 0; i < 10; i++)
+                assertQuery(coordinate(300) - 20, coordinate(300) - 20, coordinate(300) - 20, coordinate(80), coordinate(80), coordinate(80));
+            assertPairs();
+        }
+        for (int value : new ArrayList<>(proxies.keySet()))
+            remove(value);
+        assertPairs();
+        assertQuery(-1000, -1000, -1000, 3000, 3000, 3000);
+    }
+
+    @Test
+    public void largeAndDistantValuesAreFound() {
+        for (int i = 0; i < 50; i++)
+            add(random.nextDouble() * 200, random.nextDouble() * 200, random.nextDouble() * 200, 5, 5, 5);
+        add(-500, -500, -500, 1000, 1000, 1000);
+        add(1e12, 1e12, 1e12, 10, 10, 10);
+        add(1e12 + 5, 1e12 + 5, 1e12 + 5, 10, 10, 10);
+        add(-1e12, 3, 3, 10, 10, 10);
+        assertPairs();
+        assertQuery(1e12 - 1, 1e12 - 1, 1e12 - 1, 2, 2, 2);
+        assertQuery(-1e12 - 5, 0, 0, 10, 10, 10);
+        assertQuery(-1e13, -1e13, -1e13, 2e13, 2e13, 2e13);
+    }
+
+    @Test
+    public void clearRemovesEveryValue() {
+        for (int round = 0; round < 3; round++)
+            churn();
+        broadphase.clear();
+        bounds.clear();
+        proxies.clear();
+        assertPairs();
+        assertQuery(-1000, -1000, -1000, 3000, 3000, 3000);
+        churn();
+        assertPairs();
+    }
+
+    /**
+     * Adds, moves, and removes a batch of random values, keeping some bounds on whole numbers so that faces touch.
+     */
+    private void churn() {
+        for (int i = 0; i < 40; i++) {
+            int operation = random.nextInt(4);
+            if (operation < 2 || proxies.isEmpty()) {
+                add(coordinate(250), coordinate(250), coordinate(250), 1 + coordinate(30), 1 + coordinate(30), 1 + coordinate(30));
+                continue;
+            }
+            List<Integer> values = new ArrayList<>(proxies.keySet());
+            int value = values.get(random.nextInt(values.size()));
+            if (operation == 2) {
+                remove(value);
+            } else {
+                double[] box = bounds.get(value);
+                box[0] += random.nextInt(3) == 0 ? coordinate(100) - 50 : random.nextGaussian() * 3;
+                box[1] += random.nextGaussian() * 3;
+                box[2] += random.nextGaussian() * 3;
+                broadphase.move(proxies.get(value), box[0], box[1], box[2], box[3], box[4], box[5]);
+            }
+        }
+    }
+
+    private double coordinate(double range) {
+        double coordinate = random.nextDouble() * range;
+        return random.nextBoolean() ? Math.floor(coordinate) : coordinate;
+    }
+
+    private int add(double x, double y, double z, double width, double height, double depth) {
+        int value = next++;
+        bounds.put(value, new double[]{x, y, z, width, height, depth});
+        int proxy = broadphase.add(value, x, y, z, width, height, depth);
+        proxies.put(value, proxy);
+        return proxy;
+    }
+
+    private void remove(int value) {
+        bounds.remove(value);
+        broadphase.remove(proxies.remove(value));
+    }
+
+    private void assertQuery(double x, double y, double z, double width, double height, double depth) {
+        List<Integer> found = new ArrayList<>();
+        broadphase.query(x, y, z, width, height, depth, found::add);
+        Set<Integer> expected = new HashSet<>();
+        for (Map.Entry<Integer, double[]> entry : bounds.entrySet())
+            if (overlaps(entry.getValue(), new double[]{x, y, z, width, height, depth}))
+                expected.add(entry.getKey());
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<>(found));
+    }
+
+    private void assertPairs() {
+        List<Long> found = new ArrayList<>();
+        broadphase.findPairs((left, right) -> found.add(key(left, right)));
+        Set<Long> expected = new HashSet<>();
+        List<Integer> values = new ArrayList<>(bounds.keySet());
+        for (int i = 0; i < values.size(); i++)
+            for (int j = i + 1; j < values.size(); j++)
+                if (overlaps(bounds.get(values.get(i)), bounds.get(values.get(j))))
+                    expected.add(key(values.get(i), values.get(j)));
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<>(found));
+    }
+
+    private static boolean overlaps(double[] a, double[] b) {
+        for (int axis = 0; axis < 3; axis++)
+            if (a[axis] > b[axis] + b[axis + 3] || b[axis] > a[axis] + a[axis + 3])
+                return false;
+        return true;
+    }
+
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
@@ -0,0 +1,130 @@
+package com.iancaffey.tempt.collision;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * SweepAndPrune2dTest
+ * <p>
+ * Tests for {@link SweepAndPrune2d}, including the overlapping pairs reported to its {@link OverlapListener}.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class SweepAndPrune2dTest extends Broadphase2dTest {
+    @Override
+    protected Broadphase2d<Integer> create() {
+        return new SweepAndPrune2d<>();
+    }
+
+    @Test
+    public void listenerFollowsOverlaps() {
+        Set<Long> open = new HashSet<>();
+        SweepAndPrune2d<Integer> broadphase = new SweepAndPrune2d<>(listener(open));
+        int a = broadphase.add(0, 0, 0, 10, 10);
+        broadphase.add(1, 5, 5, 10, 10);
+        broadphase.findPairs(null);
+        assertEquals(singleton(0, 1), open);
+        broadphase.move(a, -20, 0, 10, 10);
+        broadphase.findPairs(null);
+        assertTrue(open.isEmpty());
+        broadphase.move(a, 10, 10, 10, 10);
+        broadphase.findPairs(null);
+        assertEquals(singleton(0, 1), open);
+        broadphase.remove(a);
+        assertTrue(open.isEmpty());
+    }
+
+    @Test
+    public void queriesDoNotChangeOverlaps() {
+        Set<Long> open = new HashSet<>();
+        SweepAndPrune2d<Integer> broadphase = new SweepAndPrune2d<>(listener(open));
+        broadphase.add(0, 0, 0, 10, 10);
+        broadphase.add(1, 5, 5, 10, 10);
+        List<Integer> found = new ArrayList<>();
+        broadphase.query(0, 0, 20, 20, found::add);
+        assertEquals(2, found.size());
+        assertTrue(open.isEmpty());
+        broadphase.findPairs(null);
+        assertEquals(singleton(0, 1), open);
+    }
+
+    @Test
+    public void listenerBalancesUnderChurn() {
+        Random random = new Random(7);
+        Set<Long> open = new HashSet<>();
+        SweepAndPrune2d<Integer> broadphase = new SweepAndPrune2d<>(listener(open));
+        Map<Integer, double[]> bounds = new HashMap<>();
+        Map<Integer, Integer> proxies = new HashMap<>();
+        int next = 0;
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 30; i++) {
+                int operation = random.nextInt(3);
+                if (operation == 0 || bounds.isEmpty()) {
+                    double[] box = {random.nextDouble() * 300, random.nextDouble() * 300, 5 + random.nextDouble() * 30, 5 + random.nextDouble() * 30};
+                    bounds.put(next, box);
+                    proxies.put(next, broadphase.add(next, box[0], box[1], box[2], box[3]));
+                    next++;
+                    continue;
+                }
+                List<Integer> values = new ArrayList<>(bounds.keySet());
+                int value = values.get(random.nextInt(values.size()));
+                if (operation == 1) {
+                    bounds.remove(value);
+                    broadphase.remove(proxies.remove(value));
+                } else {
+                    double[] box = bounds.get(value);
+                    box[0] += random.nextGaussian() * 5;
+                    box[1] += random.nextGaussian() * 5;
+                    broadphase.move(proxies.get(value), box[0], box[1], box[2], box[3]);
+                }
+            }
+            broadphase.findPairs(null);
+            Set<Long> expected = new HashSet<>();
+            for (Map.Entry<Integer, double[]> left : bounds.entrySet()) {
+                for (Map.Entry<Integer, double[]> right : bounds.entrySet()) {
+                    double[] a = left.getValue();
+                    double[] b = right.getValue();
+                    if (left.getKey() < right.getKey() && a[0] <= b[0] + b[2] && b[0] <= a[0] + a[2] && a[1] <= b[1] + b[3] && b[1] <= a[1] + a[3])
+                        expected.add(key(left.getKey(), right.getKey()));
+                }
+            }
+            assertEquals(expected, open);
+            for (Map.Entry<Integer, Integer> entry : proxies.entrySet())
+                assertEquals(entry.getKey(), broadphase.get(entry.getValue()));
+        }
+    }
+
+    private static OverlapListener<Integer> listener(Set<Long> open) {
+        return new OverlapListener<Integer>() {
+            @Override
+            public void begin(Integer left, Integer right) {
+                assertTrue(open.add(key(left, right)));
+            }
+
+            @Override
+            public void end(Integer left, Integer right) {
+                assertTrue(open.remove(key(left, right)));
+            }
+        };
+    }
+
+    private static Set<Long> singleton(int a, int b) {
+        Set<Long> pairs = new HashSet<>();
+        pairs.add(key(a, b));
+        return pairs;
+    }
+
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
@@ -0,0 +1,75 @@
+package com.iancaffey.tempt.entity;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * EntityRegistryTest
+ * <p>
+ * Tests for {@link EntityRegistry}.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class EntityRegistryTest {
+    @Test
+    public void registerAssignsDenseIds() {
+        EntityRegistry<Entity> registry = new EntityRegistry<>();
+        Entity first = new Entity(1);
+        Entity second = new Entity(1);
+        assertEquals(0, registry.register(first));
+        assertEquals(1, registry.register(second));
+        assertEquals(0, registry.register(first));
+        assertEquals(2, registry.size());
+        assertSame(second, registry.get(1));
+        assertEquals(1, second.getId());
+    }
+
+    @Test
+    public void membershipIgnoresEquality() {
+        EntityRegistry<Entity> registry = new EntityRegistry<>();
+        Entity entity = new Entity(1);
+        Entity equal = new Entity(1);
+        registry.register(entity);
+        assertEquals(entity, equal);
+        assertTrue(registry.contains(entity));
+        assertFalse(registry.contains(equal));
+        assertEquals(-1, registry.unregister(equal));
+    }
+
+    @Test
+    public void unregisterRecyclesIds() {
+        EntityRegistry<Entity> registry = new EntityRegistry<>();
+        Entity first = new Entity();
+        Entity second = new Entity();
+        registry.register(first);
+        registry.register(second);
+        assertEquals(0, registry.unregister(first));
+        assertEquals(-1, first.getId());
+        assertFalse(registry.contains(first));
+        assertEquals(1, registry.size());
+        assertEquals(1, registry.getId(0));
+        Entity third = new Entity();
+        assertEquals(0, registry.register(third));
+        assertEquals(2, registry.getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registerRejectsEntitiesOfOtherRegistries() {
+        Entity entity = new Entity();
+        new EntityRegistry<>().register(entity);
+        new EntityRegistry<>().register(entity);
+    }
+
+    @Test
+    public void clearReleasesEveryEntity() {
+        EntityRegistry<Entity> registry = new EntityRegistry<>();
+        Entity entity = new Entity();
+        registry.register(entity);
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertEquals(-1, entity.getId());
+        assertEquals(0, new EntityRegistry<>().register(entity));
+    }
+}
@@ -0,0 +1,194 @@
+package com.iancaffey.tempt.entity;
+
+import com.iancaffey.tempt.coordinate.Cartesian2d;
+import com.iancaffey.tempt.coordinate.Vector2d;
+import com.iancaffey.tempt.math.Dimension2d;
+import com.iancaffey.tempt.math.Motion2d;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * EntityStore2dTest
+ * <p>
+ * Tests for {@link EntityStore2d} and the stored motion of its entities.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class EntityStore2dTest {
+    @Test
+    public void registerCopiesStateIntoColumns() {
+        EntityStore2d<Entity2d> store = new EntityStore2d<>();
+        Entity2d entity = entity(3, 4, 5, 6);
+        entity.getMotion().setAcceleration(7, 8);
+        entity.setCategory(2);
+        entity.setMask(5);
+        int id = store.register(entity);
+        assertEquals(3, store.getPositionX()[id], 0);
+        assertEquals(4, store.getPositionY()[id], 0);
+        assertEquals(5, store.getVelocityX()[id], 0);
+        assertEquals(6, store.getVelocityY()[id], 0);
+        assertEquals(7, store.getAccelerationX()[id], 0);
+        assertEquals(8, store.getAccelerationY()[id], 0);
+        assertEquals(2, store.getWidth()[id], 0);
+        assertEquals(3, store.getHeight()[id], 0);
+        assertEquals(1, store.getMass()[id], 0);
+        assertEquals(2, store.getCategory()[id]);
+        assertEquals(5, store.getMask()[id]);
+        assertFalse(store.isSleeping(id));
+    }
+
+    @Test
+    public void missingMotionComponentsAreStoredAsZero() {
+        EntityStore2d<Entity2d> store = new EntityStore2d<>();
+        Entity2d entity = new Entity2d(1, new Motion2d(null, null, null), new Dimension2d(2, 3));
+        int id = store.register(entity);
+        assertEquals(0, store.getPositionX()[id], 0);
+        assertEquals(0, store.getVelocityY()[id], 0);
+        assertEquals(0, store.getAccelerationX()[id], 0);
+    }
+
+    @Test
+    public void unregisterCompactsActiveEntities() {
+        EntityStore2d<Entity2d> store = new EntityStore2d<>();
+        Entity2d[] entities = new Entity2d[40];
+        for (int i = 0; i < entities.length; i++)
+            assertEquals(i, store.register(entities[i] = entity(i, -i, i * 2, i * 3)));
+        for (int i = 1; i < entities.length; i += 3)
+            store.unregister(entities[i]);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < entities.length; i++) {
+            if (i % 3 == 1)
+                continue;
+            expected.add(i);
+            assertColumns(store, i, i, -i, i * 2, i * 3);
+        }
+        assertActive(store, expected);
+        Entity2d replacement = entity(100, 200, 300, 400);
+        int id = store.register(replacement);
+        assertEquals(1, id % 3);
+        assertColumns(store, id, 100, 200, 300, 400);
+        expected.add(id);
+        assertActive(store, expected);
+        assertFalse(store.isSleeping(id));
+    }
+
+    @Test
+    public void unregisterCopiesStateBackIntoTheEntity() {
+        EntityStore2d<Entity2d> store = new EntityStore2d<>();
+        Motion2d motion = new Motion2d();
+        Entity2d entity = new Entity2d(1, motion, new Dimension2d(2, 3));
+        int id = store.register(entity);
+        store.getPositionX()[id] = 10;
+        store.getVelocityY()[id] = -4;
+        store.getMass()[id] = 9;
+        store.getMask()[id] = 6;
+        assertNotSame(motion, entity.getMotion());
+        store.unregister(entity);
+        assertSame(motion, entity.getMotion());
+        assertEquals(10, motion.getPosition().getX(), 0);
+        assertEquals(-4, motion.getVelocity().getY(), 0);
+        assertEquals(9, entity.getMass(), 0);
+        assertEquals(6, entity.getMask());
+        entity.setPosition(50, 60);
+        assertEquals(10, store.getPositionX()[id], 0);
+        assertFalse(store.isSleeping(id));
+        assertEquals(0, store.getActiveCount());
+    }
+
+    @Test
+    public void storedMotionWritesThroughToColumns() {
+        EntityStore2d<Entity2d> store = new EntityStore2d<>();
+        Entity2d entity = entity(0, 0, 0, 0);
+        int id = store.register(entity);
+        entity.setPosition(new Cartesian2d(1, 2));
+        entity.setVelocity(3, 4);
+        entity.getMotion().setAcceleration(new Vector2d(5, 6));
+        entity.setMass(7);
+        entity.setCategory(8);
+        assertColumns(store, id, 1, 2, 3, 4);
+        assertEquals(5, store.getAccelerationX()[id], 0);
+        assertEquals(6, store.getAccelerationY()[id], 0);
+        assertEquals(7, store.getMass()[id], 0);
+        assertEquals(8, store.getCategory()[id]);
+        store.getPositionY()[id] = -2;
+        store.getVelocityX()[id] = -3;
+        assertEquals(-2, entity.getPosition().getY(), 0);
+        assertEquals(-3, entity.getVelocity().getX(), 0);
+        entity.setVelocity(null);
+        assertEquals(0, store.getVelocityX()[id], 0);
+        assertEquals(0, store.getVelocityY()[id], 0);
+    }
+
+    @Test
+    public void storedMotionWritesWakeTheEntity() {
+        EntityStore2d<Entity2d> store = new EntityStore2d<>();
+        Entity2d entity = entity(0, 0, 0, 0);
+        Entity2d other = entity(0, 0, 0, 0);
+        int id = store.register(entity);
+        store.register(other);
+        store.getRestSteps()[id] = 5;
+        store.sleep(id);
+        assertTrue(store.isSleeping(id));
+        assertEquals(1, store.getActiveCount());
+        entity.getPosition();
+        entity.getVelocity();
+        assertTrue(store.isSleeping(id));
+        entity.setVelocity(1, 0);
+        assertFalse(store.isSleeping(id));
+        assertEquals(0, store.getRestSteps()[id]);
+        assertEquals(2, store.getActiveCount());
+        store.sleep(id);
+        entity.setPosition(1, 1);
+        assertFalse(store.isSleeping(id));
+        store.sleep(id);
+        entity.setMask(3);
+        assertFalse(store.isSleeping(id));
+    }
+
+    @Test
+    public void clearCopiesStateBackIntoEveryEntity() {
+        EntityStore2d<Entity2d> store = new EntityStore2d<>();
+        Entity2d first = entity(1, 1, 0, 0);
+        Entity2d second = entity(2, 2, 0, 0);
+        store.register(first);
+        store.register(second);
+        second.setPosition(5, 5);
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, store.getActiveCount());
+        assertEquals(5, second.getPosition().getX(), 0);
+        assertEquals(1, first.getPosition().getX(), 0);
+        first.setPosition(9, 9);
+        assertEquals(9, first.getMotion().getPosition().getX(), 0);
+    }
+
+    private static void assertColumns(EntityStore2d<?> store, int id, double x, double y, double velocityX, double velocityY) {
+        assertEquals(x, store.getPositionX()[id], 0);
+        assertEquals(y, store.getPositionY()[id], 0);
+        assertEquals(velocityX, store.getVelocityX()[id], 0);
+        assertEquals(velocityY, store.getVelocityY()[id], 0);
+    }
+
+    private static void assertActive(EntityStore2d<?> store, Set<Integer> expected) {
+        Set<Integer> active = new HashSet<>();
+        for (int i = 0; i < store.getActiveCount(); i++)
+            active.add(store.getActiveId(i));
+        assertEquals(expected.size(), store.getActiveCount());
+        assertEquals(expected, active);
+    }
+
+    /**
+     * Returns a new 2x3 entity of unit mass at the specified position and with the specified velocity.
+     */
+    private static Entity2d entity(double x, double y, double velocityX, double velocityY) {
+        Entity2d entity = new Entity2d(1, new Dimension2d(2, 3));
+        entity.setPosition(x, y);
+        entity.setVelocity(velocityX, velocityY);
+        return entity;
+    }
+}
@@ -0,0 +1,279 @@
+package com.iancaffey.tempt.util;
+
+import com.iancaffey.tempt.coordinate.VectorPair2d;
+import com.iancaffey.tempt.entity.Entity2d;
+import com.iancaffey.tempt.math.Dimension2d;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * MotionTest
+ * <p>
+ * Tests for the collision and query kernels of {@link Motion}.
+ *
+ * @author Ian Caffey
+ * @since 1.0
+ */
+public class MotionTest {
+    private static final double EPSILON = 1e-9;
+    private static final double IMMOVABLE = Double.MAX_VALUE;
+    private final double[] result = new double[Motion.COLLISION_RESULT_LENGTH];
+
+    @Test
+    public void collisionNormalPointsFromLeftToRight() {
+        Motion.getCollision(0, 0, 10, 10, 1, 0, 1, 8, 2, 10, 10, -1, 0, 1, result);
+        assertTrue(result[4] > 0);
+        assertTrue(result[5] > 0);
+        assertEquals(1, Math.hypot(result[4], result[5]), EPSILON);
+        Motion.getCollision(8, 2, 10, 10, -1, 0, 1, 0, 0, 10, 10, 1, 0, 1, result);
+        assertTrue(result[4] < 0);
+        assertTrue(result[5] < 0);
+    }
+
+    @Test
+    public void collisionNormalIsDefinedWhenOneBodyContainsTheOther() {
+        Motion.getCollision(20, 40, 4, 4, 1, 2, 1, 0, 0, 100, 100, 0, 0, 5, result);
+        for (double value : result)
+            assertFalse(Double.isNaN(value));
+        assertArrayEquals(new double[]{1, 0}, new double[]{result[4], result[5]}, 0);
+        Motion.getCollision(48, 48, 4, 4, 1, 2, 1, 0, 0, 100, 100, 0, 0, 5, result);
+        for (double value : result)
+            assertFalse(Double.isNaN(value));
+        assertEquals(1, Math.hypot(result[4], result[5]), 0);
+    }
+
+    @Test
+    public void collisionOfEqualMassesKeepsEnergy() {
+        Random random = new Random(9);
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextDouble() * 18 - 9;
+            double y = random.nextDouble() * 18 - 9;
+            double vx1 = random.nextGaussian();
+            double vy1 = random.nextGaussian();
+            double vx2 = random.nextGaussian();
+            double vy2 = random.nextGaussian();
+            Motion.getCollision(0, 0, 10, 10, vx1, vy1, 2, x, y, 10, 10, vx2, vy2, 2, result);
+            assertEquals(energy(vx1, vy1, vx2, vy2), energy(result[0], result[1], result[2], result[3]), EPSILON);
+        }
+    }
+
+    @Test
+    public void collisionMatchesNormalCollision() {
+        Random random = new Random(10);
+        double[] expected = new double[Motion.COLLISION_RESULT_LENGTH];
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextDouble() * 18 - 9;
+            double y = random.nextDouble() * 18 - 9;
+            double vx1 = random.nextGaussian();
+            double vy1 = random.nextGaussian();
+            double vx2 = random.nextGaussian();
+            double vy2 = random.nextGaussian();
+            double mass1 = 0.1 + random.nextDouble() * 10;
+            double mass2 = random.nextInt(10) == 0 ? IMMOVABLE : 0.1 + random.nextDouble() * 10;
+            Motion.getCollision(0, 0, 10, 10, vx1, vy1, mass1, x, y, 10, 10, vx2, vy2, mass2, result);
+            Motion.getCollision(vx1, vy1, mass1, vx2, vy2, mass2, result[4], result[5], expected);
+            assertArrayEquals(expected, result, 0);
+            if (mass2 == IMMOVABLE)
+                continue;
+            assertEquals(mass1 * vx1 + mass2 * vx2, mass1 * result[0] + mass2 * result[2], EPSILON);
+            assertEquals(mass1 * vy1 + mass2 * vy2, mass1 * result[1] + mass2 * result[3], EPSILON);
+        }
+    }
+
+    @Test
+    public void collisionKeepsTangentialVelocities() {
+        Motion.getCollision(0, 0, 10, 10, 2, 3, 1, 9, 0, 10, 10, -2, -1, 1, result);
+        assertArrayEquals(new double[]{-2, 3, 2, -1, 1, 0}, result, EPSILON);
+        Motion.getCollision(0, 0, 10, 10, -2, 3, 1, 9, 0, 10, 10, 2, -1, 1, result);
+        assertArrayEquals(new double[]{-2, 3, 2, -1, 1, 0}, result, EPSILON);
+    }
+
+    @Test
+    public void collisionOfImmovableBodiesKeepsEnergy() {
+        Motion.getCollision(0, 0, 10, 10, 3, 1, IMMOVABLE, 9, 0, 10, 10, -2, 0, IMMOVABLE, result);
+        assertEquals(energy(3, 1, -2, 0), energy(result[0], result[1], result[2], result[3]), EPSILON);
+    }
+
+    @Test
+    public void collisionReflectsOffImmovableRight() {
+        Motion.getCollision(0, 0, 10, 10, 3, 1, 1, 9, 0, 10, 10, 0, 0, IMMOVABLE, result);
+        assertArrayEquals(new double[]{-3, 1, 0, 0, 1, 0}, result, EPSILON);
+        Motion.getCollision(0, 0, 10, 10, 1, 3, 1, 0, 9, 10, 10, 0, 0, IMMOVABLE, result);
+        assertArrayEquals(new double[]{1, -3, 0, 0, 0, 1}, result, EPSILON);
+    }
+
+    @Test
+    public void collisionReflectsOffImmovableLeft() {
+        Motion.getCollision(9, 0, 10, 10, 0, 0, IMMOVABLE, 0, 0, 10, 10, 3, 1, 1, result);
+        assertArrayEquals(new double[]{0, 0, -3, 1, -1, 0}, result, EPSILON);
+        Motion.getCollision(0, 9, 10, 10, 0, 0, IMMOVABLE, 0, 0, 10, 10, 1, 3, 1, result);
+        assertArrayEquals(new double[]{0, 0, 1, -3, 0, -1}, result, EPSILON);
+    }
+
+    @Test
+    public void collisionOfEntitiesMatchesKernel() {
+        Entity2d left = entity(1, 0, 0, 10, 10, 2, 1);
+        Entity2d right = entity(3, 6, 4, 8, 12, -1, 0.5);
+        VectorPair2d pair = Motion.getCollision(left, right);
+        Motion.getCollision(0, 0, 10, 10, 2, 1, 1, 6, 4, 8, 12, -1, 0.5, 3, result);
+        assertEquals(result[0], pair.getLeft().getX(), 0);
+        assertEquals(result[1], pair.getLeft().getY(), 0);
+        assertEquals(result[2], pair.getRight().getX(), 0);
+        assertEquals(result[3], pair.getRight().getY(), 0);
+        assertFalse(Motion.getCollision(left, right, new double[Motion.COLLISION_RESULT_LENGTH - 1]));
+        assertNull(Motion.getCollision(left, null));
+    }
+
+    @Test
+    public void timeOfImpactFindsFirstContact() {
+        assertEquals(1, Motion.getTimeOfImpact(0, 0, 10, 10, 10, 0, 20, 0, 10, 10, 0, 0, 2), EPSILON);
+        assertEquals(0.5, Motion.getTimeOfImpact(0, 0, 10, 10, 10, 0, 20, 0, 10, 10, -10, 0, 2), EPSILON);
+        assertEquals(1, Motion.getTimeOfImpact(0, 0, 10, 10, 0, 5, 5, 15, 10, 10, 0, 0, 2), EPSILON);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getTimeOfImpact(0, 0, 10, 10, 10, 0, 20, 0, 10, 10, 0, 0, 0.5), 0);
+    }
+
+    @Test
+    public void timeOfImpactOfOverlapIsZero() {
+        assertEquals(0, Motion.getTimeOfImpact(0, 0, 10, 10, 0, 0, 5, 5, 10, 10, 0, 0, 1), 0);
+        assertEquals(0, Motion.getTimeOfImpact(0, 0, 10, 10, 1, 0, 10, 0, 10, 10, 0, 0, 1), 0);
+    }
+
+    @Test
+    public void timeOfImpactMissesSeparatingAndPassingBodies() {
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getTimeOfImpact(0, 0, 10, 10, -1, 0, 10, 0, 10, 10, 0, 0, 1), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getTimeOfImpact(0, 0, 10, 10, -10, 0, 20, 0, 10, 10, 0, 0, 5), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getTimeOfImpact(0, 0, 10, 10, 0, 10, 20, 0, 10, 10, 0, 0, 5), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getTimeOfImpact(0, 0, 10, 10, 10, 10, 20, -40, 10, 10, 0, 0, 5), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getTimeOfImpact(0, 0, 0, 10, 10, 0, 20, 0, 10, 10, 0, 0, 5), 0);
+    }
+
+    @Test
+    public void timeOfImpactIsFirstTouch() {
+        Random random = new Random(4);
+        for (int i = 0; i < 1000; i++) {
+            double x1 = random.nextDouble() * 100;
+            double y1 = random.nextDouble() * 100;
+            double vx1 = random.nextGaussian() * 50;
+            double vy1 = random.nextGaussian() * 50;
+            double x2 = random.nextDouble() * 100;
+            double y2 = random.nextDouble() * 100;
+            double time = Motion.getTimeOfImpact(x1, y1, 10, 10, vx1, vy1, x2, y2, 10, 10, 0, 0, 1);
+            if (time == Double.POSITIVE_INFINITY || time == 0)
+                continue;
+            assertTrue(time <= 1);
+            assertTrue(overlaps(x1 + vx1 * time, y1 + vy1 * time, x2, y2, 1e-6));
+            assertFalse(overlaps(x1 + vx1 * time * 0.99, y1 + vy1 * time * 0.99, x2, y2, 0));
+        }
+    }
+
+    @Test
+    public void normalCollisionExchangesEqualMomentum() {
+        Motion.getCollision(1, 2, 1, -1, 0, 1, 1, 0, result);
+        assertArrayEquals(new double[]{-1, 2, 1, 0, 1, 0}, result, EPSILON);
+    }
+
+    @Test
+    public void normalCollisionConservesMomentumAndEnergy() {
+        Random random = new Random(6);
+        for (int i = 0; i < 1000; i++) {
+            double angle = random.nextDouble() * Math.PI * 2;
+            double nx = Math.cos(angle);
+            double ny = Math.sin(angle);
+            double vx1 = random.nextGaussian();
+            double vy1 = random.nextGaussian();
+            double vx2 = random.nextGaussian();
+            double vy2 = random.nextGaussian();
+            double mass1 = 0.1 + random.nextDouble() * 10;
+            double mass2 = 0.1 + random.nextDouble() * 10;
+            Motion.getCollision(vx1, vy1, mass1, vx2, vy2, mass2, nx, ny, result);
+            assertEquals(mass1 * vx1 + mass2 * vx2, mass1 * result[0] + mass2 * result[2], EPSILON);
+            assertEquals(mass1 * vy1 + mass2 * vy2, mass1 * result[1] + mass2 * result[3], EPSILON);
+            assertEquals(mass1 * (vx1 * vx1 + vy1 * vy1) + mass2 * (vx2 * vx2 + vy2 * vy2),
+                    mass1 * (result[0] * result[0] + result[1] * result[1]) + mass2 * (result[2] * result[2] + result[3] * result[3]), 1e-6);
+            assertEquals(-ny * vx1 + nx * vy1, -ny * result[0] + nx * result[1], EPSILON);
+            assertTrue(result[0] * nx + result[1] * ny <= result[2] * nx + result[3] * ny + EPSILON);
+        }
+    }
+
+    @Test
+    public void normalCollisionKeepsSeparatingBodies() {
+        Motion.getCollision(-1, 2, 1, 1, 0, 1, 1, 0, result);
+        assertArrayEquals(new double[]{-1, 2, 1, 0, 1, 0}, result, 0);
+    }
+
+    @Test
+    public void normalCollisionReflectsOffImmovableBodies() {
+        Motion.getCollision(3, 1, 1, 0, 0, IMMOVABLE, 1, 0, result);
+        assertArrayEquals(new double[]{-3, 1, 0, 0, 1, 0}, result, EPSILON);
+        Motion.getCollision(0, 0, IMMOVABLE, -3, 1, 1, 1, 0, result);
+        assertArrayEquals(new double[]{0, 0, 3, 1, 1, 0}, result, EPSILON);
+    }
+
+    @Test
+    public void circlesIntersectWhenCloserThanTheirRadii() {
+        assertTrue(Motion.intersectsCircle(0, 0, 5, 7, 0, 3));
+        assertFalse(Motion.intersectsCircle(0, 0, 5, 8, 0, 3));
+        assertFalse(Motion.intersectsCircle(0, 0, 5, 6, 6, 3));
+        assertTrue(Motion.intersectsCircle(0, 0, 5, 0, 0, 1));
+    }
+
+    @Test
+    public void circlesIntersectRectanglesNearTheirClosestPoint() {
+        assertTrue(Motion.intersectsCircle(5, 5, 1, 0, 0, 10, 10));
+        assertTrue(Motion.intersectsCircle(-2, 5, 3, 0, 0, 10, 10));
+        assertFalse(Motion.intersectsCircle(-3, 5, 3, 0, 0, 10, 10));
+        assertTrue(Motion.intersectsCircle(12, 12, 3, 0, 0, 10, 10));
+        assertFalse(Motion.intersectsCircle(13, 13, 4, 0, 0, 10, 10));
+        assertFalse(Motion.intersectsCircle(5, 5, 10, 0, 0, 0, 10));
+    }
+
+    @Test
+    public void rayDistanceIsWhereTheRayEnters() {
+        assertEquals(5, Motion.getRayDistance(0, 5, 1, 0, 5, 0, 15, 10, 100), EPSILON);
+        assertEquals(2.5, Motion.getRayDistance(0, 5, 2, 0, 5, 0, 15, 10, 100), EPSILON);
+        assertEquals(5, Motion.getRayDistance(20, 5, -1, 0, 5, 0, 15, 10, 100), EPSILON);
+        assertEquals(Math.sqrt(50), Motion.getRayDistance(0, 0, Math.sqrt(0.5), Math.sqrt(0.5), 5, 5, 15, 15, 100), EPSILON);
+        assertEquals(0, Motion.getRayDistance(10, 5, 1, 0, 5, 0, 15, 10, 100), 0);
+    }
+
+    @Test
+    public void rayDistanceIncludesEdges() {
+        assertEquals(5, Motion.getRayDistance(0, 0, 1, 0, 5, 0, 15, 10, 100), EPSILON);
+        assertEquals(5, Motion.getRayDistance(0, 5, 1, 0, 5, 0, 15, 10, 5), EPSILON);
+    }
+
+    @Test
+    public void rayDistanceMissesBoxesOffTheRay() {
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getRayDistance(0, 5, 1, 0, 5, 0, 15, 10, 4), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getRayDistance(0, 5, -1, 0, 5, 0, 15, 10, 100), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getRayDistance(0, 11, 1, 0, 5, 0, 15, 10, 100), 0);
+        assertEquals(Double.POSITIVE_INFINITY, Motion.getRayDistance(0, 0, 1, 2, 5, 0, 15, 5, 100), 0);
+    }
+
+    @Test
+    public void distanceSquaredIsToTheClosestPoint() {
+        assertEquals(0, Motion.getDistanceSquared(5, 5, 0, 0, 10, 10), 0);
+        assertEquals(0, Motion.getDistanceSquared(10, 0, 0, 0, 10, 10), 0);
+        assertEquals(9, Motion.getDistanceSquared(-3, 5, 0, 0, 10, 10), 0);
+        assertEquals(16, Motion.getDistanceSquared(5, 14, 0, 0, 10, 10), 0);
+        assertEquals(25, Motion.getDistanceSquared(13, -4, 0, 0, 10, 10), 0);
+    }
+
+    private static boolean overlaps(double x1, double y1, double x2, double y2, double tolerance) {
+        return x1 <= x2 + 10 + tolerance && x2 <= x1 + 10 + tolerance && y1 <= y2 + 10 + tolerance && y2 <= y1 + 10 + tolerance;
+    }
+
+    private static Entity2d entity(double mass, double x, double y, double width, double height, double vx, double vy) {
+        Entity2d entity = new Entity2d(mass, new Dimension2d(width, height));
+        entity.setPosition(x, y);
+        entity.setVelocity(vx, vy);
+        return entity;
+    }
+
+    private static double energy(double vx1, double vy1, double vx2, double vy2) {
+        return vx1 * vx1 + vy1 * vy1 + vx2 * vx2 + vy2 * vy2;
+    }
+}